@@ -0,0 +1,117 @@
+package com.example.springwebnotebook.bench;
+
+import com.example.springwebnotebook.SpringWebNotebookApplication;
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INoteSharesDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.NoteLink;
+import com.example.springwebnotebook.repository.NoteShare;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the application (without a web server) against an in-memory H2 or a fresh log store and seeds it
+final class BenchmarkApp {
+
+    private BenchmarkApp() {}
+
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(SpringWebNotebookApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + database
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "notes.export.fetch-size=1000",
+                        "notes.autosave.journal-dir=target/autosave-journal-" + database)
+                .run();
+    }
+
+    static ConfigurableApplicationContext startLogStore(String name) throws IOException {
+        Path directory = Path.of("target", "logstore-" + name);
+        FileSystemUtils.deleteRecursively(directory);
+        return new SpringApplicationBuilder(SpringWebNotebookApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("logstore")
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "notes.autosave.journal-dir=target/autosave-journal-" + name)
+                // an argument, because application-logstore.properties outranks default properties
+                .run("--notes.logstore.dir=" + directory);
+    }
+
+    // the same data as seed(DataSource, ...), written through the DAOs
+    static void seed(INotesDAO notesDao, INoteLinksDAO linksDao, INoteSharesDAO sharesDao,
+                     int notes, int linksPerNote, int contentLength) {
+        String content = "lorem ipsum dolor sit amet ".repeat(contentLength / 27 + 1).substring(0, contentLength);
+
+        List<Note> rows = new ArrayList<>();
+        for (int i = 1; i <= notes; i++) {
+            Note note = new Note();
+            note.setId((long) i);
+            note.setTitle("Note " + i);
+            note.setContent(content);
+            rows.add(note);
+        }
+        notesDao.restoreAll(rows);
+
+        List<NoteLink> links = new ArrayList<>();
+        for (int i = 1; i <= notes; i++) {
+            for (int k = 1; k <= linksPerNote; k++) {
+                links.add(new NoteLink(i, (long) ((i + k - 1) % notes) + 1));
+            }
+        }
+        linksDao.addAll(links);
+
+        List<NoteShare> shares = new ArrayList<>();
+        for (int i = 1; i <= notes; i++) {
+            NoteShare share = new NoteShare();
+            share.setShareKey("bench-key-" + i);
+            share.setNoteId(i);
+            share.setCreatedAt(Instant.EPOCH);
+            shares.add(share);
+        }
+        sharesDao.restoreAll(shares);
+    }
+
+    static void seed(DataSource dataSource, int notes, int linksPerNote, int contentLength) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String content = "lorem ipsum dolor sit amet ".repeat(contentLength / 27 + 1).substring(0, contentLength);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= notes; i++) {
+            rows.add(new Object[]{(long) i, "Note " + i, content});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO notes (id, title, content) VALUES (?, ?, ?)", rows);
+
+        List<Object[]> shares = new ArrayList<>();
+        for (int i = 1; i <= notes; i++) {
+            shares.add(new Object[]{"bench-key-" + i, (long) i, Timestamp.from(Instant.EPOCH)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO note_shares (share_key, note_id, created_at) VALUES (?, ?, ?)", shares);
+
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 1; i <= notes; i++) {
+            for (int k = 1; k <= linksPerNote; k++) {
+                links.add(new Object[]{(long) i, (long) ((i + k - 1) % notes) + 1});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO notes_to_notes (linker_id, linked_id) VALUES (?, ?)", links);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.springwebnotebook.bench;
+
+import com.example.springwebnotebook.controller.NoteRestController;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+// JSON Patch and Merge Patch handlers of NoteRestController, including the database round trips
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatchBenchmark {
+
+    @Param({"1024", "102400"})
+    public int contentLength;
+
+    private ConfigurableApplicationContext context;
+    private NoteRestController controller;
+    private JsonPatch jsonPatch;
+    private JsonNode mergePatch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApp.start("patch_" + contentLength);
+        BenchmarkApp.seed(context.getBean(DataSource.class), 100, 5, contentLength);
+        controller = context.getBean(NoteRestController.class);
+
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        jsonPatch = objectMapper.readValue("[{\"op\":\"replace\",\"path\":\"/title\",\"value\":\"Patched\"}]", JsonPatch.class);
+        mergePatch = objectMapper.readTree("{\"title\":\"Merged\"}");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> jsonPatch() {
+        return controller.patchWithJsonPatch("1", jsonPatch, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> mergePatch() {
+        return controller.patchWithMergePatch("1", mergePatch, null);
+    }
+}
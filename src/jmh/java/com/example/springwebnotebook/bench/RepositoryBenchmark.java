@@ -0,0 +1,82 @@
+package com.example.springwebnotebook.bench;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INoteSharesDAO;
+import com.example.springwebnotebook.repository.NoteShare;
+import com.example.springwebnotebook.repository.INotesDAO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares the INotesDAO implementations on the same data: both JDBC ones on H2, and the log store
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"noteRepositoryJdbcClient", "noteRepositoryJdbcTemplate", "noteRepositoryLogStore"})
+    public String dao;
+
+    @Param({"10000"})
+    public int notes;
+
+    private ConfigurableApplicationContext context;
+    private INotesDAO repository;
+    private INoteSharesDAO sharesRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (dao.equals("noteRepositoryLogStore")) {
+            context = BenchmarkApp.startLogStore("repository");
+            BenchmarkApp.seed(context.getBean(INotesDAO.class), context.getBean(INoteLinksDAO.class),
+                    context.getBean(INoteSharesDAO.class), notes, 5, 1024);
+        } else {
+            context = BenchmarkApp.start("repository_" + dao);
+            BenchmarkApp.seed(context.getBean(DataSource.class), notes, 5, 1024);
+        }
+        repository = context.getBean(dao, INotesDAO.class);
+        // share links have one DAO per profile, not one per notes DAO
+        sharesRepository = context.getBean(INoteSharesDAO.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Note> findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(1, notes + 1));
+    }
+
+    @Benchmark
+    public Optional<NoteShare> findActiveShare() {
+        return sharesRepository.findActive("bench-key-" + ThreadLocalRandom.current().nextInt(1, notes + 1), Instant.now());
+    }
+
+    @Benchmark
+    public List<Note> findPageDeepOffset() {
+        return repository.findPage(Optional.empty(), notes - 20, 20);
+    }
+
+    @Benchmark
+    public List<Note> findPageDeepKeyset() {
+        return repository.findPageAfter(Optional.empty(), (long) notes - 20, 20);
+    }
+
+    @Benchmark
+    public List<Note> findPageTitleFilter() {
+        return repository.findPage(Optional.of("note 99"), 0, 20);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.springwebnotebook.bench;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.NotesRowMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Maps the same 100-row result with the hand-written mapper and with BeanPropertyRowMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final String SELECT_100 = "SELECT * FROM notes WHERE id BETWEEN 1 AND 100";
+
+    @Param({"notesRowMapper", "beanPropertyRowMapper"})
+    public String mapper;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private RowMapper<Note> rowMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("mapper_" + mapper);
+        DataSource dataSource = context.getBean(DataSource.class);
+        BenchmarkApp.seed(dataSource, 1000, 0, 256);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        rowMapper = mapper.equals("notesRowMapper") ? new NotesRowMapper() : new BeanPropertyRowMapper<>(Note.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Note> map100Rows() {
+        return jdbcTemplate.query(SELECT_100, rowMapper);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.springwebnotebook.bench;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Service hot paths through the real Spring wiring (transactions, cache, events)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int NOTES = 10000;
+    private static final int LINKS = 200;
+
+    private ConfigurableApplicationContext context;
+    private NoteService noteService;
+    private Note linkedNote;
+    private List<LinkPair> linksA;
+    private List<LinkPair> linksB;
+    private boolean toggle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("service");
+        BenchmarkApp.seed(context.getBean(DataSource.class), NOTES, 0, 1024);
+        noteService = context.getBean(NoteService.class);
+
+        // two link sets of 200 ids that differ in 20 ids: every update adds 20 and removes 20 links
+        linksA = new ArrayList<>();
+        linksB = new ArrayList<>();
+        for (long id = 2; id < 2 + LINKS; id++) linksA.add(new LinkPair(id, null));
+        for (long id = 22; id < 22 + LINKS; id++) linksB.add(new LinkPair(id, null));
+
+        linkedNote = new Note();
+        linkedNote.setId(1L);
+        linkedNote.setTitle("Note 1");
+        linkedNote.setContent("content");
+        linkedNote.setLinks(linksA);
+        noteService.updateNote(linkedNote);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Note> filterAndPaginateFirstPage() {
+        return noteService.findWithFilterAndPagination(Optional.of("note 1"), 0, 20);
+    }
+
+    @Benchmark
+    public List<Note> filterAndPaginateDeepPage() {
+        return noteService.findWithFilterAndPagination(Optional.of("note"), NOTES / 20 - 1, 20);
+    }
+
+    @Benchmark
+    public Optional<Note> updateNoteLinkDiff() {
+        toggle = !toggle;
+        linkedNote.setLinks(toggle ? linksB : linksA);
+        return noteService.updateNote(linkedNote);
+    }
+
+    @Benchmark
+    public Optional<Note> getNoteByIdCached() {
+        return noteService.getNoteById(2L);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.springwebnotebook.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram (microseconds, 3 significant digits) and error count per endpoint, recorded
+// between start() and stop(); rendered as a table, written as JSON and compared with an earlier run
+final class LoadReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private volatile boolean recording;
+    private long startNanos;
+    private long elapsedNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    // requests outside start()..stop() (warmup) are not recorded
+    void record(String endpoint, long requestStartNanos, boolean ok) {
+        if (!recording) return;
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStartNanos);
+        Endpoint recorded = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        recorded.latency.recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+        if (!ok) recorded.errors.increment();
+    }
+
+    long errorCount() {
+        return endpoints.values().stream().mapToLong(endpoint -> endpoint.errors.sum()).sum();
+    }
+
+    long requestCount() {
+        return endpoints.values().stream().mapToLong(endpoint -> endpoint.latency.getTotalCount()).sum();
+    }
+
+    String table() {
+        StringBuilder table = new StringBuilder(String.format("%-26s %9s %9s %9s %9s %9s %9s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        summaries().forEach((name, summary) -> table.append(String.format("%-26s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                name, summary.requests, summary.throughput, summary.p50 / 1000.0, summary.p99 / 1000.0,
+                summary.p999 / 1000.0, summary.max / 1000.0, summary.errors)));
+        return table.toString();
+    }
+
+    void write(Path file, Map<String, Object> settings, ObjectMapper objectMapper) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", settings);
+        result.put("seconds", elapsedNanos / 1e9);
+        result.put("endpoints", summaries());
+        Files.createDirectories(file.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), result);
+    }
+
+    // a line per endpoint present in both runs; endpoints whose p99 grew by more than
+    // maxRegressionPercent (when > 0) are added to regressions
+    String compare(JsonNode baseline, double maxRegressionPercent, List<String> regressions) {
+        StringBuilder comparison = new StringBuilder(String.format("%-26s %13s %13s %13s%n",
+                "vs baseline", "req/s", "p50", "p99"));
+        summaries().forEach((name, summary) -> {
+            JsonNode before = baseline.path("endpoints").path(name);
+            if (before.isMissingNode()) return;
+            double p99Change = change(before.path("p99").asDouble(), summary.p99);
+            comparison.append(String.format("%-26s %+12.1f%% %+12.1f%% %+12.1f%%%n", name,
+                    change(before.path("throughput").asDouble(), summary.throughput),
+                    change(before.path("p50").asDouble(), summary.p50), p99Change));
+            if (maxRegressionPercent > 0 && p99Change > maxRegressionPercent) {
+                regressions.add(String.format("%s: p99 %.2f ms -> %.2f ms", name,
+                        before.path("p99").asDouble() / 1000.0, summary.p99 / 1000.0));
+            }
+        });
+        return comparison.toString();
+    }
+
+    private Map<String, Summary> summaries() {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            Histogram latency = endpoint.latency.copy();
+            summaries.put(name, new Summary(latency.getTotalCount(), latency.getTotalCount() / seconds,
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                    latency.getValueAtPercentile(99.9), latency.getMaxValue(), endpoint.errors.sum()));
+        });
+        return summaries;
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? 0 : (now - before) * 100 / before;
+    }
+
+    private static final class Endpoint {
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    // latencies in microseconds; public getters for the JSON output
+    public static final class Summary {
+        private final long requests;
+        private final double throughput;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+        private final long errors;
+
+        Summary(long requests, double throughput, long p50, long p99, long p999, long max, long errors) {
+            this.requests = requests;
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+            this.errors = errors;
+        }
+
+        public long getRequests() { return requests; }
+
+        public double getThroughput() { return throughput; }
+
+        public long getP50() { return p50; }
+
+        public long getP99() { return p99; }
+
+        public long getP999() { return p999; }
+
+        public long getMax() { return max; }
+
+        public long getErrors() { return errors; }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.springwebnotebook.load;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteService;
+import com.example.springwebnotebook.service.SharedNoteService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Boots the application on a random port against an in-memory H2, seeds notes, links and share
+// links through the services (so the in-memory indexes know them), then lets virtual-thread
+// clients send a mixed read/write workload over HTTP for loadtest.duration after loadtest.warmup.
+// Runs only with -Ploadtest; every loadtest.* system property below has a default.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:notes_load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        // budgets are enforced by QueryBudgetTests, here they would only fail writes by URI pattern
+        "notes.query-budget.mode=off",
+        "notes.autosave.journal-dir=target/loadtest/autosave-journal"
+})
+class NotesLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NotesLoadTest.class);
+
+    private static final int NOTES = Integer.getInteger("loadtest.notes", 2000);
+    private static final int LINKS_PER_NOTE = Integer.getInteger("loadtest.links-per-note", 3);
+    private static final int CONTENT_LENGTH = Integer.getInteger("loadtest.content-length", 1024);
+    // one seeded note in share-every gets a share link
+    private static final int SHARE_EVERY = Integer.getInteger("loadtest.share-every", 4);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 32);
+    private static final int WRITE_PERCENT = Integer.getInteger("loadtest.write-percent", 10);
+    private static final Duration WARMUP = DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s"));
+    private static final Duration DURATION = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s"));
+    private static final Path RESULT = Path.of(System.getProperty("loadtest.result", "target/loadtest/result.json"));
+    private static final String BASELINE = System.getProperty("loadtest.baseline");
+    // p99 growth over the baseline, in percent, that fails the run; 0 only reports
+    private static final double MAX_REGRESSION = Double.parseDouble(System.getProperty("loadtest.max-regression", "0"));
+    private static final int PAGE_SIZE = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private SharedNoteService sharedNoteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LoadReport report = new LoadReport();
+    private long[] ids;
+    private String[] shareKeys;
+    private String content;
+
+    @Test
+    void mixedWorkload() throws Exception {
+        seed();
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long measureFrom = System.nanoTime() + WARMUP.toNanos();
+        long deadline = measureFrom + DURATION.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) clients.submit(() -> drive(http, deadline));
+            Thread.sleep(WARMUP);
+            report.start();
+        }
+        report.stop();
+
+        log.info("Load test: {} notes, {} clients, {}% writes, {} measured after {} warmup\n{}",
+                NOTES, CLIENTS, WRITE_PERCENT, DURATION, WARMUP, report.table());
+        report.write(RESULT, settings(), objectMapper);
+
+        List<String> regressions = new ArrayList<>();
+        if (BASELINE != null) {
+            JsonNode baseline = objectMapper.readTree(Files.readAllBytes(Path.of(BASELINE)));
+            if (!baseline.path("settings").equals(objectMapper.valueToTree(settings()))) {
+                log.warn("The baseline ran with other settings, its numbers are not comparable: {}", baseline.path("settings"));
+            }
+            log.info("Compared with {}\n{}", BASELINE, report.compare(baseline, MAX_REGRESSION, regressions));
+        }
+
+        assertTrue(report.requestCount() > 0, "no request completed");
+        assertEquals(0, report.errorCount(), "failed requests, see the errors column");
+        assertTrue(regressions.isEmpty(), "p99 regressed by more than " + MAX_REGRESSION + "%: " + regressions);
+    }
+
+    private void seed() {
+        content = "lorem ipsum dolor sit amet ".repeat(CONTENT_LENGTH / 27 + 1).substring(0, CONTENT_LENGTH);
+        Random random = new Random(42);
+        ids = new long[NOTES];
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < NOTES; i++) {
+            Set<Long> linked = new LinkedHashSet<>();
+            for (int k = 0; k < Math.min(i, LINKS_PER_NOTE); k++) linked.add(ids[random.nextInt(i)]);
+
+            Note note = new Note();
+            note.setTitle("Load note " + i);
+            note.setContent(content);
+            note.setLinks(linked.stream().map(linkedId -> new LinkPair(linkedId, null)).toList());
+            ids[i] = noteService.createNote(note).longValue();
+            if (i % SHARE_EVERY == 0) keys.add(sharedNoteService.share(ids[i], null).orElseThrow().getShareKey());
+        }
+        shareKeys = keys.toArray(String[]::new);
+    }
+
+    private void drive(HttpClient http, long deadline) {
+        while (System.nanoTime() < deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String endpoint;
+            HttpRequest.Builder request;
+            long id = ids[random.nextInt(ids.length)];
+            int roll = random.nextInt(100);
+            if (roll < WRITE_PERCENT) {
+                // one write in five creates a note, the others replace a seeded one
+                boolean create = random.nextInt(5) == 0;
+                endpoint = create ? "POST /api/notes" : "PUT /api/notes/{id}";
+                String body = "{\"title\":\"Load note " + (create ? "new" : id) + "\",\"content\":\"" + content + "\"}";
+                request = http(create ? "/api/notes" : "/api/notes/" + id)
+                        .header("Content-Type", "application/json")
+                        .method(create ? "POST" : "PUT", HttpRequest.BodyPublishers.ofString(body));
+            } else {
+                int read = random.nextInt(100);
+                if (read < 40) {
+                    endpoint = "GET /api/notes/{id}";
+                    request = http("/api/notes/" + id);
+                } else if (read < 55) {
+                    endpoint = "GET /api/notes";
+                    request = http("/api/notes?size=" + PAGE_SIZE + "&page=" + random.nextInt(Math.max(1, NOTES / PAGE_SIZE)));
+                } else if (read < 75) {
+                    endpoint = "GET /share/{shareKey}";
+                    request = http("/share/" + shareKeys[random.nextInt(shareKeys.length)]);
+                } else if (read < 90) {
+                    endpoint = "GET / (page)";
+                    request = http("/?after=" + id);
+                } else {
+                    endpoint = "GET /edit/{id} (page)";
+                    request = http("/edit/" + id);
+                }
+            }
+
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = http.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            report.record(endpoint, start, ok);
+        }
+    }
+
+    private HttpRequest.Builder http(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private static Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("notes", NOTES);
+        settings.put("linksPerNote", LINKS_PER_NOTE);
+        settings.put("contentLength", CONTENT_LENGTH);
+        settings.put("shareEvery", SHARE_EVERY);
+        settings.put("clients", CLIENTS);
+        settings.put("writePercent", WRITE_PERCENT);
+        settings.put("warmup", WARMUP.toString());
+        settings.put("duration", DURATION.toString());
+        return settings;
+    }
+}
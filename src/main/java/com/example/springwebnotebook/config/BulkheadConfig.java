@@ -0,0 +1,37 @@
+package com.example.springwebnotebook.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class BulkheadConfig {
+
+    @Bean
+    public DbBulkhead dbBulkhead(@Value("${notes.bulkhead.max-concurrent:10}") int maxConcurrent,
+                                 @Value("${notes.bulkhead.max-queue:200}") int maxQueue,
+                                 @Value("${notes.bulkhead.timeout:2s}") Duration timeout) {
+        return new DbBulkhead(maxConcurrent, maxQueue, timeout);
+    }
+
+    // static: a BeanPostProcessor must not pull the rest of this configuration into early initialization
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(
+            ObjectProvider<DbBulkhead> bulkhead,
+            @Value("${notes.bulkhead.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    return new BulkheadDataSource(dataSource, bulkhead.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
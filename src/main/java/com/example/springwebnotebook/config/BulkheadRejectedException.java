@@ -0,0 +1,16 @@
+package com.example.springwebnotebook.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.sql.SQLTransientConnectionException;
+
+// Thrown instead of handing out a connection when the bulkhead is saturated.
+// Spring wraps it (CannotGetJdbcConnectionException etc.), the cause chain still maps to 503.
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Database is overloaded, retry later")
+public class BulkheadRejectedException extends SQLTransientConnectionException {
+
+    public BulkheadRejectedException(String message) {
+        super(message);
+    }
+}
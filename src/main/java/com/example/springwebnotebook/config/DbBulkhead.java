@@ -0,0 +1,68 @@
+package com.example.springwebnotebook.config;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how many threads hold a database connection at once. With virtual threads the
+ * number of concurrent requests is practically unbounded, so callers queue here (fairly,
+ * up to maxQueue waiters and at most timeout long) and are rejected with 503 beyond that.
+ */
+public class DbBulkhead {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long timeoutNanos;
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public DbBulkhead(int maxConcurrent, int maxQueue, Duration timeout) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public void acquire() throws BulkheadRejectedException {
+        if (permits.tryAcquire()) {
+            acquired.incrementAndGet();
+            return;
+        }
+        if (permits.getQueueLength() >= maxQueue) {
+            rejected.incrementAndGet();
+            throw new BulkheadRejectedException("Bulkhead queue is full (" + maxQueue + " waiting)");
+        }
+
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                timedOut.incrementAndGet();
+                throw new BulkheadRejectedException("No database connection available within " + Duration.ofNanos(timeoutNanos));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            throw new BulkheadRejectedException("Interrupted while waiting for a database connection");
+        }
+        acquired.incrementAndGet();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() { return maxConcurrent; }
+
+    public int getInUse() { return maxConcurrent - permits.availablePermits(); }
+
+    public int getQueueDepth() { return permits.getQueueLength(); }
+
+    public long getAcquiredCount() { return acquired.get(); }
+
+    public long getRejectedCount() { return rejected.get(); }
+
+    public long getTimedOutCount() { return timedOut.get(); }
+}
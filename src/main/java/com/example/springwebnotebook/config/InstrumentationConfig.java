@@ -0,0 +1,59 @@
+package com.example.springwebnotebook.config;
+
+import com.example.springwebnotebook.metrics.DaoMetricsInterceptor;
+import com.example.springwebnotebook.metrics.QueryBudgetProperties;
+import com.example.springwebnotebook.metrics.QueryCountFilter;
+import com.example.springwebnotebook.metrics.StatementCountingDataSource;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class InstrumentationConfig {
+
+    @Bean
+    public QueryCountFilter queryCountFilter(MeterRegistry registry, QueryBudgetProperties budget) {
+        return new QueryCountFilter(registry, budget);
+    }
+
+    // static for the same reason as in BulkheadConfig
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor daoMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof INotesDAO) && !(bean instanceof INoteLinksDAO)) return bean;
+
+                ProxyFactory proxyFactory = new ProxyFactory();
+                proxyFactory.setTarget(bean);
+                proxyFactory.setInterfaces(ClassUtils.getAllInterfacesForClass(AopUtils.getTargetClass(bean)));
+                proxyFactory.addAdvice(new DaoMetricsInterceptor(beanName, registry));
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.springwebnotebook.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, active once a replica is configured (notes.datasource.replicas[0].url).
+ * The application DataSource fetches its physical connection lazily, at the first statement, when
+ * the transaction's read-only flag is known: @Transactional(readOnly = true) work reads from a
+ * replica, everything else runs on the primary. Only the routing DataSource is a bean, so the
+ * bulkhead and statement counting wrap it once, whichever pool serves the connection.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "notes.datasource.replicas[0]", name = "url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    private ReplicaRoutingDataSource replicaRouting;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ReplicaProperties replicaProperties,
+                                 Environment environment) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // what the auto-configured pool would get from spring.datasource.hikari.*
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) primary.setPoolName("primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReplicaProperties.Replica replica : replicaProperties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + replicas.size());
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername());
+            pool.setPassword(replica.getPassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(Math.max(250, replicaProperties.getReplicaTimeout().toMillis()));
+            // a replica that is down at startup is marked unhealthy instead of failing the application
+            pool.setInitializationFailTimeout(-1);
+            replicas.add(pool);
+        }
+        replicaRouting = new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getReplicaTimeout());
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaRouting);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaProperties replicaProperties) {
+        return new ReadYourWritesFilter(replicaProperties.getReadYourWrites());
+    }
+
+    @Scheduled(fixedDelayString = "${notes.datasource.health-check-interval:5s}")
+    public void checkReplicas() {
+        if (replicaRouting != null) replicaRouting.checkHealth();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (replicaRouting != null) replicaRouting.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.springwebnotebook.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// notes.datasource.*: read replicas next to the primary configured by spring.datasource.*
+@ConfigurationProperties(prefix = "notes.datasource")
+public class ReplicaProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+    // how long a client that wrote keeps reading from the primary; should exceed the replication lag
+    private Duration readYourWrites = Duration.ofSeconds(5);
+    // connection and validation timeout for replicas, after which the read falls back to the primary
+    private Duration replicaTimeout = Duration.ofSeconds(1);
+
+    public List<Replica> getReplicas() { return replicas; }
+    public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+
+    public Duration getReadYourWrites() { return readYourWrites; }
+    public void setReadYourWrites(Duration readYourWrites) { this.readYourWrites = readYourWrites; }
+
+    public Duration getReplicaTimeout() { return replicaTimeout; }
+    public void setReplicaTimeout(Duration replicaTimeout) { this.replicaTimeout = replicaTimeout; }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.springwebnotebook.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connections for read-only transactions: the healthy replicas take turns, a replica that fails to
+ * hand out a connection is skipped until the next health check finds it valid again. Falls back to
+ * the primary when no replica is healthy, and while the current request reads its own writes.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration validationTimeout) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.validationTimeoutSeconds = (int) Math.max(1, validationTimeout.toSeconds());
+        checkHealth();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadYourWritesFilter.isPinnedToPrimary()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) continue;
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    markDown(replica, e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Replica connections use the configured credentials");
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    if (!replica.healthy) log.info("Replica {} is available", replica.dataSource.getPoolName());
+                    replica.healthy = true;
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    public long healthyCount() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    private static void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Replica {} is unavailable, reading from the other replicas or the primary",
+                    replica.dataSource.getPoolName(), cause);
+        }
+        replica.healthy = false;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        if (primary instanceof HikariDataSource pool) pool.close();
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.springwebnotebook.controller;
 
 import com.example.springwebnotebook.model.Note;
-import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.repository.NotePreview;
 import com.example.springwebnotebook.service.NoteService;
+import com.example.springwebnotebook.service.SharedNoteService;
+import com.example.springwebnotebook.service.SharedPage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 @Controller
 @RequestMapping("/")
@@ -18,39 +30,47 @@ public class NoteController {
     @Autowired
     private NoteService noteService;
 
+    @Autowired
+    private SharedNoteService sharedNoteService;
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Value("${notes.list.page-size:50}")
+    private int pageSize;
+
+    // keyset pages: after is the last id of the previous page, so any page costs one indexed query
     @GetMapping
-    public String listNotes(Model model) {
-        model.addAttribute("notes", noteService.getAllNotes());
+    public String listNotes(@RequestParam(required = false) Long after, Model model) {
+        // one extra row tells whether there is a next page
+        List<NotePreview> notes = noteService.findPreviewsAfter(after != null ? after : 0L, pageSize + 1);
+        boolean hasNext = notes.size() > pageSize;
+        if (hasNext) notes = notes.subList(0, pageSize);
+
+        model.addAttribute("notes", notes);
+        model.addAttribute("total", noteService.countNotes());
+        model.addAttribute("after", after);
+        model.addAttribute("nextCursor", hasNext ? notes.get(notes.size() - 1).getId() : null);
         return "notes";
     }
 
+    // link candidates come from /api/notes/suggest as the user types, not from a list of every note
     @GetMapping("/new")
     public String newNote(Model model) {
         model.addAttribute("note", new Note());
-        model.addAttribute("notes", noteService.getAllNotes());
-        model.addAttribute("linkedIds", new ArrayList<Long>());
         return "note-form";
     }
 
     @GetMapping("/edit/{id}")
     public String editNote(@PathVariable Long id, Model model) {
-        noteService.getNoteById(id).ifPresent(note -> model.addAttribute("note", note));
-        model.addAttribute("notes", noteService.getAllNotes());
-
-        List<Long> linkedIds = noteService.getNoteById(id)
-                .map(Note::getLinks)
-                .orElse(List.of())
-                .stream()
-                .map(LinkPair::getId)
-                .toList();
-
-        model.addAttribute("linkedIds", linkedIds);
+        Optional<Note> note = noteService.getNoteById(id);
+        note.ifPresent(n -> model.addAttribute("note", n));
         return "note-form";
     }
 
     @PostMapping("/save")
     public String saveNote(@ModelAttribute Note note) {
-        if (noteService.getNoteById(note.getId()).isPresent()){
+        if (noteService.noteExists(note.getId())){
             noteService.updateNote(note);
         } else {
             noteService.createNote(note);
@@ -71,9 +91,25 @@ public class NoteController {
         return "share-link";
     }
 
+    // rendered page is cached per share key; ETag/Last-Modified let clients revalidate with a 304
     @GetMapping("/share/{shareKey}")
-    public String viewSharedNote(@PathVariable String shareKey, Model model) {
-        noteService.getNoteByShareKey(shareKey).ifPresent(note -> model.addAttribute("note", note));
-        return "shared-note";
+    public ResponseEntity<byte[]> viewSharedNote(@PathVariable String shareKey,
+                                                 HttpServletRequest request,
+                                                 HttpServletResponse response) {
+        SharedPage page = sharedNoteService.getPage(shareKey, note -> renderSharedNote(note, request, response));
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .cacheControl(CacheControl.noCache())
+                .eTag(page.getEtag())
+                .lastModified(page.getLastModified())
+                .body(page.getHtml());
+    }
+
+    private String renderSharedNote(Optional<Note> note, HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext()).buildExchange(request, response),
+                request.getLocale());
+        note.ifPresent(n -> context.setVariable("note", n));
+        return templateEngine.process("shared-note", context);
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong ETags of notes as GET /api/notes/{id} serves them, and If-Match evaluation against them
+ * (RFC 9110 13.1.1). The tag is the note's version plus, for a note with links, a hash of the linked
+ * ids and titles: a linked note's new title changes the served JSON without bumping the version.
+ */
+final class NoteETags {
+
+    // If-Match: * as parsed by parse()
+    static final List<String> ANY = List.of("*");
+
+    private NoteETags() {
+    }
+
+    // "<version>" or "<version>-<hash of the links>"
+    static String of(Note note) {
+        List<LinkPair> links = note.getLinks();
+        if (links == null || links.isEmpty()) return "\"" + note.getVersion() + "\"";
+
+        StringBuilder linked = new StringBuilder();
+        for (LinkPair link : links) linked.append(link.getId()).append('\u0000').append(link.getTitle()).append('\u0001');
+        String hash = DigestUtils.md5DigestAsHex(linked.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return "\"" + note.getVersion() + "-" + hash + "\"";
+    }
+
+    // the entity tags of an If-Match value, weak ones with their W/ prefix; ANY for "*", null when malformed
+    static List<String> parse(String header) {
+        if (header.trim().equals("*")) return ANY;
+
+        List<String> tags = new ArrayList<>();
+        int i = 0, n = header.length();
+        while (i < n) {
+            char c = header.charAt(i);
+            if (c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+            int start = i;
+            if (header.startsWith("W/", i)) i += 2;
+            if (i >= n || header.charAt(i) != '"') return null;
+            int end = header.indexOf('"', i + 1);
+            if (end < 0) return null;
+            tags.add(header.substring(start, end + 1));
+            i = end + 1;
+            // the next tag only after a comma
+            while (i < n && (header.charAt(i) == ' ' || header.charAt(i) == '\t')) i++;
+            if (i < n && header.charAt(i) != ',') return null;
+        }
+        return tags.isEmpty() ? null : tags;
+    }
+
+    // strong comparison: * matches any existing note, a list when one member is the current tag; weak tags never match
+    static boolean matches(List<String> ifMatch, Note current) {
+        if (current == null) return false;
+        if (ifMatch == ANY) return true;
+        String etag = of(current);
+        return ifMatch.stream().anyMatch(etag::equals);
+    }
+}
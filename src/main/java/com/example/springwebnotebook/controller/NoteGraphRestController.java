@@ -0,0 +1,115 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.graph.LinkGraph;
+import com.example.springwebnotebook.graph.Neighborhood;
+import com.example.springwebnotebook.repository.LinkPair;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Notes graph API", description = "Backlinks and link-graph traversal, answered from memory")
+public class NoteGraphRestController {
+
+    private static final int MAX_DEPTH = 6;
+
+    private final LinkGraph linkGraph;
+
+    public NoteGraphRestController(LinkGraph linkGraph) {
+        this.linkGraph = linkGraph;
+    }
+
+    // ---------------- BACKLINKS ----------------
+    @Operation(summary = "Notes that link to the given note")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Backlinks returned"),
+            @ApiResponse(responseCode = "404", description = "Note not found")
+    })
+    @GetMapping("/{id}/backlinks")
+    public ResponseEntity<?> backlinks(@PathVariable long id) {
+        List<LinkPair> backlinks = linkGraph.backlinks(id);
+        if (backlinks == null) return notFound(id);
+        return ResponseEntity.ok(backlinks);
+    }
+
+    // ---------------- NEIGHBORHOOD ----------------
+    @Operation(summary = "Notes within depth hops of the given note",
+            description = "direction: out follows links, in follows backlinks, both ignores link direction")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Nodes with their distance and the links between them"),
+            @ApiResponse(responseCode = "400", description = "Invalid depth or direction"),
+            @ApiResponse(responseCode = "404", description = "Note not found")
+    })
+    @GetMapping("/{id}/graph")
+    public ResponseEntity<?> graph(@PathVariable long id,
+                                   @RequestParam(defaultValue = "1") int depth,
+                                   @RequestParam(defaultValue = "both") String direction) {
+        LinkGraph.Direction parsed = parseDirection(direction);
+        if (depth < 0 || depth > MAX_DEPTH || parsed == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "depth must be in 0.." + MAX_DEPTH + ", direction one of out, in, both"));
+        }
+
+        Neighborhood neighborhood = linkGraph.neighborhood(id, depth, parsed);
+        if (neighborhood == null) return notFound(id);
+        return ResponseEntity.ok(neighborhood);
+    }
+
+    // ---------------- SHORTEST PATH ----------------
+    @Operation(summary = "Fewest-hops path between two notes")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Path from id to the target, both included"),
+            @ApiResponse(responseCode = "400", description = "Invalid direction"),
+            @ApiResponse(responseCode = "404", description = "Note not found or no path")
+    })
+    @GetMapping("/{id}/path/{targetId}")
+    public ResponseEntity<?> path(@PathVariable long id,
+                                  @PathVariable long targetId,
+                                  @RequestParam(defaultValue = "out") String direction) {
+        LinkGraph.Direction parsed = parseDirection(direction);
+        if (parsed == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "direction must be one of out, in, both"));
+        }
+
+        List<LinkPair> path = linkGraph.shortestPath(id, targetId, parsed);
+        if (path.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "No path from " + id + " to " + targetId));
+        }
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("hops", path.size() - 1);
+        resp.put("path", path);
+        return ResponseEntity.ok(resp);
+    }
+
+    // ---------------- ORPHANS ----------------
+    @Operation(summary = "Notes without links and backlinks")
+    @GetMapping("/orphans")
+    public ResponseEntity<?> orphans() {
+        return ResponseEntity.ok(linkGraph.orphans());
+    }
+
+    private static LinkGraph.Direction parseDirection(String direction) {
+        return switch (direction.toLowerCase()) {
+            case "out" -> LinkGraph.Direction.OUT;
+            case "in" -> LinkGraph.Direction.IN;
+            case "both" -> LinkGraph.Direction.BOTH;
+            default -> null;
+        };
+    }
+
+    private static ResponseEntity<?> notFound(long id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Note not found with id = " + id));
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.springwebnotebook.controller;
 
+import com.example.springwebnotebook.model.BatchOperation;
+import com.example.springwebnotebook.model.BatchResult;
 import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.search.SearchHit;
 import com.example.springwebnotebook.service.IService;
-import com.example.springwebnotebook.service.NoteService;
+import com.example.springwebnotebook.service.NoteBatchService;
+import com.example.springwebnotebook.service.NoteJsonCache;
+import com.example.springwebnotebook.service.SerializedNote;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
@@ -11,9 +18,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.*;
 import io.swagger.v3.oas.annotations.media.*;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @RestController
@@ -22,15 +34,26 @@ import java.util.*;
 public class NoteRestController {
 
     private final IService noteService;
+    private final NoteBatchService batchService;
+    private final NoteJsonCache noteJson;
     private final ObjectMapper objectMapper;
+    private final int maxBatchOperations;
 
-    public NoteRestController(IService noteService, ObjectMapper objectMapper) {
+    public NoteRestController(IService noteService,
+                              NoteBatchService batchService,
+                              NoteJsonCache noteJson,
+                              ObjectMapper objectMapper,
+                              @Value("${notes.batch.max-operations:1000}") int maxBatchOperations) {
         this.noteService = noteService;
+        this.batchService = batchService;
+        this.noteJson = noteJson;
         this.objectMapper = objectMapper;
+        this.maxBatchOperations = maxBatchOperations;
     }
 
     // ---------------- GET all (filter + pagination) ----------------
-    @Operation(summary = "List notes (supports filter and pagination)")
+    @Operation(summary = "List notes (supports filter and pagination)",
+            description = "Use page/size for offset pagination or after=<id> (nextCursor of the previous response) for keyset pagination")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "List of notes returned",
                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = Note.class)))),
@@ -41,39 +64,115 @@ public class NoteRestController {
     public ResponseEntity<?> listNotes(
             @RequestParam(required = false) String title,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) Long after
     ) {
-        if (page < 0 || size <= 0) {
+        if (page < 0 || size <= 0 || (after != null && after < 0)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Invalid pagination parameters: page must be >= 0, size > 0"));
+                    .body(Map.of("error", "Invalid pagination parameters: page must be >= 0, size > 0, after >= 0"));
+        }
+
+        List<Note> items = after != null
+                ? noteService.findWithFilterAfter(Optional.ofNullable(title), after, size)
+                : noteService.findWithFilterAndPagination(Optional.ofNullable(title), page, size);
+        // a full page means there may be more rows; the cursor is the last id seen
+        Long nextCursor = items.size() == size ? items.get(items.size() - 1).getId() : null;
+
+        // spliced from cached note JSON instead of serializing a map of notes
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256 * items.size() + 64);
+        String position = after != null ? "\"after\":" + after : "\"page\":" + page;
+        body.writeBytes(("{" + position + ",\"size\":" + size + ",\"items\":").getBytes(StandardCharsets.UTF_8));
+        noteJson.writeArray(items, body);
+        body.writeBytes((",\"nextCursor\":" + nextCursor + "}").getBytes(StandardCharsets.UTF_8));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body.toByteArray());
+    }
+
+    // ---------------- SEARCH (full-text) ----------------
+    @Operation(summary = "Full-text search over note titles and content",
+            description = "Results are ranked with BM25; matched terms are wrapped in <mark> in highlightedTitle and snippet")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ranked search hits",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = SearchHit.class)))),
+            @ApiResponse(responseCode = "400", description = "Empty query or invalid limit"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (q.isBlank() || limit <= 0 || limit > 100) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Query must not be empty, limit must be in 1..100"));
         }
 
-        List<Note> items = noteService.findWithFilterAndPagination(Optional.ofNullable(title), page, size);
         Map<String, Object> resp = new HashMap<>();
-        resp.put("page", page);
-        resp.put("size", size);
-        resp.put("items", items);
+        resp.put("query", q);
+        resp.put("items", noteService.search(q, limit));
         return ResponseEntity.ok(resp);
     }
 
+    // ---------------- SUGGEST (title typeahead) ----------------
+    @Operation(summary = "Notes whose title starts with a prefix",
+            description = "Case-insensitive, alphabetical; answered from memory, for link pickers and other typeaheads")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matching notes (id and title)",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = LinkPair.class)))),
+            @ApiResponse(responseCode = "400", description = "Empty prefix or invalid limit")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (prefix.isBlank() || limit <= 0 || limit > 50) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Prefix must not be empty, limit must be in 1..50"));
+        }
+        return ResponseEntity.ok(noteService.suggestTitles(prefix, limit));
+    }
+
     // ---------------- GET by ID ----------------
     @Operation(summary = "Get note by id")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Note found",
+            @ApiResponse(responseCode = "200", description = "Note found, ETag carries its version",
                     content = @Content(schema = @Schema(implementation = Note.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the If-None-Match ETag"),
             @ApiResponse(responseCode = "400", description = "Invalid id format"),
             @ApiResponse(responseCode = "404", description = "Note not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable String id) {
+    public ResponseEntity<?> getById(@PathVariable String id, WebRequest request) {
         // parse id with validation -> NumberFormatException handled by ApiExceptionHandler
         long noteId = Long.parseLong(id);
 
-        return noteService.getNoteById(noteId)
-                .<ResponseEntity<?>>map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Note not found with id = " + id)));
+        Optional<Note> note = noteService.getNoteById(noteId);
+        if (note.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Note not found with id = " + id));
+        }
+
+        // buffered autosave content is not part of any version yet
+        if (noteService.hasPendingAutosave(noteId)) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(note.get());
+        }
+
+        String etag = NoteETags.of(note.get());
+        // sets 304 with an empty body when If-None-Match matches
+        if (request.checkNotModified(etag)) return null;
+
+        // serialized (and compressed) once per version, see NoteJsonCache
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        SerializedNote json = gzip ? noteJson.getCompressed(note.get()) : noteJson.get(note.get());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip && json.getGzip() != null) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.getGzip());
+        }
+        return response.body(json.getJson());
     }
 
     // ---------------- CREATE ----------------
@@ -100,15 +199,19 @@ public class NoteRestController {
     }
 
     // ---------------- UPDATE (PUT — full) ----------------
-    @Operation(summary = "Replace note (full update)")
+    @Operation(summary = "Replace note (full update)",
+            description = "With If-Match the write only succeeds if one of its ETags is the note's current one")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Replaced", content = @Content(schema = @Schema(implementation = Note.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "400", description = "Invalid input or If-Match"),
             @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "412", description = "If-Match matches no current ETag of the note"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<?> replace(@PathVariable String id, @RequestBody Note newNote) {
+    public ResponseEntity<?> replace(@PathVariable String id,
+                                     @RequestBody Note newNote,
+                                     @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         long noteId = Long.parseLong(id);
         if (newNote == null ||
             newNote.getTitle() == null ||
@@ -118,46 +221,50 @@ public class NoteRestController {
                     .body(Map.of("error", "Title is required"));
         }
 
-        Optional<Note> existing = noteService.getNoteById(noteId);
-        if (existing.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", "Note not found with id = " + id));
-        }
-
-        Optional<Note> saved = noteService.updateNote(newNote);
+        if (!validIfMatch(ifMatch)) return invalidIfMatch();
 
-        if(saved.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(Map.of("error", "Couldn't update this note" + id));
-        return ResponseEntity.ok(saved);
+        Note current = null;
+        if (!absent(ifMatch)) {
+            current = noteService.getNoteById(noteId).orElse(null);
+            if (!matches(ifMatch, current)) return preconditionFailed(noteId);
+        }
+        newNote.setId(noteId);
+        newNote.setVersion(expectedVersion(ifMatch, current));
+        return saved(noteId, newNote, !absent(ifMatch));
     }
 
     // ---------------- PATCH (JSON Patch, RFC 6902) ----------------
     @Operation(summary = "Patch note (JSON Patch RFC6902)", description = "Use Content-Type: application/json-patch+json")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Patched (JSON Patch)", content = @Content(schema = @Schema(implementation = Note.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid patch document"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch document or If-Match"),
             @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "409", description = "Note changed while the patch was applied"),
+            @ApiResponse(responseCode = "412", description = "If-Match matches no current ETag of the note"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PatchMapping(path = "/{id}", consumes = "application/json-patch+json")
-    public ResponseEntity<?> patchWithJsonPatch(@PathVariable String id, @RequestBody JsonPatch patch) {
+    public ResponseEntity<?> patchWithJsonPatch(@PathVariable String id,
+                                                @RequestBody JsonPatch patch,
+                                                @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         long noteId = Long.parseLong(id);
+        if (!validIfMatch(ifMatch)) return invalidIfMatch();
 
         Optional<Note> existingOpt = noteService.getNoteById(noteId);
+        if (!matches(ifMatch, existingOpt.orElse(null))) return preconditionFailed(noteId);
         if (existingOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
         }
+        Note existing = existingOpt.get();
 
         try {
-            Note existing = existingOpt.get();
             JsonNode node = objectMapper().convertValue(existing, JsonNode.class);
             JsonNode patched = patch.apply(node);
             Note patchedNote = objectMapper().treeToValue(patched, Note.class);
             patchedNote.setId(noteId);
-            Optional<Note> saved = noteService.updateNote(patchedNote);
-            if(saved.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Couldn't update this note" + id));
-            return ResponseEntity.ok(saved);
+            // the write is conditional on the version that was patched, also without If-Match
+            patchedNote.setVersion(existing.getVersion());
+            return saved(noteId, patchedNote, !absent(ifMatch));
         } catch (JsonPatchException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid JSON Patch: " + e.getMessage()));
         } catch (Exception e) {
@@ -169,52 +276,285 @@ public class NoteRestController {
     @Operation(summary = "Patch note (JSON Merge Patch RFC7386)", description = "Use Content-Type: application/merge-patch+json")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Patched (Merge Patch)", content = @Content(schema = @Schema(implementation = Note.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid merge patch"),
+            @ApiResponse(responseCode = "400", description = "Invalid merge patch or If-Match"),
             @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "409", description = "Note changed while the patch was applied"),
+            @ApiResponse(responseCode = "412", description = "If-Match matches no current ETag of the note"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PatchMapping(path = "/{id}", consumes = "application/merge-patch+json")
-    public ResponseEntity<?> patchWithMergePatch(@PathVariable String id, @RequestBody JsonNode mergePatch) {
+    public ResponseEntity<?> patchWithMergePatch(@PathVariable String id,
+                                                 @RequestBody JsonNode mergePatch,
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         long noteId = Long.parseLong(id);
+        if (!validIfMatch(ifMatch)) return invalidIfMatch();
 
         Optional<Note> existingOpt = noteService.getNoteById(noteId);
+        if (!matches(ifMatch, existingOpt.orElse(null))) return preconditionFailed(noteId);
         if (existingOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
         }
+        Note existing = existingOpt.get();
 
         try {
-            Note existing = existingOpt.get();
+            Long version = existing.getVersion();
             // use ObjectMapper.readerForUpdating to apply merge patch semantics
             Note patched = objectMapper().readerForUpdating(existing).readValue(mergePatch);
             patched.setId(noteId);
-            Optional<Note> saved = noteService.updateNote(patched);
-            if(saved.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", "Couldn't update this note" + id));
-            return ResponseEntity.ok(saved);
+            patched.setVersion(version);
+            return saved(noteId, patched, !absent(ifMatch));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid merge patch: " + e.getMessage()));
         }
     }
 
+    // ---------------- PATCH (text delta on content) ----------------
+    @Operation(summary = "Patch note content with insert/delete ops",
+            description = "Use Content-Type: " + TextDelta.MEDIA_TYPE + ". Body: {\"baseVersion\": n, \"ops\": "
+                    + "[{\"op\":\"insert\",\"at\":i,\"text\":\"..\"}, {\"op\":\"delete\",\"at\":i,\"length\":n}]} "
+                    + "with UTF-16 offsets into the content at baseVersion, sorted and non-overlapping. "
+                    + "Without baseVersion, an If-Match that matches stands in for the current version. Only the content is written, the response carries the new version.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Patched, ETag carries the new version"),
+            @ApiResponse(responseCode = "400", description = "Invalid delta or If-Match, or missing base version"),
+            @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "409", description = "Note is no longer at the base version"),
+            @ApiResponse(responseCode = "412", description = "If-Match matches no current ETag of the note"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PatchMapping(path = "/{id}", consumes = TextDelta.MEDIA_TYPE)
+    public ResponseEntity<?> patchWithTextDelta(@PathVariable String id,
+                                                @RequestBody TextDelta delta,
+                                                @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long noteId = Long.parseLong(id);
+        if (!validIfMatch(ifMatch)) return invalidIfMatch();
+        if (!absent(ifMatch)) {
+            Note current = noteService.getNoteById(noteId).orElse(null);
+            if (!matches(ifMatch, current)) return preconditionFailed(noteId);
+            if (delta.getBaseVersion() == null) delta.setBaseVersion(current.getVersion());
+        }
+        if (delta.getBaseVersion() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "baseVersion (or If-Match) is required"));
+        }
+
+        Optional<Note> saved;
+        try {
+            saved = noteService.patchContent(noteId, delta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid text delta: " + e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Note " + noteId + " is no longer at version " + delta.getBaseVersion()
+                            + ", fetch it again and rebase the delta"));
+        }
+        if (saved.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
+        }
+
+        // the client already has the content, echoing it back would undo the savings
+        Note body = saved.get();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("id", noteId);
+        resp.put("version", body.getVersion());
+        resp.put("length", body.getContent().length());
+        // the ETag covers the links, which the delta did not read
+        Optional<String> etag = noteService.getNoteById(noteId)
+                .filter(current -> current.getVersion().equals(body.getVersion()))
+                .map(NoteETags::of);
+        return etag.isPresent() ? ResponseEntity.ok().eTag(etag.get()).body(resp) : ResponseEntity.ok(resp);
+    }
+
+    // ---------------- AUTOSAVE (write-behind) ----------------
+    @Operation(summary = "Autosave title and/or content of a note",
+            description = "Merge patch limited to title and content. The edit is buffered and journaled, GET returns it "
+                    + "right away and it is written to the database with the next flush. An explicit write wins over it.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Edit buffered"),
+            @ApiResponse(responseCode = "400", description = "Invalid autosave body"),
+            @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PatchMapping(path = "/{id}/autosave", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> autosave(@PathVariable String id, @RequestBody JsonNode edit) {
+        long noteId = Long.parseLong(id);
+
+        boolean onlyKnownFields = edit.isObject() && edit.size() > 0 && edit.properties().stream()
+                .allMatch(field -> (field.getKey().equals("title") && field.getValue().isTextual()
+                        && !field.getValue().asText().isBlank())
+                        || (field.getKey().equals("content") && (field.getValue().isTextual() || field.getValue().isNull())));
+        if (!onlyKnownFields) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Autosave accepts a non-blank title and/or content only"));
+        }
+
+        Optional<String> title = Optional.ofNullable(edit.get("title")).map(JsonNode::asText);
+        // a null content clears it, like in a merge patch
+        Optional<String> content = Optional.ofNullable(edit.get("content")).map(c -> c.isNull() ? "" : c.asText());
+        if (!noteService.autosave(noteId, title, content)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
+        }
+        return ResponseEntity.accepted().body(Map.of("id", noteId, "pending", true));
+    }
+
     // ---------------- DELETE ----------------
     @Operation(summary = "Delete a note by id")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Deleted successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match"),
             @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "412", description = "If-Match matches no current ETag of the note"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable String id) {
+    public ResponseEntity<?> delete(@PathVariable String id,
+                                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         long noteId = Long.parseLong(id);
+        if (!validIfMatch(ifMatch)) return invalidIfMatch();
 
-        Optional<Note> existing = noteService.getNoteById(noteId);
-        if (existing.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
+        Note current = null;
+        if (!absent(ifMatch)) {
+            current = noteService.getNoteById(noteId).orElse(null);
+            if (!matches(ifMatch, current)) return preconditionFailed(noteId);
+        }
+        try {
+            if (!noteService.deleteNote(noteId, expectedVersion(ifMatch, current))) {
+                if (!absent(ifMatch)) return preconditionFailed(noteId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return preconditionFailed(noteId);
         }
-        noteService.deleteNote(noteId);
         return ResponseEntity.noContent().build();
     }
 
+    // ---------------- BATCH (mixed create/update/delete) ----------------
+    @Operation(summary = "Execute a list of create/update/delete operations",
+            description = "mode=atomic (default) commits all or nothing, mode=best-effort commits what succeeds; "
+                    + "every item gets its own status in results")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "All operations succeeded"),
+            @ApiResponse(responseCode = "207", description = "Best-effort: some operations failed"),
+            @ApiResponse(responseCode = "400", description = "Invalid batch or, in atomic mode, an invalid operation"),
+            @ApiResponse(responseCode = "409", description = "Atomic: an operation failed, nothing was committed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(
+            @RequestBody List<BatchOperation> operations,
+            @RequestParam(defaultValue = "atomic") String mode
+    ) {
+        if (!mode.equals("atomic") && !mode.equals("best-effort")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "mode must be atomic or best-effort"));
+        }
+        if (operations == null || operations.isEmpty() || operations.size() > maxBatchOperations) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Batch must contain 1.." + maxBatchOperations + " operations"));
+        }
+
+        boolean atomic = mode.equals("atomic");
+        List<BatchResult> results = batchService.execute(operations, atomic);
+        boolean allSucceeded = results.stream().allMatch(BatchResult::isSuccess);
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("mode", mode);
+        resp.put("results", results);
+        if (allSucceeded) return ResponseEntity.ok(resp);
+        if (!atomic) return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(resp);
+
+        boolean invalid = results.stream().anyMatch(r -> r.getStatus() == 400);
+        return ResponseEntity.status(invalid ? HttpStatus.BAD_REQUEST : HttpStatus.CONFLICT).body(resp);
+    }
+
+    // ---------------- versioning helpers ----------------
+    // one conditional UPDATE: 404 (412 under If-Match) when the note is gone, 412/409 when it moved past the
+    // expected version; then the note read back for the response
+    private ResponseEntity<?> saved(long noteId, Note note, boolean ifMatch) {
+        Optional<Note> saved;
+        try {
+            saved = noteService.updateNote(note);
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch) return preconditionFailed(noteId);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Note " + noteId + " was modified concurrently, retry the request"));
+        }
+        if (saved.isEmpty()) {
+            // If-Match: * does not match a note that is gone
+            if (ifMatch) return preconditionFailed(noteId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + noteId));
+        }
+
+        // read back as GET serves it: the written links with their titles, and the ETag over them
+        long version = saved.get().getVersion();
+        Note body = noteService.getNoteById(noteId)
+                .filter(current -> current.getVersion() == version)
+                .orElse(null);
+        if (body == null) return ResponseEntity.ok(saved.get());
+        return ResponseEntity.ok().eTag(NoteETags.of(body)).body(body);
+    }
+
+    private static ResponseEntity<?> preconditionFailed(long noteId) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "Note " + noteId + " does not match If-Match, fetch it again"));
+    }
+
+    // Accept-Encoding: gzip (or x-gzip), else *, with a q-value above 0; "gzip;q=0" refuses it
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Boolean gzip = null;
+        boolean any = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = (gzip != null && gzip) || accepted;
+            } else if (coding.equals("*")) {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+
+    // q of one Accept-Encoding element, 1 when absent and 0 when unreadable
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+            if (!parameter.startsWith("q=")) continue;
+            try {
+                double q = Double.parseDouble(parameter.substring(2).trim());
+                return q >= 0 && q <= 1 ? q : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    // If-Match is evaluated against the current note (see NoteETags); a blank one counts as absent
+    private static boolean absent(String ifMatch) {
+        return ifMatch == null || ifMatch.isBlank();
+    }
+
+    private static boolean validIfMatch(String ifMatch) {
+        return absent(ifMatch) || NoteETags.parse(ifMatch) != null;
+    }
+
+    private static ResponseEntity<?> invalidIfMatch() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", "If-Match must be * or a list of quoted ETags"));
+    }
+
+    private static boolean matches(String ifMatch, Note current) {
+        return absent(ifMatch) || NoteETags.matches(NoteETags.parse(ifMatch), current);
+    }
+
+    // the version a write under a matched If-Match must still find; null (unconditional) without one or for *
+    private static Long expectedVersion(String ifMatch, Note current) {
+        return absent(ifMatch) || NoteETags.parse(ifMatch) == NoteETags.ANY ? null : current.getVersion();
+    }
+
     // helper to get a fresh ObjectMapper (you can also inject one via constructor if preferred)
     private ObjectMapper objectMapper() {
         return this.objectMapper;
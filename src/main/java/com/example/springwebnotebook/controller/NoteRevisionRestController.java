@@ -0,0 +1,82 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
+import com.example.springwebnotebook.repository.NoteRevision;
+import com.example.springwebnotebook.service.NoteRevisionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@Profile("!logstore")
+@RequestMapping("/api/notes")
+@Tag(name = "Note revisions API", description = "History of every note write, stored as deltas with periodic snapshots")
+public class NoteRevisionRestController {
+
+    private final NoteRevisionService revisionService;
+
+    public NoteRevisionRestController(NoteRevisionService revisionService) {
+        this.revisionService = revisionService;
+    }
+
+    // ---------------- LIST ----------------
+    @Operation(summary = "Revisions of a note, newest first",
+            description = "storedSize is the stored length: the full content for snapshots, the edit for deltas")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Revisions returned",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = NoteRevision.class))))
+    })
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<?> listRevisions(@PathVariable long id) {
+        return ResponseEntity.ok(revisionService.listRevisions(id));
+    }
+
+    // ---------------- GET one ----------------
+    @Operation(summary = "Title and content of a note as written at the given version")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Revision returned",
+                    content = @Content(schema = @Schema(implementation = Note.class))),
+            @ApiResponse(responseCode = "404", description = "No such revision")
+    })
+    @GetMapping("/{id}/revisions/{version}")
+    public ResponseEntity<?> getRevision(@PathVariable long id, @PathVariable long version) {
+        Optional<Note> revision = revisionService.getRevision(id, version);
+        if (revision.isEmpty()) return notFound(id, version);
+        return ResponseEntity.ok(revision.get());
+    }
+
+    // ---------------- DIFF ----------------
+    @Operation(summary = "Changes between two revisions",
+            description = "Returned as an " + TextDelta.MEDIA_TYPE + " document against the from version")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Delta returned",
+                    content = @Content(schema = @Schema(implementation = TextDelta.class))),
+            @ApiResponse(responseCode = "404", description = "One of the revisions does not exist")
+    })
+    @GetMapping("/{id}/revisions/{from}/diff/{to}")
+    public ResponseEntity<?> diff(@PathVariable long id, @PathVariable long from, @PathVariable long to) {
+        Optional<TextDelta> delta = revisionService.diff(id, from, to);
+        if (delta.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Revisions " + from + " and " + to + " of note " + id + " do not both exist"));
+        }
+        return ResponseEntity.ok(delta.get());
+    }
+
+    private static ResponseEntity<?> notFound(long id, long version) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Note " + id + " has no revision " + version));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.repository.NoteShare;
+import com.example.springwebnotebook.service.SharedNoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Note shares API", description = "Share links of a note: several per note, optionally expiring, revocable, with access counts")
+public class NoteShareRestController {
+
+    private final SharedNoteService sharedNoteService;
+
+    public NoteShareRestController(SharedNoteService sharedNoteService) {
+        this.sharedNoteService = sharedNoteService;
+    }
+
+    // ---------------- LIST ----------------
+    @Operation(summary = "Share links of a note, newest first", description = "Revoked and expired links included")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Share links returned",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = NoteShare.class))))
+    })
+    @GetMapping("/{id}/shares")
+    public ResponseEntity<?> listShares(@PathVariable long id) {
+        return ResponseEntity.ok(sharedNoteService.listShares(id));
+    }
+
+    // ---------------- CREATE ----------------
+    @Operation(summary = "Create a share link",
+            description = "expiresIn is a duration like 7d, 12h or PT30M; without it the link does not expire. "
+                    + "The Location header is the public /share/{shareKey} URL")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Share link created",
+                    content = @Content(schema = @Schema(implementation = NoteShare.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid expiresIn"),
+            @ApiResponse(responseCode = "404", description = "Note not found")
+    })
+    @PostMapping("/{id}/shares")
+    public ResponseEntity<?> share(@PathVariable long id, @RequestParam(required = false) String expiresIn) {
+        Duration ttl;
+        try {
+            ttl = expiresIn != null ? DurationStyle.detectAndParse(expiresIn) : null;
+        } catch (IllegalArgumentException e) {
+            ttl = Duration.ZERO;
+        }
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "expiresIn must be a positive duration, like 7d or PT12H"));
+        }
+
+        Optional<NoteShare> share = sharedNoteService.share(id, ttl);
+        if (share.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found with id = " + id));
+        }
+        return ResponseEntity.created(URI.create("/share/" + share.get().getShareKey())).body(share.get());
+    }
+
+    // ---------------- REVOKE ----------------
+    @Operation(summary = "Revoke a share link", description = "The link stops working at once; it stays listed with revokedAt set")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Revoked"),
+            @ApiResponse(responseCode = "404", description = "No active link with this key for the note")
+    })
+    @DeleteMapping("/{id}/shares/{shareKey}")
+    public ResponseEntity<?> revoke(@PathVariable long id, @PathVariable String shareKey) {
+        if (!sharedNoteService.revoke(id, shareKey)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Note " + id + " has no active share link " + shareKey));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.model.SyncChange;
+import com.example.springwebnotebook.service.NoteChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@Profile("!logstore")
+@RequestMapping("/api/notes")
+@Tag(name = "Notes sync API", description = "Incremental sync: changes after a cursor, deletes as tombstones, live SSE stream")
+public class NoteSyncRestController {
+
+    private final NoteChangeFeed changeFeed;
+    private final int maxLimit;
+
+    public NoteSyncRestController(NoteChangeFeed changeFeed,
+                                  @Value("${notes.changes.max-limit:1000}") int maxLimit) {
+        this.changeFeed = changeFeed;
+        this.maxLimit = maxLimit;
+    }
+
+    // ---------------- CHANGES (pull) ----------------
+    @Operation(summary = "Notes created, updated or deleted after a cursor",
+            description = "Start with since=0, then pass the returned cursor. Each changed note appears once per page: "
+                    + "upserts carry the current note, deletes are tombstones. Repeat while hasMore is true.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes, the next cursor and hasMore"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    @GetMapping("/changes")
+    public ResponseEntity<?> changes(@RequestParam(defaultValue = "0") long since,
+                                     @RequestParam(defaultValue = "200") int limit) {
+        if (since < 0 || limit < 1 || limit > maxLimit) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "since must be >= 0 and limit in 1.." + maxLimit));
+        }
+
+        List<SyncChange> changes = changeFeed.changesSince(since, limit);
+        // the cursor is the last log entry read, even if it was merged into a later change of the same note
+        long cursor = changes.stream().mapToLong(SyncChange::getSeq).max().orElse(since);
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("changes", changes);
+        resp.put("cursor", cursor);
+        resp.put("hasMore", cursor < changeFeed.lastSeq());
+        return ResponseEntity.ok(resp);
+    }
+
+    // ---------------- CHANGES (push) ----------------
+    @Operation(summary = "Server-sent events for every committed change",
+            description = "Events are named change, with the change seq as event id. Pass since (or Last-Event-ID) to "
+                    + "replay recent changes first; if they are no longer buffered a resync event asks the client to "
+                    + "pull /api/notes/changes from its cursor and reconnect.")
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changeStream(@RequestParam(required = false) Long since,
+                                   @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.service.NoteTransferService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notes")
+@Tag(name = "Notes transfer API", description = "Streaming NDJSON export and chunked bulk import")
+public class NoteTransferRestController {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final NoteTransferService transferService;
+
+    public NoteTransferRestController(NoteTransferService transferService) {
+        this.transferService = transferService;
+    }
+
+    // ---------------- EXPORT ----------------
+    @Operation(summary = "Export all notes and links as NDJSON",
+            description = "Note lines first (ordered by id), then link lines; streamed straight from the database cursor")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "NDJSON stream"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(path = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportNotes() {
+        StreamingResponseBody body = transferService::exportTo;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("Content-Disposition", "attachment; filename=\"notes.ndjson\"")
+                .body(body);
+    }
+
+    // ---------------- IMPORT ----------------
+    @Operation(summary = "Import notes and links from NDJSON",
+            description = "Accepts the export format; written in batches, one transaction per chunk. Ids are preserved.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import summary"),
+            @ApiResponse(responseCode = "400", description = "Malformed line or conflicting data"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(path = "/import", consumes = NDJSON)
+    public ResponseEntity<?> importNotes(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(transferService.importFrom(body));
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Invalid import data: " + e.getMessage()));
+        } catch (DataAccessException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Import stopped: " + e.getMostSpecificCause().getMessage()));
+        }
+    }
+}
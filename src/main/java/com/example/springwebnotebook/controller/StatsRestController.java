@@ -0,0 +1,125 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.config.DbBulkhead;
+import com.example.springwebnotebook.graph.LinkGraph;
+import com.example.springwebnotebook.service.AutosaveBuffer;
+import com.example.springwebnotebook.service.ContentMigrationJob;
+import com.example.springwebnotebook.service.NoteCache;
+import com.example.springwebnotebook.service.NoteJsonCache;
+import com.example.springwebnotebook.service.NoteLoader;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+@Tag(name = "Stats API", description = "Runtime statistics of in-process caches and limiters")
+public class StatsRestController {
+
+    private final NoteCache noteCache;
+    private final DbBulkhead bulkhead;
+    private final LinkGraph linkGraph;
+    private final AutosaveBuffer autosaveBuffer;
+    private final ContentMigrationJob contentMigration;
+    private final NoteLoader noteLoader;
+    private final NoteJsonCache noteJson;
+
+    public StatsRestController(NoteCache noteCache, DbBulkhead bulkhead, LinkGraph linkGraph,
+                               AutosaveBuffer autosaveBuffer, ContentMigrationJob contentMigration,
+                               NoteLoader noteLoader, NoteJsonCache noteJson) {
+        this.noteCache = noteCache;
+        this.bulkhead = bulkhead;
+        this.linkGraph = linkGraph;
+        this.autosaveBuffer = autosaveBuffer;
+        this.contentMigration = contentMigration;
+        this.noteLoader = noteLoader;
+        this.noteJson = noteJson;
+    }
+
+    @Operation(summary = "Note cache hit/miss statistics")
+    @GetMapping("/cache")
+    public ResponseEntity<?> cacheStats() {
+        CacheStats stats = noteCache.stats();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("size", noteCache.estimatedSize());
+        resp.put("hitCount", stats.hitCount());
+        resp.put("missCount", stats.missCount());
+        resp.put("hitRate", stats.hitRate());
+        resp.put("evictionCount", stats.evictionCount());
+        resp.put("evictionWeight", stats.evictionWeight());
+        resp.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "Serialized note JSON cache hit/miss statistics")
+    @GetMapping("/json-cache")
+    public ResponseEntity<?> jsonCacheStats() {
+        CacheStats stats = noteJson.stats();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("size", noteJson.estimatedSize());
+        resp.put("hitCount", stats.hitCount());
+        resp.put("missCount", stats.missCount());
+        resp.put("hitRate", stats.hitRate());
+        resp.put("evictionCount", stats.evictionCount());
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "Note loader batching: batches run and notes requested through them")
+    @GetMapping("/loader")
+    public ResponseEntity<?> loaderStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("batchCount", noteLoader.getBatchCount());
+        resp.put("keyCount", noteLoader.getKeyCount());
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "Database bulkhead usage, queue depth and rejections")
+    @GetMapping("/bulkhead")
+    public ResponseEntity<?> bulkheadStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("maxConcurrent", bulkhead.getMaxConcurrent());
+        resp.put("inUse", bulkhead.getInUse());
+        resp.put("queueDepth", bulkhead.getQueueDepth());
+        resp.put("acquiredCount", bulkhead.getAcquiredCount());
+        resp.put("rejectedCount", bulkhead.getRejectedCount());
+        resp.put("timedOutCount", bulkhead.getTimedOutCount());
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "Size of the in-memory link graph")
+    @GetMapping("/graph")
+    public ResponseEntity<?> graphStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("nodes", linkGraph.nodeCount());
+        resp.put("edges", linkGraph.edgeCount());
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "Autosave buffer: pending notes, flushes and dropped edits")
+    @GetMapping("/autosave")
+    public ResponseEntity<?> autosaveStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("pending", autosaveBuffer.getPendingCount());
+        resp.put("flushCount", autosaveBuffer.getFlushCount());
+        resp.put("flushedEdits", autosaveBuffer.getFlushedEdits());
+        resp.put("droppedEdits", autosaveBuffer.getDroppedEdits());
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "Progress of compressing content stored before compression was enabled")
+    @GetMapping("/content-migration")
+    public ResponseEntity<?> contentMigrationStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("running", contentMigration.isRunning());
+        resp.put("scanned", contentMigration.getScanned());
+        resp.put("compressed", contentMigration.getCompressed());
+        return ResponseEntity.ok(resp);
+    }
+}
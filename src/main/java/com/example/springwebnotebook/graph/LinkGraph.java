@@ -0,0 +1,274 @@
+package com.example.springwebnotebook.graph;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.repository.NoteLink;
+import com.example.springwebnotebook.service.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory copy of notes_to_notes with titles, answering backlink, neighborhood,
+ * shortest-path and orphan queries without a database round trip.
+ * Loaded once the application is ready and kept in sync from {@link NoteChangedEvent}s.
+ */
+@Component
+public class LinkGraph {
+
+    public enum Direction { OUT, IN, BOTH }
+
+    private final INotesDAO noteRepository;
+    private final INoteLinksDAO noteLinksRepository;
+    private final int maxNodes;
+
+    private LongGraph graph = new LongGraph(16);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public LinkGraph(INotesDAO noteRepository,
+                     INoteLinksDAO noteLinksRepository,
+                     @Value("${notes.graph.max-nodes:10000}") int maxNodes) {
+        this.noteRepository = noteRepository;
+        this.noteLinksRepository = noteLinksRepository;
+        this.maxNodes = maxNodes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<LinkPair> notes = noteRepository.findAllSummaries();
+        LongGraph loaded = new LongGraph(notes.size());
+        for (LinkPair note : notes) loaded.putNode(note.getId(), note.getTitle());
+
+        long[] from = new long[Math.max(16, notes.size())];
+        long[] to = new long[from.length];
+        int count = 0;
+        try (Stream<NoteLink> links = noteLinksRepository.streamAll()) {
+            for (NoteLink link : (Iterable<NoteLink>) links::iterator) {
+                if (count == from.length) {
+                    from = Arrays.copyOf(from, count * 2);
+                    to = Arrays.copyOf(to, count * 2);
+                }
+                from[count] = link.getLinkerId();
+                to[count++] = link.getLinkedId();
+            }
+        }
+        loaded.addEdges(from, to, count);
+
+        lock.writeLock().lock();
+        try {
+            graph = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        long id = event.getNoteId();
+        lock.writeLock().lock();
+        try {
+            switch (event.getType()) {
+                case DELETED -> graph.removeNode(id);
+                case LINKS_ADDED -> event.getLinkedIds().forEach(linkedId -> graph.addEdge(id, linkedId));
+                default -> {
+                    Note note = event.getNote();
+                    if (note == null) return;
+                    graph.putNode(id, note.getTitle());
+                    // null links on an update mean "unchanged"
+                    if (note.getLinks() != null) graph.setOut(id, linkIds(note));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return graph.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LinkPair> links(long id) {
+        return neighbors(id, Direction.OUT);
+    }
+
+    public List<LinkPair> backlinks(long id) {
+        return neighbors(id, Direction.IN);
+    }
+
+    /**
+     * Breadth-first walk up to {@code depth} hops from {@code id}. Stops adding nodes once
+     * notes.graph.max-nodes is reached; edges are the links between the returned nodes.
+     */
+    public Neighborhood neighborhood(long id, int depth, Direction direction) {
+        lock.readLock().lock();
+        try {
+            if (!graph.contains(id)) return null;
+
+            // distance per table slot (-1: not visited); visited holds the nodes in visit order and is the queue
+            int[] distances = new int[graph.capacity()];
+            Arrays.fill(distances, -1);
+            long[] visited = new long[Math.max(1, Math.min(maxNodes, graph.size()))];
+            distances[graph.indexOf(id)] = 0;
+            visited[0] = id;
+            int count = 1;
+            boolean truncated = false;
+
+            for (int head = 0; head < count; head++) {
+                long current = visited[head];
+                int distance = distances[graph.indexOf(current)];
+                if (distance == depth) continue;
+                for (long next : adjacent(current, direction)) {
+                    int slot = graph.indexOf(next);
+                    if (distances[slot] >= 0) continue;
+                    if (count >= maxNodes) {
+                        truncated = true;
+                        break;
+                    }
+                    distances[slot] = distance + 1;
+                    visited[count++] = next;
+                }
+            }
+
+            List<Neighborhood.Node> nodes = new ArrayList<>(count);
+            List<long[]> edges = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                long node = visited[i];
+                nodes.add(new Neighborhood.Node(node, graph.title(node), distances[graph.indexOf(node)]));
+                for (long to : graph.out(node)) {
+                    if (distances[graph.indexOf(to)] >= 0) edges.add(new long[]{node, to});
+                }
+            }
+            return new Neighborhood(id, depth, nodes, edges, truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // fewest-hops path from -> to, empty when unreachable within notes.graph.max-nodes visited nodes
+    public List<LinkPair> shortestPath(long from, long to, Direction direction) {
+        lock.readLock().lock();
+        try {
+            if (!graph.contains(from) || !graph.contains(to)) return List.of();
+
+            // parent per table slot, valid where seen; queue holds the seen nodes in visit order
+            boolean[] seen = new boolean[graph.capacity()];
+            long[] parents = new long[graph.capacity()];
+            long[] queue = new long[graph.size()];
+            int target = graph.indexOf(to);
+            seen[graph.indexOf(from)] = true;
+            parents[graph.indexOf(from)] = from;
+            queue[0] = from;
+            int count = 1;
+            for (int head = 0; head < count && !seen[target] && count < maxNodes; head++) {
+                long current = queue[head];
+                for (long next : adjacent(current, direction)) {
+                    int slot = graph.indexOf(next);
+                    if (seen[slot]) continue;
+                    seen[slot] = true;
+                    parents[slot] = current;
+                    queue[count++] = next;
+                }
+            }
+            if (!seen[target]) return List.of();
+
+            LinkedList<LinkPair> path = new LinkedList<>();
+            for (long node = to; ; node = parents[graph.indexOf(node)]) {
+                path.addFirst(new LinkPair(node, graph.title(node)));
+                if (node == from) break;
+            }
+            return path;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // notes that neither link to nor are linked from any other note
+    public List<LinkPair> orphans() {
+        lock.readLock().lock();
+        try {
+            List<LinkPair> orphans = new ArrayList<>();
+            graph.forEachNode(id -> {
+                if (isIsolated(id)) orphans.add(new LinkPair(id, graph.title(id)));
+            });
+            orphans.sort(Comparator.comparing(LinkPair::getId));
+            return orphans;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return graph.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long edgeCount() {
+        lock.readLock().lock();
+        try {
+            return graph.edgeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<LinkPair> neighbors(long id, Direction direction) {
+        lock.readLock().lock();
+        try {
+            if (!graph.contains(id)) return null;
+            long[] ids = direction == Direction.IN ? graph.in(id) : graph.out(id);
+            List<LinkPair> result = new ArrayList<>(ids.length);
+            for (long neighbor : ids) result.add(new LinkPair(neighbor, graph.title(neighbor)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] adjacent(long id, Direction direction) {
+        return switch (direction) {
+            case OUT -> graph.out(id);
+            case IN -> graph.in(id);
+            case BOTH -> {
+                long[] out = graph.out(id), in = graph.in(id);
+                long[] both = Arrays.copyOf(out, out.length + in.length);
+                System.arraycopy(in, 0, both, out.length, in.length);
+                yield both;
+            }
+        };
+    }
+
+    private boolean isIsolated(long id) {
+        long[] out = graph.out(id), in = graph.in(id);
+        // a self-link does not connect the note to anything else
+        return (out.length == 0 || (out.length == 1 && out[0] == id))
+                && (in.length == 0 || (in.length == 1 && in[0] == id));
+    }
+
+    private static long[] linkIds(Note note) {
+        return note.getLinks().stream()
+                .filter(Objects::nonNull)
+                .map(LinkPair::getId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.springwebnotebook.graph;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Directed graph over long node ids: an open-addressing table (linear probing, backward-shift
+ * deletion) whose slots hold the node title and its sorted outgoing and incoming neighbor ids.
+ * No boxing on lookups or traversal. Not thread-safe, LinkGraph guards it with a lock.
+ */
+final class LongGraph {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long[] NONE = new long[0];
+
+    private long[] keys;
+    private String[] titles;
+    private long[][] out;
+    private long[][] in;
+    private int mask;
+    private int size;
+    private long edges;
+
+    LongGraph(int expectedNodes) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedNodes * 2 - 1)) << 1);
+    }
+
+    int size() { return size; }
+
+    long edgeCount() { return edges; }
+
+    boolean contains(long id) {
+        return slot(id) >= 0;
+    }
+
+    String title(long id) {
+        int slot = slot(id);
+        return slot < 0 ? null : titles[slot];
+    }
+
+    long[] out(long id) {
+        int slot = slot(id);
+        return slot < 0 ? NONE : out[slot];
+    }
+
+    long[] in(long id) {
+        int slot = slot(id);
+        return slot < 0 ? NONE : in[slot];
+    }
+
+    void putNode(long id, String title) {
+        // insert first: it may grow the table, and titles[insert(id)] would write to the old array
+        int slot = insert(id);
+        titles[slot] = title;
+    }
+
+    void addEdge(long from, long to) {
+        int slot = insert(from);
+        long[] targets = out[slot];
+        long[] added = withValue(targets, to);
+        if (added == targets) return;
+        out[slot] = added;
+        slot = insert(to);
+        in[slot] = withValue(in[slot], from);
+        edges++;
+    }
+
+    void removeEdge(long from, long to) {
+        int slot = slot(from);
+        if (slot < 0) return;
+        long[] targets = out[slot];
+        long[] removed = without(targets, to);
+        if (removed == targets) return;
+        out[slot] = removed;
+        slot = slot(to);
+        if (slot >= 0) in[slot] = without(in[slot], from);
+        edges--;
+    }
+
+    // Bulk load into a graph without edges: endpoints are inserted first, then every adjacency
+    // array is allocated once at its final size, sorted and deduplicated. addEdge per link would
+    // copy a node's array for each of its links.
+    void addEdges(long[] from, long[] to, int count) {
+        if (edges != 0) throw new IllegalStateException("Bulk load needs a graph without edges");
+        for (int e = 0; e < count; e++) {
+            insert(from[e]);
+            insert(to[e]);
+        }
+
+        int[] outFill = new int[keys.length];
+        int[] inFill = new int[keys.length];
+        int[] fromSlots = new int[count];
+        int[] toSlots = new int[count];
+        for (int e = 0; e < count; e++) {
+            fromSlots[e] = slot(from[e]);
+            toSlots[e] = slot(to[e]);
+            outFill[fromSlots[e]]++;
+            inFill[toSlots[e]]++;
+        }
+        for (int s = 0; s < keys.length; s++) {
+            if (outFill[s] > 0) out[s] = new long[outFill[s]];
+            if (inFill[s] > 0) in[s] = new long[inFill[s]];
+            outFill[s] = 0;
+            inFill[s] = 0;
+        }
+        for (int e = 0; e < count; e++) {
+            out[fromSlots[e]][outFill[fromSlots[e]]++] = to[e];
+            in[toSlots[e]][inFill[toSlots[e]]++] = from[e];
+        }
+        for (int s = 0; s < keys.length; s++) {
+            if (keys[s] == EMPTY) continue;
+            out[s] = sortedDistinct(out[s]);
+            in[s] = sortedDistinct(in[s]);
+            edges += out[s].length;
+        }
+    }
+
+    // replaces all outgoing edges of a node, incoming edges are kept
+    void setOut(long from, long[] targets) {
+        long[] desired = Arrays.stream(targets).sorted().distinct().toArray();
+        for (long to : out(from)) {
+            if (Arrays.binarySearch(desired, to) < 0) removeEdge(from, to);
+        }
+        for (long to : desired) addEdge(from, to);
+    }
+
+    // drops the node and every edge touching it, as ON DELETE CASCADE does in notes_to_notes
+    void removeNode(long id) {
+        for (long to : out(id)) removeEdge(id, to);
+        for (long from : in(id)) removeEdge(from, id);
+        int slot = slot(id);
+        if (slot >= 0) deleteSlot(slot);
+    }
+
+    // slot of a node, -1 when absent; slots only move on insert and delete, so a reader holding
+    // LinkGraph's read lock can index arrays of capacity() with them
+    int indexOf(long id) {
+        return slot(id);
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    void forEachNode(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) action.accept(key);
+        }
+    }
+
+    // --- table ---
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long id) {
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == id) return i;
+            if (keys[i] == EMPTY) return -1;
+        }
+    }
+
+    private int insert(long id) {
+        if (id == EMPTY) throw new IllegalArgumentException("Unsupported node id " + id);
+        int i = hash(id) & mask;
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == id) return i;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return insert(id);
+        }
+        keys[i] = id;
+        out[i] = NONE;
+        in[i] = NONE;
+        size++;
+        return i;
+    }
+
+    private void deleteSlot(int free) {
+        for (int i = (free + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            // move the entry back unless its home slot lies cyclically in (free, i]
+            boolean stays = free <= i ? free < home && home <= i : free < home || home <= i;
+            if (!stays) {
+                move(i, free);
+                free = i;
+            }
+        }
+        keys[free] = EMPTY;
+        titles[free] = null;
+        out[free] = null;
+        in[free] = null;
+        size--;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        titles[to] = titles[from];
+        out[to] = out[from];
+        in[to] = in[from];
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        String[] oldTitles = titles;
+        long[][] oldOut = out;
+        long[][] oldIn = in;
+        allocate(oldKeys.length * 2);
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldKeys[s] == EMPTY) continue;
+            int i = hash(oldKeys[s]) & mask;
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = oldKeys[s];
+            titles[i] = oldTitles[s];
+            out[i] = oldOut[s];
+            in[i] = oldIn[s];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        titles = new String[capacity];
+        out = new long[capacity][];
+        in = new long[capacity][];
+        mask = capacity - 1;
+    }
+
+    // --- sorted id sets, returned unchanged when there is nothing to do ---
+
+    private static long[] sortedDistinct(long[] ids) {
+        if (ids.length < 2) return ids;
+        Arrays.sort(ids);
+        int distinct = 1;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] != ids[distinct - 1]) ids[distinct++] = ids[i];
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    private static long[] withValue(long[] sorted, long value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos >= 0) return sorted;
+        pos = -pos - 1;
+        long[] copy = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, pos);
+        copy[pos] = value;
+        System.arraycopy(sorted, pos, copy, pos + 1, sorted.length - pos);
+        return copy;
+    }
+
+    private static long[] without(long[] sorted, long value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos < 0) return sorted;
+        if (sorted.length == 1) return NONE;
+        long[] copy = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, pos);
+        System.arraycopy(sorted, pos + 1, copy, pos, sorted.length - pos - 1);
+        return copy;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springwebnotebook.graph;
+
+import java.util.List;
+
+// Result of a k-hop walk; edges are [linkerId, linkedId] pairs
+public class Neighborhood {
+
+    public static class Node {
+        private final long id;
+        private final String title;
+        private final int distance;
+
+        public Node(long id, String title, int distance) {
+            this.id = id;
+            this.title = title;
+            this.distance = distance;
+        }
+
+        public long getId() { return id; }
+        public String getTitle() { return title; }
+        public int getDistance() { return distance; }
+    }
+
+    private final long id;
+    private final int depth;
+    private final List<Node> nodes;
+    private final List<long[]> edges;
+    private final boolean truncated;
+
+    public Neighborhood(long id, int depth, List<Node> nodes, List<long[]> edges, boolean truncated) {
+        this.id = id;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.truncated = truncated;
+    }
+
+    public long getId() { return id; }
+    public int getDepth() { return depth; }
+    public List<Node> getNodes() { return nodes; }
+    public List<long[]> getEdges() { return edges; }
+    public boolean isTruncated() { return truncated; }
+}
@@ -0,0 +1,138 @@
+package com.example.springwebnotebook.logstore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Record layout of the log: [crc int][length int][type byte][tx long][id long] followed by the
+ * payload of the type. length counts the bytes after itself, crc covers the same bytes, so a record
+ * torn by a crash is recognised on replay. tx is the writing transaction, 0 outside of one.
+ * NOTE:   [version long][title length int][content length int, -1 for null][title][content],
+ *         strings in UTF-8
+ * DELETE: no payload
+ * LINKS:  [count int][linked id long]*, the complete set of notes the id links to
+ * COMMIT: no payload, id 0; the records of transaction tx before it are committed
+ */
+final class LogRecord {
+
+    static final byte NOTE = 1;
+    static final byte DELETE = 2;
+    static final byte LINKS = 3;
+    static final byte COMMIT = 4;
+
+    static final int FRAME = 8;
+    // frame, type, tx and id: the smallest record
+    static final int HEADER = FRAME + 1 + 8 + 8;
+    // header, version and the two lengths: enough to locate the title
+    static final int NOTE_HEADER = HEADER + 8 + 4 + 4;
+
+    private LogRecord() {}
+
+    static byte[] note(long tx, long id, long version, String title, String content) {
+        byte[] name = title.getBytes(StandardCharsets.UTF_8);
+        byte[] text = content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer record = frame(NOTE, tx, id, 8 + 8 + name.length + (text == null ? 0 : text.length));
+        record.putLong(version)
+                .putInt(name.length)
+                .putInt(text == null ? -1 : text.length)
+                .put(name);
+        if (text != null) record.put(text);
+        return seal(record);
+    }
+
+    static byte[] delete(long tx, long id) {
+        return seal(frame(DELETE, tx, id, 0));
+    }
+
+    static byte[] links(long tx, long id, long[] linked) {
+        ByteBuffer record = frame(LINKS, tx, id, 4 + 8 * linked.length);
+        record.putInt(linked.length);
+        for (long target : linked) record.putLong(target);
+        return seal(record);
+    }
+
+    static byte[] commit(long tx) {
+        return seal(frame(COMMIT, tx, 0, 0));
+    }
+
+    static byte type(ByteBuffer record) {
+        return record.get(FRAME);
+    }
+
+    static long tx(ByteBuffer record) {
+        return record.getLong(FRAME + 1);
+    }
+
+    static long id(ByteBuffer record) {
+        return record.getLong(FRAME + 9);
+    }
+
+    // the record as written outside of a transaction, for copies whose commit record stays behind
+    static ByteBuffer withoutTx(ByteBuffer record) {
+        if (tx(record) == 0) return record;
+        record.putLong(FRAME + 1, 0);
+        return record.putInt(0, crc(record));
+    }
+
+    // total size of the record starting with this frame
+    static int size(ByteBuffer frame) {
+        return FRAME + frame.getInt(4);
+    }
+
+    static boolean isIntact(ByteBuffer record) {
+        return crc(record) == record.getInt(0);
+    }
+
+    // a NOTE record; when only the header and title were read, content is left null
+    static StoredNote readNote(ByteBuffer record, boolean withContent) {
+        int titleLength = record.getInt(HEADER + 8);
+        int contentLength = record.getInt(HEADER + 12);
+        String title = string(record, NOTE_HEADER, titleLength);
+        String content = withContent && contentLength >= 0
+                ? string(record, NOTE_HEADER + titleLength, contentLength)
+                : null;
+        return new StoredNote(id(record), record.getLong(HEADER), title, content);
+    }
+
+    // bytes of title that follow the NOTE header
+    static int metaLength(ByteBuffer header) {
+        return header.getInt(HEADER + 8);
+    }
+
+    static long[] readLinks(ByteBuffer record) {
+        long[] linked = new long[record.getInt(HEADER)];
+        for (int i = 0; i < linked.length; i++) linked[i] = record.getLong(HEADER + 4 + 8 * i);
+        return linked;
+    }
+
+    private static ByteBuffer frame(byte type, long tx, long id, int payload) {
+        int length = HEADER - FRAME + payload;
+        return ByteBuffer.allocate(FRAME + length)
+                .putInt(0)
+                .putInt(length)
+                .put(type)
+                .putLong(tx)
+                .putLong(id);
+    }
+
+    private static byte[] seal(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 4, record.capacity() - 4);
+        record.putInt(0, (int) crc.getValue());
+        return record.array();
+    }
+
+    private static int crc(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.duplicate().position(4).limit(record.limit()));
+        return (int) crc.getValue();
+    }
+
+    private static String string(ByteBuffer record, int at, int length) {
+        byte[] bytes = new byte[length];
+        record.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
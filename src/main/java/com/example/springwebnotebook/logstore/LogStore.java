@@ -0,0 +1,724 @@
+package com.example.springwebnotebook.logstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Embedded, append-only store of notes and their links. Every write appends a record to the log
+ * (notes-{generation}.log) and points the note's slot in the memory-mapped {@link OffsetIndex} at
+ * it; reads follow the slot to the record. Titles and links are kept in memory, so title
+ * filters and link lists do not touch the log.
+ * Crash recovery: the index is trusted only after a clean close at the exact log length, otherwise
+ * it is rebuilt by replaying the log, which stops at the first torn or corrupt record and cuts the
+ * log there. Compaction copies the live records into the next generation and switches over with a
+ * rename, so a crash leaves either the old or the new generation complete.
+ * One writer at a time; readers run in parallel but block during compaction. A transaction (see
+ * {@link LogStoreTransactionManager}) holds every note it writes until it ends: other writers of
+ * those notes wait, up to the lock timeout, so a rollback never undoes someone else's committed
+ * write. Its records carry its id and a commit record ends it; replay applies them at the commit
+ * record and drops those of transactions that never committed. A rollback points the index back at
+ * the records that were current when the transaction first touched each note. Readers are not
+ * isolated: they see writes before commit.
+ */
+public class LogStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LogStore.class);
+    private static final long[] NO_LINKS = new long[0];
+    // the title of a note usually fits into the first read of a record
+    private static final int META_READ = LogRecord.NOTE_HEADER + 512;
+    private static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Path directory;
+    private final boolean fsync;
+    private final Duration lockTimeout;
+    private final FileChannel lockChannel;
+    private final FileLock fileLock;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<Long, long[]> links = new HashMap<>();
+    private final Map<Long, Set<Long>> backlinks = new HashMap<>();
+    private final AtomicInteger activeTransactions = new AtomicInteger();
+    // note id -> transaction that wrote it and holds it until it ends; guarded by the write lock
+    private final Map<Long, UndoLog> owners = new HashMap<>();
+    private final Condition released = lock.writeLock().newCondition();
+    private final AtomicLong nextTx = new AtomicLong(1);
+
+    private long generation;
+    private FileChannel logChannel;
+    private OffsetIndex index;
+    private long logEnd;
+    private long nextId = 1;
+    private long liveBytes;
+    // only a fully recovered store may mark its index clean on close
+    private boolean recovered;
+
+    private LogStore(Path directory, boolean fsync, Duration lockTimeout) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.lockTimeout = lockTimeout;
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve("store.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.fileLock = lockChannel.tryLock();
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IOException("Log store " + directory + " is in use by another process");
+        }
+    }
+
+    public static LogStore open(Path directory, boolean fsync) throws IOException {
+        return open(directory, fsync, DEFAULT_LOCK_TIMEOUT);
+    }
+
+    // lockTimeout: how long a writer waits for a note another transaction holds
+    public static LogStore open(Path directory, boolean fsync, Duration lockTimeout) throws IOException {
+        LogStore store = new LogStore(directory, fsync, lockTimeout);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void recover() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) Files.delete(file);
+                else if (name.startsWith("notes-") && name.endsWith(".log")) {
+                    generations.add(Long.parseLong(name, 6, name.length() - 4, 10));
+                }
+            }
+        }
+        generation = generations.stream().max(Long::compare).orElse(1L);
+        // a crash between a compaction's rename and its cleanup leaves the older generation behind
+        for (long older : generations) if (older < generation) deleteGeneration(older);
+
+        logChannel = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = new OffsetIndex(indexPath(generation));
+        logEnd = logChannel.size();
+        if (index.isCleanFor(generation, logEnd)) {
+            nextId = index.nextId();
+            nextTx.set(Math.max(1, index.nextTx()));
+            loadFromIndex();
+        } else {
+            if (logEnd > 0) log.warn("Log store {} was not closed cleanly, rebuilding its index from the log", directory);
+            index.clear();
+            replay();
+        }
+        index.markOpen(generation);
+        recovered = true;
+    }
+
+    // clean start: only live records are read, for their titles and links
+    private void loadFromIndex() throws IOException {
+        long last = Math.min(nextId - 1, index.capacity());
+        for (long id = 1; id <= last; id++) {
+            long offset = index.noteOffset(id);
+            if (offset >= 0) {
+                titles.put(id, readMeta(offset, index.noteSize(id)).getTitle());
+                liveBytes += index.noteSize(id);
+            }
+            long linksOffset = index.linksOffset(id);
+            if (linksOffset >= 0) {
+                long[] linked = LogRecord.readLinks(read(linksOffset, index.linksSize(id)));
+                links.put(id, linked);
+                for (long target : linked) backlinks.computeIfAbsent(target, k -> new HashSet<>()).add(id);
+                liveBytes += index.linksSize(id);
+            }
+        }
+    }
+
+    // a transaction's records are applied at its commit record, those of transactions that rolled
+    // back or were cut off by a crash are dropped
+    private void replay() throws IOException {
+        // transaction -> {offset, size} of its records so far
+        Map<Long, List<long[]>> uncommitted = new HashMap<>();
+        long lastTx = 0;
+        long position = 0;
+        while (position + LogRecord.FRAME <= logEnd) {
+            ByteBuffer frame = read(position, LogRecord.FRAME);
+            int size = LogRecord.size(frame);
+            if (size < LogRecord.HEADER || position + size > logEnd) break;
+            ByteBuffer record = read(position, size);
+            if (!LogRecord.isIntact(record)) break;
+
+            long tx = LogRecord.tx(record);
+            lastTx = Math.max(lastTx, tx);
+            if (LogRecord.type(record) == LogRecord.COMMIT) {
+                for (long[] written : uncommitted.getOrDefault(tx, List.of())) {
+                    apply(read(written[0], (int) written[1]), written[0], (int) written[1]);
+                }
+                uncommitted.remove(tx);
+            } else if (tx == 0) {
+                apply(record, position, size);
+            } else {
+                uncommitted.computeIfAbsent(tx, k -> new ArrayList<>()).add(new long[]{position, size});
+                // ids of inserts that did not commit are not handed out again either
+                nextId = Math.max(nextId, LogRecord.id(record) + 1);
+            }
+            position += size;
+        }
+        if (position < logEnd) {
+            log.warn("Log store {}: dropping {} bytes of an incomplete write at offset {}", directory, logEnd - position, position);
+            logChannel.truncate(position);
+            logEnd = position;
+        }
+        if (!uncommitted.isEmpty()) {
+            log.info("Log store {}: skipped the records of {} transactions without a commit", directory, uncommitted.size());
+        }
+        nextTx.set(lastTx + 1);
+    }
+
+    private void apply(ByteBuffer record, long position, int size) throws IOException {
+        long id = LogRecord.id(record);
+        switch (LogRecord.type(record)) {
+            case LogRecord.NOTE -> {
+                StoredNote note = LogRecord.readNote(record, false);
+                applyNote(id, note.getVersion(), note.getTitle(), position, size);
+            }
+            case LogRecord.DELETE -> applyDelete(id);
+            case LogRecord.LINKS -> applyLinks(id, LogRecord.readLinks(record), position, size);
+            default -> throw new IOException("Unknown record type at offset " + position);
+        }
+    }
+
+    // ---------------- reads ----------------
+
+    public StoredNote get(long id) {
+        lock.readLock().lock();
+        try {
+            long offset = index.noteOffset(id);
+            return offset < 0 ? null : LogRecord.readNote(read(offset, index.noteSize(id)), true);
+        } catch (IOException e) {
+            throw failure("read note " + id, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean exists(long id) {
+        lock.readLock().lock();
+        try {
+            return index.noteOffset(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -1 if the note does not exist
+    public long version(long id) {
+        lock.readLock().lock();
+        try {
+            return index.noteOffset(id) >= 0 ? index.version(id) : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // title without the content, null if the note does not exist
+    public String title(long id) {
+        lock.readLock().lock();
+        try {
+            return titles.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Notes after afterId in id order whose title matches (null: all), skipping the first skip
+    // matches. Titles are matched in memory; without content only the title is read.
+    public List<StoredNote> scan(long afterId, long skip, int limit, Predicate<String> title, boolean withContent) {
+        List<StoredNote> notes = new ArrayList<>(Math.min(limit, 256));
+        lock.readLock().lock();
+        try {
+            long last = Math.min(nextId - 1, index.capacity());
+            for (long id = Math.max(1, afterId + 1); id <= last && notes.size() < limit; id++) {
+                long offset = index.noteOffset(id);
+                if (offset < 0) continue;
+                if (title != null && !title.test(titles.get(id))) continue;
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                int size = index.noteSize(id);
+                notes.add(withContent ? LogRecord.readNote(read(offset, size), true) : readMeta(offset, size));
+            }
+            return notes;
+        } catch (IOException e) {
+            throw failure("scan notes", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ids the note links to, ascending
+    public long[] links(long id) {
+        lock.readLock().lock();
+        try {
+            return links.getOrDefault(id, NO_LINKS).clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // every link as {linker, linked}, ordered by linker then linked id
+    public List<long[]> allLinks() {
+        lock.readLock().lock();
+        try {
+            List<long[]> all = new ArrayList<>();
+            links.keySet().stream().sorted().forEach(linker -> {
+                for (long linked : links.get(linker)) all.add(new long[]{linker, linked});
+            });
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- writes ----------------
+
+    // id null takes the next id of the sequence; returns the id
+    public long insert(Long id, String title, String content) {
+        if (title == null) throw new DataIntegrityViolationException("Title must not be null");
+        lock.writeLock().lock();
+        try {
+            long noteId = id != null ? id : nextId;
+            if (noteId < 1) throw new DataIntegrityViolationException("Note ids start at 1");
+            claim(noteId);
+            if (index.noteOffset(noteId) >= 0) throw new DuplicateKeyException("Note " + noteId + " already exists");
+
+            byte[] record = LogRecord.note(tx(), noteId, 1, title, content);
+            applyNote(noteId, 1, title, append(record), record.length);
+            return noteId;
+        } catch (IOException e) {
+            throw failure("insert note", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // bumps the version; title null keeps the title. 0 if the note is missing or not at expectedVersion
+    public int update(long id, String title, String content, Long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            claim(id);
+            if (index.noteOffset(id) < 0) return 0;
+            long version = index.version(id);
+            if (expectedVersion != null && expectedVersion != version) return 0;
+
+            String newTitle = title != null ? title : titles.get(id);
+            byte[] record = LogRecord.note(tx(), id, version + 1, newTitle, content);
+            applyNote(id, version + 1, newTitle, append(record), record.length);
+            return 1;
+        } catch (IOException e) {
+            throw failure("update note " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // removes the note with its links in both directions, like the foreign keys of the SQL schema
+    public int delete(long id, Long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            // the note and every note linking to it; waiting for one lets the backlinks change
+            List<Long> linkers;
+            boolean waited;
+            do {
+                linkers = new ArrayList<>(backlinks.getOrDefault(id, Set.of()));
+                waited = claim(id);
+                for (long linker : linkers) waited |= claim(linker);
+            } while (waited);
+            if (index.noteOffset(id) < 0) return 0;
+            if (expectedVersion != null && expectedVersion != index.version(id)) return 0;
+
+            for (long linker : linkers) {
+                if (linker == id) continue;
+                writeLinks(linker, Arrays.stream(links.get(linker)).filter(target -> target != id).toArray());
+            }
+            append(LogRecord.delete(tx(), id));
+            applyDelete(id);
+            return 1;
+        } catch (IOException e) {
+            throw failure("delete note " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // both notes must exist and the link must be new, like the keys of notes_to_notes
+    public void addLinks(long linkerId, Collection<Long> linkedIds) {
+        lock.writeLock().lock();
+        try {
+            claim(linkerId);
+            if (index.noteOffset(linkerId) < 0) throw new DataIntegrityViolationException("Note " + linkerId + " does not exist");
+            TreeSet<Long> linked = new TreeSet<>();
+            for (long target : links.getOrDefault(linkerId, NO_LINKS)) linked.add(target);
+            for (Long target : linkedIds) {
+                if (index.noteOffset(target) < 0) throw new DataIntegrityViolationException("Note " + target + " does not exist");
+                if (!linked.add(target)) throw new DuplicateKeyException("Note " + linkerId + " already links to " + target);
+            }
+            writeLinks(linkerId, linked.stream().mapToLong(Long::longValue).toArray());
+        } catch (IOException e) {
+            throw failure("link note " + linkerId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLinks(long linkerId, Collection<Long> linkedIds) {
+        lock.writeLock().lock();
+        try {
+            claim(linkerId);
+            long[] current = links.getOrDefault(linkerId, NO_LINKS);
+            long[] kept = Arrays.stream(current).filter(target -> !linkedIds.contains(target)).toArray();
+            if (kept.length != current.length) writeLinks(linkerId, kept);
+        } catch (IOException e) {
+            throw failure("unlink note " + linkerId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeLinks(long linkerId, long[] linked) throws IOException {
+        byte[] record = LogRecord.links(tx(), linkerId, linked);
+        applyLinks(linkerId, linked, append(record), record.length);
+    }
+
+    private long append(byte[] record) throws IOException {
+        long position = logEnd;
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) logChannel.write(buffer, position + buffer.position());
+        logEnd += record.length;
+        // inside a transaction the commit forces the log once
+        if (fsync && currentUndo() == null) logChannel.force(false);
+        return position;
+    }
+
+    private void applyNote(long id, long version, String title, long position, int size) throws IOException {
+        if (index.noteOffset(id) >= 0) liveBytes -= index.noteSize(id);
+        index.putNote(id, position, size, version);
+        titles.put(id, title);
+        liveBytes += size;
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void applyDelete(long id) throws IOException {
+        if (index.noteOffset(id) >= 0) liveBytes -= index.noteSize(id);
+        index.removeNote(id);
+        titles.remove(id);
+        applyLinks(id, NO_LINKS, -1, 0);
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void applyLinks(long id, long[] linked, long position, int size) throws IOException {
+        long[] previous = links.remove(id);
+        if (previous != null) {
+            for (long target : previous) {
+                Set<Long> linkers = backlinks.get(target);
+                if (linkers != null && linkers.remove(id) && linkers.isEmpty()) backlinks.remove(target);
+            }
+        }
+        if (index.linksOffset(id) >= 0) liveBytes -= index.linksSize(id);
+
+        if (linked.length == 0) {
+            index.removeLinks(id);
+            return;
+        }
+        links.put(id, linked);
+        for (long target : linked) backlinks.computeIfAbsent(target, k -> new HashSet<>()).add(id);
+        index.putLinks(id, position, size);
+        liveBytes += size;
+    }
+
+    // ---------------- transactions ----------------
+
+    // Before-images of the notes a transaction holds, taken when it first touched each note
+    public static final class UndoLog {
+        private final long tx;
+        // note id -> {note offset, size, links offset, size}, offset -1 when there was none
+        private final Map<Long, long[]> before = new LinkedHashMap<>();
+        private volatile boolean rollbackOnly;
+
+        private UndoLog(long tx) { this.tx = tx; }
+
+        void setRollbackOnly() { rollbackOnly = true; }
+        boolean isRollbackOnly() { return rollbackOnly; }
+    }
+
+    UndoLog begin() {
+        activeTransactions.incrementAndGet();
+        return new UndoLog(nextTx.getAndIncrement());
+    }
+
+    void commit(UndoLog undo) {
+        lock.writeLock().lock();
+        try {
+            if (!undo.before.isEmpty()) {
+                append(LogRecord.commit(undo.tx));
+                if (fsync) logChannel.force(false);
+            }
+        } catch (IOException e) {
+            // without its commit record replay would drop the transaction, so undo it now as well
+            try {
+                restore(undo);
+            } catch (IOException restoreError) {
+                e.addSuppressed(restoreError);
+            }
+            throw failure("commit", e);
+        } finally {
+            release(undo);
+            activeTransactions.decrementAndGet();
+            lock.writeLock().unlock();
+        }
+    }
+
+    // nothing is appended: the records of the transaction stay uncommitted in the log
+    void rollback(UndoLog undo) {
+        lock.writeLock().lock();
+        try {
+            restore(undo);
+        } catch (IOException e) {
+            throw failure("roll back", e);
+        } finally {
+            release(undo);
+            activeTransactions.decrementAndGet();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void restore(UndoLog undo) throws IOException {
+        for (Map.Entry<Long, long[]> entry : undo.before.entrySet()) {
+            long id = entry.getKey();
+            long[] at = entry.getValue();
+            if (at[0] >= 0) {
+                StoredNote note = readMeta(at[0], (int) at[1]);
+                applyNote(id, note.getVersion(), note.getTitle(), at[0], (int) at[1]);
+            } else if (index.noteOffset(id) >= 0) {
+                applyDelete(id);
+            }
+        }
+        // after the notes: restoring a deleted note does not bring its links back
+        for (Map.Entry<Long, long[]> entry : undo.before.entrySet()) {
+            long[] at = entry.getValue();
+            long[] linked = at[2] >= 0 ? LogRecord.readLinks(read(at[2], (int) at[3])) : NO_LINKS;
+            applyLinks(entry.getKey(), linked, at[2], (int) at[3]);
+        }
+    }
+
+    private void release(UndoLog undo) {
+        if (undo.before.isEmpty()) return;
+        owners.keySet().removeAll(undo.before.keySet());
+        released.signalAll();
+    }
+
+    private UndoLog currentUndo() {
+        return (UndoLog) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private long tx() {
+        UndoLog undo = currentUndo();
+        return undo == null ? 0 : undo.tx;
+    }
+
+    // Called with the write lock held before a write reads the note: waits until no other
+    // transaction holds the note, then the current transaction (if any) holds it until it ends.
+    // True if it had to wait, the lock was released meanwhile.
+    private boolean claim(long id) {
+        UndoLog undo = currentUndo();
+        boolean waited = false;
+        long nanos = lockTimeout.toNanos();
+        for (UndoLog owner = owners.get(id); owner != null && owner != undo; owner = owners.get(id)) {
+            if (nanos <= 0) throw new CannotAcquireLockException("Note " + id + " is held by another transaction");
+            waited = true;
+            try {
+                nanos = released.awaitNanos(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("Interrupted while waiting for note " + id, e);
+            }
+        }
+        if (undo != null && owners.putIfAbsent(id, undo) == null) {
+            long offset = index.noteOffset(id);
+            long linksOffset = index.linksOffset(id);
+            undo.before.put(id, new long[]{offset, offset >= 0 ? index.noteSize(id) : 0,
+                    linksOffset, linksOffset >= 0 ? index.linksSize(id) : 0});
+        }
+        return waited;
+    }
+
+    // ---------------- compaction ----------------
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return logEnd;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // bytes of records that are still current
+    public long liveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Compacts when at least minSize bytes and garbageRatio of the log are superseded records.
+    // Skipped while transactions are open, their before-images point into the current log.
+    // Copies are written without their transaction, the commit records stay behind.
+    public boolean compactIfNeeded(long minSize, double garbageRatio) {
+        lock.writeLock().lock();
+        try {
+            long garbage = logEnd - liveBytes;
+            if (garbage < minSize || garbage < logEnd * garbageRatio) return false;
+            return compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean compact() {
+        lock.writeLock().lock();
+        try {
+            if (activeTransactions.get() > 0) return false;
+            long before = logEnd;
+            long next = generation + 1;
+            Path temporary = directory.resolve("notes-" + next + ".log.tmp");
+            Files.deleteIfExists(indexPath(next));
+            OffsetIndex compacted = new OffsetIndex(indexPath(next));
+            long position = 0;
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long last = Math.min(nextId - 1, index.capacity());
+                for (long id = 1; id <= last; id++) {
+                    long offset = index.noteOffset(id);
+                    if (offset >= 0) {
+                        int size = index.noteSize(id);
+                        position += copy(LogRecord.withoutTx(read(offset, size)), out, position);
+                        compacted.putNote(id, position - size, size, index.version(id));
+                    }
+                    long linksOffset = index.linksOffset(id);
+                    if (linksOffset >= 0) {
+                        int size = index.linksSize(id);
+                        position += copy(LogRecord.withoutTx(read(linksOffset, size)), out, position);
+                        compacted.putLinks(id, position - size, size);
+                    }
+                }
+                // replay derives the id sequence from the highest id it sees
+                if (nextId > 1 && index.noteOffset(nextId - 1) < 0) {
+                    position += copy(ByteBuffer.wrap(LogRecord.delete(0, nextId - 1)), out, position);
+                }
+                out.force(true);
+            } catch (IOException | RuntimeException e) {
+                compacted.close();
+                Files.deleteIfExists(temporary);
+                Files.deleteIfExists(indexPath(next));
+                throw e;
+            }
+            Files.move(temporary, logPath(next), StandardCopyOption.ATOMIC_MOVE);
+            compacted.markOpen(next);
+
+            logChannel.close();
+            index.close();
+            deleteGeneration(generation);
+            generation = next;
+            logChannel = FileChannel.open(logPath(next), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = compacted;
+            logEnd = position;
+            log.info("Compacted log store {} from {} to {} bytes", directory, before, position);
+            return true;
+        } catch (IOException e) {
+            throw failure("compact", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int copy(ByteBuffer record, FileChannel out, long position) throws IOException {
+        record.rewind();
+        while (record.hasRemaining()) out.write(record, position + record.position());
+        return record.limit();
+    }
+
+    // ---------------- files ----------------
+
+    private ByteBuffer read(long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (logChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Record at offset " + position + " ends past the end of the log");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private StoredNote readMeta(long position, int size) throws IOException {
+        ByteBuffer record = read(position, Math.min(size, META_READ));
+        if (LogRecord.NOTE_HEADER + LogRecord.metaLength(record) > record.limit()) record = read(position, size);
+        return LogRecord.readNote(record, false);
+    }
+
+    private Path logPath(long generation) {
+        return directory.resolve("notes-" + generation + ".log");
+    }
+
+    private Path indexPath(long generation) {
+        return directory.resolve("notes-" + generation + ".idx");
+    }
+
+    private void deleteGeneration(long generation) throws IOException {
+        Files.deleteIfExists(logPath(generation));
+        Files.deleteIfExists(indexPath(generation));
+    }
+
+    private static DataAccessResourceFailureException failure(String operation, IOException e) {
+        return new DataAccessResourceFailureException("Log store could not " + operation, e);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (recovered && logChannel.isOpen()) {
+                logChannel.force(true);
+                index.markClean(logEnd, nextId, nextTx.get());
+            }
+            if (logChannel != null) logChannel.close();
+            if (index != null) index.close();
+            fileLock.release();
+            lockChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.springwebnotebook.logstore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Storage backend of the logstore profile, see application-logstore.properties
+@Configuration
+@Profile("logstore")
+public class LogStoreConfig {
+
+    private final long compactMinGarbage;
+    private final double compactGarbageRatio;
+
+    private LogStore logStore;
+
+    public LogStoreConfig(@Value("${notes.logstore.compact-min-garbage:16MB}") DataSize compactMinGarbage,
+                          @Value("${notes.logstore.compact-garbage-ratio:0.5}") double compactGarbageRatio) {
+        this.compactMinGarbage = compactMinGarbage.toBytes();
+        this.compactGarbageRatio = compactGarbageRatio;
+    }
+
+    @Bean(destroyMethod = "close")
+    public LogStore logStore(@Value("${notes.logstore.dir:data/logstore}") Path directory,
+                             @Value("${notes.logstore.fsync:false}") boolean fsync,
+                             @Value("${notes.logstore.lock-timeout:10s}") Duration lockTimeout) throws IOException {
+        logStore = LogStore.open(directory, fsync, lockTimeout);
+        return logStore;
+    }
+
+    @Bean
+    public LogStoreTransactionManager transactionManager(LogStore logStore) {
+        return new LogStoreTransactionManager(logStore);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.logstore.compact-interval:1m}")
+    public void compact() {
+        if (logStore != null) logStore.compactIfNeeded(compactMinGarbage, compactGarbageRatio);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.springwebnotebook.logstore;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// @Transactional for the log store: the transaction's undo log is bound to the thread, commit
+// appends its commit record (forced with fsync on), rollback points the index back at the
+// before-images. See LogStore.
+public class LogStoreTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final LogStore store;
+
+    public LogStoreTransactionManager(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new LogStoreTransaction((LogStore.UndoLog) TransactionSynchronizationManager.getResource(store));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((LogStoreTransaction) transaction).undo != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        LogStore.UndoLog undo = store.begin();
+        ((LogStoreTransaction) transaction).undo = undo;
+        TransactionSynchronizationManager.bindResource(store, undo);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((LogStoreTransaction) transaction).undo = null;
+        return TransactionSynchronizationManager.unbindResource(store);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(store, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        store.commit(((LogStoreTransaction) status.getTransaction()).undo);
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        store.rollback(((LogStoreTransaction) status.getTransaction()).undo);
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((LogStoreTransaction) status.getTransaction()).undo.setRollbackOnly();
+    }
+
+    // only called for the transaction that began the undo log
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResource(store);
+    }
+
+    private static final class LogStoreTransaction implements SmartTransactionObject {
+        private LogStore.UndoLog undo;
+
+        private LogStoreTransaction(LogStore.UndoLog undo) {
+            this.undo = undo;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return undo != null && undo.isRollbackOnly();
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
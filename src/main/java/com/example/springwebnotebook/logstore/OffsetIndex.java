@@ -0,0 +1,126 @@
+package com.example.springwebnotebook.logstore;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped, direct-addressed index of the log: the slot of note id n sits at a fixed offset,
+ * so a lookup is one read of mapped memory. Slot: [note record offset + 1][version]
+ * [links record offset + 1][note record size int][links record size int]; 0 offsets mean absent.
+ * The header records whether the store was closed cleanly and at which log length; any other
+ * state means the slots cannot be trusted and the index is rebuilt from the log.
+ */
+final class OffsetIndex implements AutoCloseable {
+
+    private static final long MAGIC = 0x4e4f5445494458_01L;
+    private static final int HEADER = 64;
+    private static final int SLOT = 32;
+    // one MappedByteBuffer: the largest id whose slot still fits
+    static final long MAX_ID = (Integer.MAX_VALUE - HEADER) / SLOT - 1;
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+
+    OffsetIndex(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), HEADER + 1024L * SLOT));
+    }
+
+    // the slots describe exactly this log generation and length
+    boolean isCleanFor(long generation, long logLength) {
+        return map.getLong(0) == MAGIC && map.getLong(8) == generation
+                && map.getLong(16) == 1 && map.getLong(24) == logLength;
+    }
+
+    void markOpen(long generation) throws IOException {
+        map.putLong(0, MAGIC).putLong(8, generation).putLong(16, 0);
+        map.force();
+    }
+
+    void markClean(long logLength, long nextId, long nextTx) {
+        map.putLong(24, logLength).putLong(32, nextId).putLong(40, nextTx).putLong(16, 1);
+        map.force();
+    }
+
+    long nextId() {
+        return map.getLong(32);
+    }
+
+    long nextTx() {
+        return map.getLong(40);
+    }
+
+    void clear() {
+        for (int at = 0; at < map.capacity(); at += 8) map.putLong(at, 0);
+    }
+
+    // last id that has a slot in the current mapping
+    long capacity() {
+        return (map.capacity() - HEADER) / SLOT - 1;
+    }
+
+    long noteOffset(long id) {
+        return id < 1 || id > capacity() ? -1 : map.getLong(slot(id)) - 1;
+    }
+
+    long version(long id) {
+        return map.getLong(slot(id) + 8);
+    }
+
+    int noteSize(long id) {
+        return map.getInt(slot(id) + 24);
+    }
+
+    long linksOffset(long id) {
+        return id < 1 || id > capacity() ? -1 : map.getLong(slot(id) + 16) - 1;
+    }
+
+    int linksSize(long id) {
+        return map.getInt(slot(id) + 28);
+    }
+
+    void putNote(long id, long offset, int size, long version) throws IOException {
+        ensureCapacity(id);
+        int slot = slot(id);
+        map.putLong(slot, offset + 1).putLong(slot + 8, version).putInt(slot + 24, size);
+    }
+
+    void putLinks(long id, long offset, int size) throws IOException {
+        ensureCapacity(id);
+        int slot = slot(id);
+        map.putLong(slot + 16, offset + 1).putInt(slot + 28, size);
+    }
+
+    void removeNote(long id) {
+        if (id > capacity()) return;
+        int slot = slot(id);
+        map.putLong(slot, 0).putLong(slot + 8, 0).putInt(slot + 24, 0);
+    }
+
+    void removeLinks(long id) {
+        if (id > capacity()) return;
+        int slot = slot(id);
+        map.putLong(slot + 16, 0).putInt(slot + 28, 0);
+    }
+
+    private void ensureCapacity(long id) throws IOException {
+        if (id <= capacity()) return;
+        if (id > MAX_ID) throw new IllegalArgumentException("Note id " + id + " is beyond the log store index (max " + MAX_ID + ")");
+        long size = HEADER + (capacity() + 1) * SLOT;
+        while (HEADER + (id + 1) * SLOT > size) size = Math.min(size * 2, HEADER + (MAX_ID + 1) * SLOT);
+        map.force();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static int slot(long id) {
+        return (int) (HEADER + id * SLOT);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
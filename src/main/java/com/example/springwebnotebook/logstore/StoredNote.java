@@ -0,0 +1,25 @@
+package com.example.springwebnotebook.logstore;
+
+// A note as the log store holds it; content is in its stored form (see ContentCodec) and null
+// when it was not read
+public class StoredNote {
+    private final long id;
+    private final long version;
+    private final String title;
+    private final String content;
+
+    StoredNote(long id, long version, String title, String content) {
+        this.id = id;
+        this.version = version;
+        this.title = title;
+        this.content = content;
+    }
+
+    public long getId() { return id; }
+
+    public long getVersion() { return version; }
+
+    public String getTitle() { return title; }
+
+    public String getContent() { return content; }
+}
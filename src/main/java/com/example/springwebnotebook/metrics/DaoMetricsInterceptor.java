@@ -0,0 +1,96 @@
+package com.example.springwebnotebook.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Records, per DAO bean and method: call latency ({@code notes.dao.calls}), rows returned or
+ * affected ({@code notes.dao.rows}) and SQL statements executed ({@code notes.dao.statements}).
+ * Streams are counted when they are closed; their latency only covers opening the cursor.
+ */
+public class DaoMetricsInterceptor implements MethodInterceptor {
+
+    private final String daoName;
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private volatile MeterRegistry registry;
+
+    public DaoMetricsInterceptor(String daoName, ObjectProvider<MeterRegistry> registryProvider) {
+        this.daoName = daoName;
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MeterRegistry registry = registry();
+        if (registry == null || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        String method = invocation.getMethod().getName();
+        long statementsBefore = QueryCounter.current();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = invocation.proceed();
+            outcome = "success";
+            if (result instanceof Stream<?> stream) return countOnClose(stream, registry, method);
+            recordRows(registry, method, rows(result));
+            return result;
+        } finally {
+            Timer.builder("notes.dao.calls")
+                    .tags("dao", daoName, "method", method, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("notes.dao.statements")
+                    .tags("dao", daoName, "method", method)
+                    .register(registry)
+                    .record(QueryCounter.current() - statementsBefore);
+        }
+    }
+
+    private Stream<?> countOnClose(Stream<?> stream, MeterRegistry registry, String method) {
+        AtomicLong rows = new AtomicLong();
+        return stream.peek(row -> rows.incrementAndGet())
+                .onClose(() -> recordRows(registry, method, rows.get()));
+    }
+
+    private void recordRows(MeterRegistry registry, String method, long rows) {
+        if (rows < 0) return;
+        DistributionSummary.builder("notes.dao.rows")
+                .tags("dao", daoName, "method", method)
+                .register(registry)
+                .record(rows);
+    }
+
+    // -1 when the result says nothing about rows (void methods)
+    private static long rows(Object result) {
+        if (result == null) return -1;
+        if (result instanceof Collection<?> collection) return collection.size();
+        if (result instanceof Optional<?> optional) return optional.isPresent() ? 1 : 0;
+        if (result instanceof Boolean) return -1;
+        if (result instanceof int[] counts) {
+            long rows = 0;
+            for (int count : counts) rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            return rows;
+        }
+        return 1;
+    }
+
+    private MeterRegistry registry() {
+        MeterRegistry current = registry;
+        if (current == null) registry = current = registryProvider.getIfAvailable();
+        return current;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.springwebnotebook.metrics;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
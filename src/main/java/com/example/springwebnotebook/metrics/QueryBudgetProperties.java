@@ -0,0 +1,35 @@
+package com.example.springwebnotebook.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// notes.query-budget.*: maximum number of SQL statements a single request may execute
+@ConfigurationProperties(prefix = "notes.query-budget")
+public class QueryBudgetProperties {
+
+    public enum Mode { OFF, LOG, FAIL }
+
+    private Mode mode = Mode.LOG;
+    private int defaultLimit = 10;
+    // keyed by HTTP method and the handler's URI pattern, e.g. notes.query-budget.endpoints[PUT\ /api/notes/{id}]=7;
+    // a key without a method, e.g. endpoints[/edit/{id}]=3, is the budget of GET (and HEAD)
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    public int limitFor(String method, String uriPattern) {
+        Integer limit = endpoints.get(method + " " + uriPattern);
+        if (limit != null) return limit;
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        return read ? endpoints.getOrDefault(uriPattern, defaultLimit) : defaultLimit;
+    }
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+
+    public int getDefaultLimit() { return defaultLimit; }
+    public void setDefaultLimit(int defaultLimit) { this.defaultLimit = defaultLimit; }
+
+    public Map<String, Integer> getEndpoints() { return endpoints; }
+    public void setEndpoints(Map<String, Integer> endpoints) { this.endpoints = endpoints; }
+}
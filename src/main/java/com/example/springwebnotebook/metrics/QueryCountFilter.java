@@ -0,0 +1,57 @@
+package com.example.springwebnotebook.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements each request executes, records them as {@code notes.http.queries}
+ * (tagged by method and URI pattern) and checks them against the budget configured for both.
+ * In FAIL mode an exceeded budget throws, which is meant for tests catching N+1 regressions.
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry registry;
+    private final QueryBudgetProperties budget;
+
+    public QueryCountFilter(MeterRegistry registry, QueryBudgetProperties budget) {
+        this.registry = registry;
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = QueryCounter.current();
+        chain.doFilter(request, response);
+        long queries = QueryCounter.current() - before;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("notes.http.queries")
+                .description("SQL statements executed per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(queries);
+
+        int limit = budget.limitFor(request.getMethod(), uri);
+        if (budget.getMode() == QueryBudgetProperties.Mode.OFF || queries <= limit) return;
+
+        String message = request.getMethod() + " " + uri + " executed " + queries
+                + " SQL statements, budget is " + limit;
+        if (budget.getMode() == QueryBudgetProperties.Mode.FAIL) throw new QueryBudgetExceededException(message);
+        log.warn(message);
+    }
+}
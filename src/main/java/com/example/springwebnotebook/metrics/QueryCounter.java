@@ -0,0 +1,19 @@
+package com.example.springwebnotebook.metrics;
+
+// Number of SQL statements executed by the current thread, incremented by StatementCountingDataSource.
+// Callers take the difference of two readings, so the counter never needs resetting.
+public final class QueryCounter {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private QueryCounter() {
+    }
+
+    public static long current() {
+        return STATEMENTS.get()[0];
+    }
+
+    static void increment() {
+        STATEMENTS.get()[0]++;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.springwebnotebook.model;
+
+// One item of POST /api/notes/batch: op is "create", "update" or "delete"
+public class BatchOperation {
+
+    private String op;
+    private Long id;
+    private Note note;
+
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Note getNote() { return note; }
+    public void setNote(Note note) { this.note = note; }
+}
@@ -0,0 +1,31 @@
+package com.example.springwebnotebook.model;
+
+// Outcome of one BatchOperation, status follows HTTP semantics (201, 200, 204, 400, 404, 424, 500)
+public class BatchResult {
+
+    private final int index;
+    private final String op;
+    private int status;
+    private Long id;
+    private String error;
+
+    public BatchResult(int index, String op) {
+        this.index = index;
+        this.op = op;
+    }
+
+    public int getIndex() { return index; }
+
+    public String getOp() { return op; }
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public boolean isSuccess() { return status >= 200 && status < 300; }
+}
@@ -0,0 +1,23 @@
+package com.example.springwebnotebook.model;
+
+import java.util.function.UnaryOperator;
+
+// Note content in its stored (compressed) form, decoded only when the content is read
+public final class LazyContent {
+
+    private final String stored;
+    private final UnaryOperator<String> decoder;
+
+    public LazyContent(String stored, UnaryOperator<String> decoder) {
+        this.stored = stored;
+        this.decoder = decoder;
+    }
+
+    String decode() {
+        return decoder.apply(stored);
+    }
+
+    int storedLength() {
+        return stored.length();
+    }
+}
@@ -1,22 +1,40 @@
 package com.example.springwebnotebook.model;
 
 import com.example.springwebnotebook.repository.LinkPair;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.util.Pair;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 public class Note {
 
     private Long id;
     private String title;
     private String content;
-    private String shareKey;
+    // set instead of content for compressed rows; decoded on the first getContent()
+    private LazyContent lazyContent;
+    // optimistic lock version, the start of the note's ETag (see NoteETags)
+    private Long version;
     private List<LinkPair> links;
 
+    // share links are not part of a note, see NoteShare
     public Note() {
-        this.shareKey = UUID.randomUUID().toString();
-    };
+    }
+
+    // deep copy
+    public Note(Note other) {
+        this.id = other.id;
+        this.title = other.title;
+        // copies of a lazily loaded note stay lazy, each decodes on its own first read
+        this.lazyContent = other.lazyContent;
+        this.content = other.lazyContent == null ? other.content : null;
+        this.version = other.version;
+        if (other.links != null) {
+            this.links = new ArrayList<>(other.links.size());
+            for (LinkPair link : other.links) this.links.add(new LinkPair(link.getId(), link.getTitle()));
+        }
+    }
 
     // Getters and Setters
     public Long getId() {
@@ -36,19 +54,33 @@ public class Note {
     }
 
     public String getContent() {
+        if (content == null && lazyContent != null) content = lazyContent.decode();
         return content;
     }
 
     public void setContent(String content) {
         this.content = content;
+        this.lazyContent = null;
+    }
+
+    @JsonIgnore
+    public void setLazyContent(LazyContent lazyContent) {
+        this.lazyContent = lazyContent;
+        this.content = null;
+    }
+
+    // characters currently held for the content, without decoding it
+    public int storedContentLength() {
+        if (content != null) return content.length();
+        return lazyContent != null ? lazyContent.storedLength() : 0;
     }
 
-    public String getShareKey() {
-        return shareKey;
+    public Long getVersion() {
+        return version;
     }
 
-    public void setShareKey(String shareKey) {
-        this.shareKey = shareKey;
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
     public List<LinkPair> getLinks() {
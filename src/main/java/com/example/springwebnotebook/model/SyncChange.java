@@ -0,0 +1,26 @@
+package com.example.springwebnotebook.model;
+
+// One entry of GET /api/notes/changes: the current state of a changed note ("upsert")
+// or a tombstone ("delete", note is null). seq is the newest change of the note in the page.
+public class SyncChange {
+
+    private final long seq;
+    private final String type;
+    private final long id;
+    private final Note note;
+
+    public SyncChange(long seq, String type, long id, Note note) {
+        this.seq = seq;
+        this.type = type;
+        this.id = id;
+        this.note = note;
+    }
+
+    public long getSeq() { return seq; }
+
+    public String getType() { return type; }
+
+    public long getId() { return id; }
+
+    public Note getNote() { return note; }
+}
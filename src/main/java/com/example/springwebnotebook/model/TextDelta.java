@@ -0,0 +1,102 @@
+package com.example.springwebnotebook.model;
+
+import java.util.List;
+
+// Body of PATCH /api/notes/{id} with Content-Type application/text-delta+json.
+// Offsets are UTF-16 positions in the content at baseVersion; ops are sorted by offset and do not
+// overlap, so the whole delta is applied in one pass over the base content.
+public class TextDelta {
+
+    public static final String MEDIA_TYPE = "application/text-delta+json";
+
+    private Long baseVersion;
+    private List<Op> ops;
+
+    public Long getBaseVersion() { return baseVersion; }
+    public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+
+    public List<Op> getOps() { return ops; }
+    public void setOps(List<Op> ops) { this.ops = ops; }
+
+    // {"op":"insert","at":12,"text":"..."} or {"op":"delete","at":12,"length":3}
+    public static class Op {
+        private String op;
+        private int at;
+        private int length;
+        private String text;
+
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+
+        public int getAt() { return at; }
+        public void setAt(int at) { this.at = at; }
+
+        public int getLength() { return length; }
+        public void setLength(int length) { this.length = length; }
+
+        public String getText() { return text; }
+        public void setText(String text) { this.text = text; }
+    }
+
+    // throws IllegalArgumentException for unknown, unordered, overlapping or out-of-range ops
+    public String applyTo(String base) {
+        if (ops == null || ops.isEmpty()) throw new IllegalArgumentException("ops must not be empty");
+        String content = base == null ? "" : base;
+
+        long resultLength = content.length();
+        int cursor = 0;
+        for (int i = 0; i < ops.size(); i++) {
+            Op op = ops.get(i);
+            if (op == null || op.getOp() == null) throw invalid(i, "op is required");
+            if (op.getAt() < cursor) throw invalid(i, "offset " + op.getAt() + " is before the end of the previous op");
+            if (op.getAt() > content.length()) throw invalid(i, "offset " + op.getAt() + " is past the end of the content");
+            switch (op.getOp()) {
+                case "insert" -> {
+                    if (op.getText() == null || op.getText().isEmpty()) throw invalid(i, "insert requires text");
+                    checkBoundary(content, op.getAt(), i);
+                    resultLength += op.getText().length();
+                    cursor = op.getAt();
+                }
+                case "delete" -> {
+                    int end = op.getAt() + op.getLength();
+                    if (op.getLength() <= 0 || end < 0 || end > content.length()) {
+                        throw invalid(i, "delete range is outside the content");
+                    }
+                    checkBoundary(content, op.getAt(), i);
+                    checkBoundary(content, end, i);
+                    resultLength -= op.getLength();
+                    cursor = end;
+                }
+                default -> throw invalid(i, "op must be insert or delete");
+            }
+        }
+        if (resultLength > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Patched content is too large");
+
+        StringBuilder patched = new StringBuilder((int) resultLength);
+        int copied = 0;
+        for (Op op : ops) {
+            patched.append(content, copied, op.getAt());
+            if (op.getOp().equals("insert")) {
+                patched.append(op.getText());
+                copied = op.getAt();
+            } else {
+                copied = op.getAt() + op.getLength();
+            }
+        }
+        patched.append(content, copied, content.length());
+        return patched.toString();
+    }
+
+    // an offset between the two halves of a surrogate pair would corrupt the character
+    private static void checkBoundary(String content, int offset, int index) {
+        if (offset > 0 && offset < content.length()
+                && Character.isHighSurrogate(content.charAt(offset - 1))
+                && Character.isLowSurrogate(content.charAt(offset))) {
+            throw invalid(index, "offset " + offset + " splits a surrogate pair");
+        }
+    }
+
+    private static IllegalArgumentException invalid(int index, String reason) {
+        return new IllegalArgumentException("ops[" + index + "]: " + reason);
+    }
+}
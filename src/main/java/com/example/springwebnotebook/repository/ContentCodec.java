@@ -0,0 +1,94 @@
+package com.example.springwebnotebook.repository;
+
+import com.example.springwebnotebook.model.LazyContent;
+import com.example.springwebnotebook.model.Note;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage format of notes.content. Content of at least {@code threshold} characters is stored
+ * as "\u0001z:" + Base64(raw Deflate of the UTF-8 bytes) when that is shorter; everything else
+ * is stored as plain text, so rows written before compression existed read unchanged.
+ * Plain content that happens to start with the marker character is escaped as "\u0001r:".
+ */
+public final class ContentCodec {
+
+    static final char MARKER = '\u0001';
+    static final String DEFLATED = MARKER + "z:";
+    private static final String ESCAPED = MARKER + "r:";
+
+    private final int threshold;
+
+    public ContentCodec(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public String encode(String content) {
+        if (content == null) return null;
+        if (content.length() >= threshold) {
+            String deflated = DEFLATED + Base64.getEncoder().encodeToString(deflate(content));
+            if (deflated.length() < content.length()) return deflated;
+        }
+        return content.isEmpty() || content.charAt(0) != MARKER ? content : ESCAPED + content;
+    }
+
+    public static boolean isDeflated(String stored) {
+        return stored != null && stored.startsWith(DEFLATED);
+    }
+
+    public static String decode(String stored) {
+        if (stored == null || stored.isEmpty() || stored.charAt(0) != MARKER) return stored;
+        if (stored.startsWith(ESCAPED)) return stored.substring(ESCAPED.length());
+        if (isDeflated(stored)) return inflate(Base64.getDecoder().decode(stored.substring(DEFLATED.length())));
+        return stored;
+    }
+
+    // for row mappers: compressed content is attached undecoded
+    public static void setContent(Note note, String stored) {
+        if (isDeflated(stored)) {
+            note.setLazyContent(new LazyContent(stored, ContentCodec::decode));
+        } else {
+            note.setContent(decode(stored));
+        }
+    }
+
+    private static byte[] deflate(String content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length() / 3 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) out.write(buffer, 0, deflater.deflate(buffer));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] deflated) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed note content");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed note content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.springwebnotebook.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface INoteChangesDAO {
+    // row lock held until commit: transactions that record changes commit in sequence order.
+    // Taken right before commit, so that it is held only while the change rows are written
+    void lockSequence();
+    // one row per note (note id -> type) as one batch, in map order; upserts store the note's
+    // current version and are skipped for notes that do not exist (anymore). Returns the rows written
+    List<NoteChange> addAll(Map<Long, String> changes);
+    // changes with seq > since, oldest first
+    List<NoteChange> findSince(long since, int limit);
+    long lastSeq();
+    // one upsert per existing note if the log is still empty (first start with change tracking)
+    int seedFromNotes();
+}
@@ -1,11 +1,21 @@
 package com.example.springwebnotebook.repository;
 
-import com.example.springwebnotebook.model.Note;
-
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface INoteLinksDAO {
-    List<Note> findLinkedFromNote(Long id);
+    List<LinkPair> findLinkedFromNote(Long id);
+    // findLinkedFromNote for many notes in one query; notes without links are absent from the map
+    Map<Long, List<LinkPair>> findLinkedFromNotes(Collection<Long> ids);
     void deleteLinkFromNote(Long linked_id, Long linker_id);
     void addLinkToNote(Long linkerId, Long linkedId);
+    List<Long> findLinkedIds(Long linkerId);
+    void addLinks(Long linkerId, Collection<Long> linkedIds);
+    void deleteLinks(Long linkerId, Collection<Long> linkedIds);
+    // forward-only cursor over all links ordered by linker id, the caller must close the stream
+    Stream<NoteLink> streamAll();
+    void addAll(Collection<NoteLink> links);
+    void deleteAllFrom(Collection<Long> linkerIds);
 }
@@ -0,0 +1,18 @@
+package com.example.springwebnotebook.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface INoteRevisionsDAO {
+    // newest first, without bodies
+    List<NoteRevision> findAll(Long noteId);
+    // the newest snapshot at or before version and every revision after it up to version, oldest first
+    List<NoteRevision> findChain(Long noteId, long version);
+    // findChain up to the newest revision, for each of the notes in one query; notes without
+    // revisions are left out
+    Map<Long, List<NoteRevision>> findLatestChains(Collection<Long> noteIds);
+    // one batch, each revision (note id, snapshot, title, body) stored under the note's current
+    // version, read in the same statement. Returns the inserted rows per revision
+    int[] addAll(List<NoteRevision> revisions);
+}
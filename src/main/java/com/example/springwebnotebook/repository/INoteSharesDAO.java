@@ -0,0 +1,25 @@
+package com.example.springwebnotebook.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface INoteSharesDAO {
+    // fails with DataIntegrityViolationException when the note does not exist
+    void create(NoteShare share);
+    // keeps the given keys and timestamps (restore from an export)
+    void restoreAll(Collection<NoteShare> shares);
+    // the link with its note in one lookup, empty when unknown, revoked or expired at now
+    Optional<NoteShare> findActive(String shareKey, Instant now);
+    // newest first, revoked and expired links included
+    List<NoteShare> findByNote(Long noteId);
+    // Returns revoked links: 0 when the key does not belong to the note or is revoked already
+    int revoke(Long noteId, String shareKey, Instant at);
+    // adds to the counters of the keys, one batch
+    void addAccessCounts(Map<String, Long> counts);
+    // open cursor over links not revoked or expired at now, ordered by note; the caller must close the stream
+    Stream<NoteShare> streamActive(Instant now);
+}
@@ -2,14 +2,43 @@ package com.example.springwebnotebook.repository;
 
 import com.example.springwebnotebook.model.Note;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface INotesDAO{
     List<Note> findAll();
+    // id + title only, for link pickers and other lists that never render content
+    List<LinkPair> findAllSummaries();
+    boolean existsById(Long id);
+    // current version without reading the row, empty if the note does not exist
+    Optional<Long> findVersion(Long id);
+    List<Note> findPage(Optional<String> titleFilter, long offset, int limit);
+    List<Note> findPageAfter(Optional<String> titleFilter, Long afterId, int limit);
+    // keyset page of list entries; reads the stored preview, not the content
+    List<NotePreview> findPreviewsAfter(Long afterId, int limit);
     Optional<Note> findById(Number id);
-    Optional<Note> findByShareKey(String author);
+    // one query for all ids, in no particular order; missing ids are left out
+    List<Note> findAllByIds(Collection<Long> ids);
+    // forward-only cursor over all notes ordered by id, the caller must close the stream
+    Stream<Note> streamAll();
     Number create(Note note);
-    Note update(Note note);
-    void delete(Long id);
+    // batch insert keeping the given ids (restore from an export)
+    void restoreAll(List<Note> notes);
+    // batch statements; results are in input order
+    List<Long> createAll(List<Note> notes);
+    // bumps versions; notes with a version only match that version, like update(Note)
+    int[] updateAll(List<Note> notes);
+    int[] deleteAll(List<Long> ids);
+    // bumps the version; a non-null note.getVersion() must match (optimistic lock). Returns updated rows
+    int update(Note note);
+    // content only, title and links stay as they are; same version rules as update(Note)
+    int updateContent(Long id, String content, Long expectedVersion);
+    // expectedVersion null deletes unconditionally. Returns deleted rows
+    int delete(Long id, Long expectedVersion);
+    // notes after afterId whose content is at least minLength characters and not compressed yet, ordered by id
+    List<Note> findUncompressed(Long afterId, int minLength, int limit);
+    // re-stores unchanged content in the current storage format; skips notes no longer at their version
+    int[] rewriteContent(List<Note> notes);
 }
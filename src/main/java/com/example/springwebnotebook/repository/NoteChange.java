@@ -0,0 +1,34 @@
+package com.example.springwebnotebook.repository;
+
+import java.time.Instant;
+
+// One row of note_changes. type is "upsert" (created, updated or relinked) or "delete" (tombstone);
+// version is the note version the change produced, null for tombstones.
+public class NoteChange {
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    private final long seq;
+    private final long noteId;
+    private final String type;
+    private final Long version;
+    private final Instant changedAt;
+
+    public NoteChange(long seq, long noteId, String type, Long version, Instant changedAt) {
+        this.seq = seq;
+        this.noteId = noteId;
+        this.type = type;
+        this.version = version;
+        this.changedAt = changedAt;
+    }
+
+    public long getSeq() { return seq; }
+
+    public long getNoteId() { return noteId; }
+
+    public String getType() { return type; }
+
+    public Long getVersion() { return version; }
+
+    public Instant getChangedAt() { return changedAt; }
+}
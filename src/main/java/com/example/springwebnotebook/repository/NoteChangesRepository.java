@@ -0,0 +1,126 @@
+package com.example.springwebnotebook.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+@Repository
+@Profile("!logstore")
+public class NoteChangesRepository implements INoteChangesDAO {
+
+    private final JdbcClient jdbcClient;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    public NoteChangesRepository(DataSource dataSource) {
+        this.jdbcClient = JdbcClient.create(dataSource);
+        // JdbcClient has no batch API
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void lockSequence() {
+        // a no-op update still takes the row lock
+        String LOCK_SEQUENCE = "UPDATE note_changes_lock SET id = id WHERE id = 1";
+
+        jdbcClient.sql(LOCK_SEQUENCE).update();
+    }
+
+    @Override
+    public List<NoteChange> addAll(Map<Long, String> changes) {
+        List<Long> upserted = changes.entrySet().stream()
+                .filter(change -> NoteChange.UPSERT.equals(change.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Long> versions = new HashMap<>();
+        if (!upserted.isEmpty()) {
+            String SELECT_VERSIONS = "SELECT id, version FROM notes WHERE id IN (:ids)";
+            jdbcClient.sql(SELECT_VERSIONS)
+                    .param("ids", upserted)
+                    .query(rs -> { versions.put(rs.getLong("id"), rs.getLong("version")); });
+        }
+
+        List<NoteChange> rows = new ArrayList<>(changes.size());
+        changes.forEach((noteId, type) -> {
+            if (type.equals(NoteChange.DELETE) || versions.containsKey(noteId)) {
+                rows.add(new NoteChange(0, noteId, type, versions.get(noteId), null));
+            }
+        });
+        if (rows.isEmpty()) return List.of();
+
+        String INSERT_CHANGE = "INSERT INTO note_changes (note_id, type, version) VALUES (:noteId, :type, :version)";
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("noteId", row.getNoteId())
+                        .addValue("type", row.getType())
+                        .addValue("version", row.getVersion()))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.batchUpdate(INSERT_CHANGE, batch, keyHolder, new String[]{"seq"});
+
+        // drivers name the key column differently (GENERATED_KEY in MySQL, SEQ in H2)
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        Instant now = Instant.now();
+        List<NoteChange> written = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            NoteChange row = rows.get(i);
+            long seq = ((Number) keys.get(i).values().iterator().next()).longValue();
+            written.add(new NoteChange(seq, row.getNoteId(), row.getType(), row.getVersion(), now));
+        }
+        return written;
+    }
+
+    @Override
+    public List<NoteChange> findSince(long since, int limit) {
+        String SELECT_CHANGES = "SELECT * FROM note_changes WHERE seq > :since ORDER BY seq LIMIT :limit";
+
+        return jdbcClient.sql(SELECT_CHANGES)
+                .param("since", since)
+                .param("limit", limit)
+                .query(changeRowMapper())
+                .list();
+    }
+
+    @Override
+    public long lastSeq() {
+        String SELECT_LAST_SEQ = "SELECT COALESCE(MAX(seq), 0) FROM note_changes";
+
+        return jdbcClient.sql(SELECT_LAST_SEQ)
+                .query(Long.class)
+                .single();
+    }
+
+    @Override
+    public int seedFromNotes() {
+        String SEED_CHANGES = """
+                INSERT INTO note_changes (note_id, type, version)
+                SELECT id, 'upsert', version FROM notes
+                WHERE NOT EXISTS (SELECT 1 FROM note_changes)
+                ORDER BY id
+                """;
+
+        return jdbcClient.sql(SEED_CHANGES).update();
+    }
+
+    private static RowMapper<NoteChange> changeRowMapper() {
+        return (rs, rowNum) -> {
+            long version = rs.getLong("version");
+            Long nullableVersion = rs.wasNull() ? null : version;
+            Timestamp changedAt = rs.getTimestamp("changed_at");
+            return new NoteChange(rs.getLong("seq"), rs.getLong("note_id"), rs.getString("type"),
+                    nullableVersion, changedAt != null ? changedAt.toInstant() : null);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.springwebnotebook.repository;
+
+// One row of notes_to_notes: the note with linkerId links to the note with linkedId
+public class NoteLink {
+    private final long linkerId;
+    private final long linkedId;
+
+    public NoteLink(long linkerId, long linkedId) {
+        this.linkerId = linkerId;
+        this.linkedId = linkedId;
+    }
+
+    public long getLinkerId() { return linkerId; }
+
+    public long getLinkedId() { return linkedId; }
+}
@@ -0,0 +1,96 @@
+package com.example.springwebnotebook.repository;
+
+import com.example.springwebnotebook.logstore.LogStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// INoteLinksDAO on the embedded log store (logstore profile); links are held in memory there
+@Repository
+@Profile("logstore")
+public class NoteLinksLogStore implements INoteLinksDAO {
+
+    private final LogStore store;
+
+    @Autowired
+    public NoteLinksLogStore(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<LinkPair> findLinkedFromNote(Long id) {
+        List<LinkPair> linked = new ArrayList<>();
+        for (long target : store.links(id)) {
+            String title = store.title(target);
+            if (title != null) linked.add(new LinkPair(target, title));
+        }
+        return linked;
+    }
+
+    @Override
+    public Map<Long, List<LinkPair>> findLinkedFromNotes(Collection<Long> ids) {
+        Map<Long, List<LinkPair>> linked = new HashMap<>();
+        for (Long id : ids) {
+            List<LinkPair> pairs = findLinkedFromNote(id);
+            if (!pairs.isEmpty()) linked.put(id, pairs);
+        }
+        return linked;
+    }
+
+    @Override
+    public void deleteLinkFromNote(Long linked_id, Long linker_id) {
+        store.removeLinks(linker_id, Set.of(linked_id));
+    }
+
+    @Override
+    public void addLinkToNote(Long linkerId, Long linkedId) {
+        store.addLinks(linkerId, List.of(linkedId));
+    }
+
+    @Override
+    public List<Long> findLinkedIds(Long linkerId) {
+        return Arrays.stream(store.links(linkerId)).boxed().toList();
+    }
+
+    @Override
+    public void addLinks(Long linkerId, Collection<Long> linkedIds) {
+        if (linkedIds.isEmpty()) return;
+        store.addLinks(linkerId, linkedIds);
+    }
+
+    @Override
+    public void deleteLinks(Long linkerId, Collection<Long> linkedIds) {
+        if (linkedIds.isEmpty()) return;
+        store.removeLinks(linkerId, Set.copyOf(linkedIds));
+    }
+
+    @Override
+    public Stream<NoteLink> streamAll() {
+        return store.allLinks().stream().map(link -> new NoteLink(link[0], link[1]));
+    }
+
+    @Override
+    public void addAll(Collection<NoteLink> links) {
+        links.stream()
+                .collect(Collectors.groupingBy(NoteLink::getLinkerId, Collectors.mapping(NoteLink::getLinkedId, Collectors.toList())))
+                .forEach(store::addLinks);
+    }
+
+    @Override
+    public void deleteAllFrom(Collection<Long> linkerIds) {
+        for (Long linkerId : linkerIds) {
+            long[] linked = store.links(linkerId);
+            if (linked.length > 0) store.removeLinks(linkerId, Arrays.stream(linked).boxed().collect(Collectors.toSet()));
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.example.springwebnotebook.repository;
 
-import com.example.springwebnotebook.model.Note;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -10,31 +11,53 @@ import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Repository
+@Profile("!logstore")
 public class NoteLinksRepository implements INoteLinksDAO {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
     private final SimpleJdbcInsert simpleJdbcInsert;
-    private final NotesRowMapper noteRowMapper = new NotesRowMapper();
 
     @Autowired
-    public NoteLinksRepository(DataSource dataSource) {
+    public NoteLinksRepository(DataSource dataSource,
+                               @Value("${notes.export.fetch-size:-2147483648}") int streamingFetchSize) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(streamingFetchSize);
         this.simpleJdbcInsert = new SimpleJdbcInsert(dataSource)
                 .withTableName("notes_to_notes");
     }
 
     @Override
-    public List<Note> findLinkedFromNote(Long id) {
-        String FIND_LINKED_NOTES = "select notes.* from notes_to_notes nn JOIN notes ON notes.id = nn.linked_id where nn.linker_id = :id";
+    public List<LinkPair> findLinkedFromNote(Long id) {
+        String FIND_LINKED_NOTES = "select notes.id, notes.title from notes_to_notes nn JOIN notes ON notes.id = nn.linked_id where nn.linker_id = :id";
         SqlParameterSource namedParameters = new MapSqlParameterSource()
                 .addValue("id", id);
 
         return this.namedParameterJdbcTemplate
-                .query(FIND_LINKED_NOTES, namedParameters, noteRowMapper);
+                .query(FIND_LINKED_NOTES, namedParameters,
+                        (rs, rowNum) -> new LinkPair(rs.getLong("id"), rs.getString("title")));
+    }
+
+    @Override
+    public Map<Long, List<LinkPair>> findLinkedFromNotes(Collection<Long> ids) {
+        if (ids.isEmpty()) return Map.of();
+
+        String FIND_LINKED_NOTES = "select nn.linker_id, notes.id, notes.title from notes_to_notes nn JOIN notes ON notes.id = nn.linked_id where nn.linker_id IN (:ids)";
+        Map<Long, List<LinkPair>> linked = new HashMap<>();
+
+        this.namedParameterJdbcTemplate.query(FIND_LINKED_NOTES, new MapSqlParameterSource("ids", ids), rs -> {
+            linked.computeIfAbsent(rs.getLong("linker_id"), k -> new ArrayList<>())
+                    .add(new LinkPair(rs.getLong("id"), rs.getString("title")));
+        });
+        return linked;
     }
 
     @Override
@@ -57,4 +80,71 @@ public class NoteLinksRepository implements INoteLinksDAO {
 
         this.simpleJdbcInsert.execute(parameters);
     }
+
+    @Override
+    public List<Long> findLinkedIds(Long linkerId) {
+        String FIND_LINKED_IDS = "SELECT linked_id FROM notes_to_notes WHERE linker_id = :linker_id";
+        SqlParameterSource namedParameters = new MapSqlParameterSource("linker_id", linkerId);
+
+        return this.namedParameterJdbcTemplate
+                .queryForList(FIND_LINKED_IDS, namedParameters, Long.class);
+    }
+
+    // one JDBC batch; with rewriteBatchedStatements=true MySQL receives a single multi-row INSERT
+    @Override
+    public void addLinks(Long linkerId, Collection<Long> linkedIds) {
+        if (linkedIds.isEmpty()) return;
+
+        String INSERT_LINK = "INSERT INTO notes_to_notes (linker_id, linked_id) VALUES (:linker_id, :linked_id)";
+        SqlParameterSource[] batch = linkedIds.stream()
+                .map(linkedId -> new MapSqlParameterSource()
+                        .addValue("linker_id", linkerId)
+                        .addValue("linked_id", linkedId))
+                .toArray(SqlParameterSource[]::new);
+
+        this.namedParameterJdbcTemplate.batchUpdate(INSERT_LINK, batch);
+    }
+
+    @Override
+    public void deleteLinks(Long linkerId, Collection<Long> linkedIds) {
+        if (linkedIds.isEmpty()) return;
+
+        String DELETE_LINKS = "DELETE FROM notes_to_notes WHERE linker_id = :linker_id AND linked_id IN (:linked_ids)";
+        SqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("linker_id", linkerId)
+                .addValue("linked_ids", linkedIds);
+
+        this.namedParameterJdbcTemplate.update(DELETE_LINKS, namedParameters);
+    }
+
+    @Override
+    public Stream<NoteLink> streamAll() {
+        String SELECT_ALL_LINKS = "SELECT linker_id, linked_id FROM notes_to_notes ORDER BY linker_id, linked_id";
+
+        return this.streamingJdbcTemplate.queryForStream(SELECT_ALL_LINKS,
+                (rs, rowNum) -> new NoteLink(rs.getLong("linker_id"), rs.getLong("linked_id")));
+    }
+
+    @Override
+    public void addAll(Collection<NoteLink> links) {
+        if (links.isEmpty()) return;
+
+        String INSERT_LINK = "INSERT INTO notes_to_notes (linker_id, linked_id) VALUES (:linker_id, :linked_id)";
+        SqlParameterSource[] batch = links.stream()
+                .map(link -> new MapSqlParameterSource()
+                        .addValue("linker_id", link.getLinkerId())
+                        .addValue("linked_id", link.getLinkedId()))
+                .toArray(SqlParameterSource[]::new);
+
+        this.namedParameterJdbcTemplate.batchUpdate(INSERT_LINK, batch);
+    }
+
+    @Override
+    public void deleteAllFrom(Collection<Long> linkerIds) {
+        if (linkerIds.isEmpty()) return;
+
+        String DELETE_LINKS_FROM = "DELETE FROM notes_to_notes WHERE linker_id IN (:linker_ids)";
+        this.namedParameterJdbcTemplate
+                .update(DELETE_LINKS_FROM, new MapSqlParameterSource("linker_ids", linkerIds));
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.springwebnotebook.repository;
+
+// what a note list shows: id, title and the start of the content, read without the content column
+public class NotePreview {
+    // characters of content kept in notes.preview
+    public static final int LENGTH = 500;
+
+    private final Long id;
+    private final String title;
+    private final String preview;
+    private final int contentLength;
+
+    public NotePreview(Long id, String title, String preview, int contentLength) {
+        this.id = id;
+        this.title = title;
+        this.preview = preview;
+        this.contentLength = contentLength;
+    }
+
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getPreview() { return preview; }
+    public int getContentLength() { return contentLength; }
+
+    // the preview with "..." in place of its last characters when the content goes on
+    public String getExcerpt() {
+        if (preview == null || contentLength <= preview.length()) return preview;
+        return preview.substring(0, preview.length() - 3) + "...";
+    }
+
+    // the stored preview of a content: its first LENGTH characters, without splitting a surrogate pair
+    public static String previewOf(String content) {
+        if (content == null || content.length() <= LENGTH) return content;
+        int end = Character.isHighSurrogate(content.charAt(LENGTH - 1)) ? LENGTH - 1 : LENGTH;
+        return content.substring(0, end);
+    }
+
+    public static int lengthOf(String content) {
+        return content == null ? 0 : content.length();
+    }
+}
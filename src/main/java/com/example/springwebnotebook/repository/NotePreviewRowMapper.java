@@ -0,0 +1,24 @@
+package com.example.springwebnotebook.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// expects id, title, content_length, preview and content, the latter selected only where preview is NULL
+public class NotePreviewRowMapper implements RowMapper<NotePreview> {
+    @Override
+    public NotePreview mapRow(ResultSet rs, int rowNum) throws SQLException {
+        String preview = rs.getString("preview");
+        int contentLength = rs.getInt("content_length");
+
+        // rows written before the preview column existed
+        if (preview == null) {
+            String content = ContentCodec.decode(rs.getString("content"));
+            preview = NotePreview.previewOf(content);
+            contentLength = NotePreview.lengthOf(content);
+        }
+
+        return new NotePreview(rs.getLong("id"), rs.getString("title"), preview, contentLength);
+    }
+}
@@ -2,25 +2,51 @@ package com.example.springwebnotebook.repository;
 
 import com.example.springwebnotebook.model.Note;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// the INotesDAO services get by default; the logstore profile swaps in NoteRepositoryLogStore
 @Repository
+@Primary
+@Profile("!logstore")
 public class NoteRepositoryJdbcClient implements INotesDAO {
 
     private final JdbcClient jdbcClient;
+    private final JdbcClient streamingJdbcClient;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final NotesRowMapper noteRowMapper = new NotesRowMapper();
+    private final NotePreviewRowMapper previewRowMapper = new NotePreviewRowMapper();
+    private final ContentCodec contentCodec;
 
     @Autowired
-    public NoteRepositoryJdbcClient(DataSource dataSource) {
+    public NoteRepositoryJdbcClient(DataSource dataSource,
+                                    @Value("${notes.export.fetch-size:-2147483648}") int streamingFetchSize,
+                                    @Value("${notes.content.compress-threshold:4096}") int compressThreshold) {
+        this.contentCodec = new ContentCodec(compressThreshold);
         this.jdbcClient = JdbcClient.create(dataSource);
+        // JdbcClient has no batch API
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+        // MySQL only streams rows (instead of buffering the whole result) with fetch size Integer.MIN_VALUE
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        streamingTemplate.setFetchSize(streamingFetchSize);
+        this.streamingJdbcClient = JdbcClient.create(streamingTemplate);
     }
 
     @Override
@@ -32,6 +58,79 @@ public class NoteRepositoryJdbcClient implements INotesDAO {
                 .list();
     }
 
+    @Override
+    public List<LinkPair> findAllSummaries() {
+        String SELECT_SUMMARIES = "SELECT id, title FROM notes ORDER BY id";
+
+        return jdbcClient.sql(SELECT_SUMMARIES)
+                .query((rs, rowNum) -> new LinkPair(rs.getLong("id"), rs.getString("title")))
+                .list();
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        String EXISTS_NOTE = "SELECT EXISTS(SELECT 1 FROM notes WHERE id = :id)";
+
+        return jdbcClient.sql(EXISTS_NOTE)
+                .param("id", id)
+                .query(Boolean.class)
+                .single();
+    }
+
+    @Override
+    public Optional<Long> findVersion(Long id) {
+        String SELECT_VERSION = "SELECT version FROM notes WHERE id = :id";
+
+        return jdbcClient.sql(SELECT_VERSION)
+                .param("id", id)
+                .query(Long.class)
+                .optional();
+    }
+
+    @Override
+    public List<Note> findPage(Optional<String> titleFilter, long offset, int limit) {
+        Optional<String> pattern = TitleFilter.containsPattern(titleFilter);
+        String SELECT_PAGE = "SELECT * FROM notes "
+                + (pattern.isPresent() ? "WHERE " + TitleFilter.LIKE_CLAUSE + " " : "")
+                + "ORDER BY id LIMIT :limit OFFSET :offset";
+
+        JdbcClient.StatementSpec statement = jdbcClient.sql(SELECT_PAGE)
+                .param("limit", limit)
+                .param("offset", offset);
+        pattern.ifPresent(p -> statement.param("title", p));
+
+        return statement.query(noteRowMapper).list();
+    }
+
+    @Override
+    public List<Note> findPageAfter(Optional<String> titleFilter, Long afterId, int limit) {
+        Optional<String> pattern = TitleFilter.containsPattern(titleFilter);
+        String SELECT_PAGE_AFTER = "SELECT * FROM notes WHERE id > :after "
+                + (pattern.isPresent() ? "AND " + TitleFilter.LIKE_CLAUSE + " " : "")
+                + "ORDER BY id LIMIT :limit";
+
+        JdbcClient.StatementSpec statement = jdbcClient.sql(SELECT_PAGE_AFTER)
+                .param("after", afterId)
+                .param("limit", limit);
+        pattern.ifPresent(p -> statement.param("title", p));
+
+        return statement.query(noteRowMapper).list();
+    }
+
+    @Override
+    public List<NotePreview> findPreviewsAfter(Long afterId, int limit) {
+        // content only for rows that have no preview yet
+        String SELECT_PREVIEWS_AFTER = "SELECT id, title, content_length, preview, "
+                + "CASE WHEN preview IS NULL THEN content END AS content "
+                + "FROM notes WHERE id > :after ORDER BY id LIMIT :limit";
+
+        return jdbcClient.sql(SELECT_PREVIEWS_AFTER)
+                .param("after", afterId)
+                .param("limit", limit)
+                .query(previewRowMapper)
+                .list();
+    }
+
     @Override
     public Optional<Note> findById(Number id) {
         String SELECT_NOTES_WITH_ID = "SELECT * FROM Notes WHERE id = :id";
@@ -43,57 +142,176 @@ public class NoteRepositoryJdbcClient implements INotesDAO {
     }
 
     @Override
-    public Optional<Note> findByShareKey(String shareKey) {
-        String SELECT_NOTES_WITH_ID = "SELECT * FROM Notes WHERE share_key = :shareKey";
+    public List<Note> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
 
-        return jdbcClient.sql(SELECT_NOTES_WITH_ID)
-                .param("shareKey", shareKey)
+        String SELECT_NOTES_WITH_IDS = "SELECT * FROM notes WHERE id IN (:ids)";
+
+        return jdbcClient.sql(SELECT_NOTES_WITH_IDS)
+                .param("ids", ids)
                 .query(noteRowMapper)
-                .optional();
+                .list();
+    }
+
+    @Override
+    public Stream<Note> streamAll() {
+        String SELECT_ALL_NOTES = "SELECT * FROM notes ORDER BY id";
+
+        return streamingJdbcClient.sql(SELECT_ALL_NOTES)
+                .query(noteRowMapper)
+                .stream();
     }
 
     @Override
     public Number create(Note note) {
         String CREATE_NOTE = """
-                INSERT INTO Notes (title, content, share_key)
-                VALUES (:title, :content, :shareKey)
+                INSERT INTO Notes (title, content, content_length, preview)
+                VALUES (:title, :content, :contentLength, :preview)
                 """;
         KeyHolder KeyHolder = new GeneratedKeyHolder();
 
-        return jdbcClient.sql(CREATE_NOTE)
+        jdbcClient.sql(CREATE_NOTE)
                 .params(Map.of(
                         "title", note.getTitle(),
-                        "content", note.getContent(),
-                        "shareKey", note.getShareKey()
+                        "content", contentCodec.encode(note.getContent()),
+                        "contentLength", NotePreview.lengthOf(note.getContent()),
+                        "preview", NotePreview.previewOf(note.getContent())
                 ))
-                .update(KeyHolder);
+                .update(KeyHolder, "id");
+        // update(...) returns the row count, the new id is in the key holder
+        return KeyHolder.getKeyList().get(0).values().iterator().next() instanceof Number id ? id : 0;
     }
 
     @Override
-    public Note update(Note note) {
+    public void restoreAll(List<Note> notes) {
+        if (notes.isEmpty()) return;
+
+        String RESTORE_NOTE = """
+                INSERT INTO Notes (id, title, content, content_length, preview)
+                VALUES (:id, :title, :content, :contentLength, :preview)
+                """;
+        namedParameterJdbcTemplate.batchUpdate(RESTORE_NOTE, notesBatch(notes));
+    }
+
+    @Override
+    public List<Long> createAll(List<Note> notes) {
+        if (notes.isEmpty()) return List.of();
+
+        String CREATE_NOTE = "INSERT INTO Notes (title, content, content_length, preview) "
+                + "VALUES (:title, :content, :contentLength, :preview)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.batchUpdate(CREATE_NOTE, notesBatch(notes), keyHolder, new String[]{"id"});
+
+        // drivers name the key column differently (GENERATED_KEY in MySQL, ID in H2)
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    @Override
+    public int[] updateAll(List<Note> notes) {
+        if (notes.isEmpty()) return new int[0];
+
+        // a batch shares one statement, so the optional version check is done with COALESCE
+        String UPDATE_NOTE = "UPDATE Notes SET title = :title, content = :content, content_length = :contentLength, "
+                + "preview = :preview, version = version + 1 WHERE id = :id AND version = COALESCE(:version, version)";
+        return namedParameterJdbcTemplate.batchUpdate(UPDATE_NOTE, notesBatch(notes));
+    }
+
+    @Override
+    public int[] deleteAll(List<Long> ids) {
+        if (ids.isEmpty()) return new int[0];
+
+        String DELETE_NOTE = "DELETE FROM Notes WHERE id = :id";
+        SqlParameterSource[] batch = ids.stream()
+                .map(id -> new MapSqlParameterSource("id", id))
+                .toArray(SqlParameterSource[]::new);
+        return namedParameterJdbcTemplate.batchUpdate(DELETE_NOTE, batch);
+    }
+
+    private SqlParameterSource[] notesBatch(List<Note> notes) {
+        return notes.stream()
+                .map(note -> new MapSqlParameterSource()
+                        .addValue("id", note.getId())
+                        .addValue("title", note.getTitle())
+                        .addValue("content", contentCodec.encode(note.getContent()))
+                        .addValue("contentLength", NotePreview.lengthOf(note.getContent()))
+                        .addValue("preview", NotePreview.previewOf(note.getContent()))
+                        .addValue("version", note.getVersion()))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    @Override
+    public int update(Note note) {
         String UPDATE_NOTE = """
                     UPDATE Notes
                     SET title = :title,
-                        content = :content
+                        content = :content,
+                        content_length = :contentLength,
+                        preview = :preview,
+                        version = version + 1
                     WHERE id = :id
-                """;
-        jdbcClient.sql(UPDATE_NOTE)
-                .params(Map.of(
-                        "title", note.getTitle(),
-                        "content", note.getContent(),
-                        "id", note.getId()
-                ))
-                .update();
+                """ + (note.getVersion() != null ? " AND version = :version" : "");
 
-        Optional<Note> updated = findById(note.getId());
-        return updated.orElse(null);
+        JdbcClient.StatementSpec statement = jdbcClient.sql(UPDATE_NOTE)
+                .param("title", note.getTitle())
+                .param("content", contentCodec.encode(note.getContent()))
+                .param("contentLength", NotePreview.lengthOf(note.getContent()))
+                .param("preview", NotePreview.previewOf(note.getContent()))
+                .param("id", note.getId());
+        if (note.getVersion() != null) statement.param("version", note.getVersion());
+        return statement.update();
     }
 
     @Override
-    public void delete(Long id) {
-        String DELETE_NOTE = "DELETE FROM Notes WHERE id = :id";
-        jdbcClient.sql(DELETE_NOTE)
-                .param("id", id)
-                .update();
+    public int updateContent(Long id, String content, Long expectedVersion) {
+        String UPDATE_CONTENT = "UPDATE Notes SET content = :content, content_length = :contentLength, "
+                + "preview = :preview, version = version + 1 WHERE id = :id"
+                + (expectedVersion != null ? " AND version = :version" : "");
+
+        JdbcClient.StatementSpec statement = jdbcClient.sql(UPDATE_CONTENT)
+                .param("content", contentCodec.encode(content))
+                .param("contentLength", NotePreview.lengthOf(content))
+                .param("preview", NotePreview.previewOf(content))
+                .param("id", id);
+        if (expectedVersion != null) statement.param("version", expectedVersion);
+        return statement.update();
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        String DELETE_NOTE = "DELETE FROM Notes WHERE id = :id"
+                + (expectedVersion != null ? " AND version = :version" : "");
+
+        JdbcClient.StatementSpec statement = jdbcClient.sql(DELETE_NOTE)
+                .param("id", id);
+        if (expectedVersion != null) statement.param("version", expectedVersion);
+        return statement.update();
+    }
+
+    @Override
+    public List<Note> findUncompressed(Long afterId, int minLength, int limit) {
+        String SELECT_UNCOMPRESSED = "SELECT * FROM notes WHERE id > :after "
+                + "AND CHAR_LENGTH(content) >= :minLength AND content NOT LIKE :deflated "
+                + "ORDER BY id LIMIT :limit";
+
+        return jdbcClient.sql(SELECT_UNCOMPRESSED)
+                .param("after", afterId)
+                .param("minLength", minLength)
+                .param("deflated", ContentCodec.DEFLATED + "%")
+                .param("limit", limit)
+                .query(noteRowMapper)
+                .list();
+    }
+
+    @Override
+    public int[] rewriteContent(List<Note> notes) {
+        if (notes.isEmpty()) return new int[0];
+
+        // same logical content, so the version is matched but not bumped; rows from before the
+        // preview column get theirs on the way
+        String REWRITE_CONTENT = "UPDATE Notes SET content = :content, content_length = :contentLength, "
+                + "preview = :preview WHERE id = :id AND version = :version";
+        return namedParameterJdbcTemplate.batchUpdate(REWRITE_CONTENT, notesBatch(notes));
     }
 }
@@ -2,32 +2,57 @@ package com.example.springwebnotebook.repository;
 
 import com.example.springwebnotebook.model.Note;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Repository
+@Profile("!logstore")
 public class NoteRepositoryJdbcTemplate implements INotesDAO {
 
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final SimpleJdbcInsert simpleJdbcInsert;
     private final NotesRowMapper noteRowMapper = new NotesRowMapper();
+    private final NotePreviewRowMapper previewRowMapper = new NotePreviewRowMapper();
+    private final ContentCodec contentCodec;
+
+    // BeanPropertyRowMapper copies the stored content as is, the codec turns it into (lazy) text
+    private final BeanPropertyRowMapper<Note> beanRowMapper = new BeanPropertyRowMapper<>(Note.class);
+    private final RowMapper<Note> beanContentRowMapper = (rs, rowNum) -> {
+        Note note = beanRowMapper.mapRow(rs, rowNum);
+        ContentCodec.setContent(note, note.getContent());
+        return note;
+    };
 
     @Autowired
-    public NoteRepositoryJdbcTemplate(DataSource dataSource) {
+    public NoteRepositoryJdbcTemplate(DataSource dataSource,
+                                      @Value("${notes.export.fetch-size:-2147483648}") int streamingFetchSize,
+                                      @Value("${notes.content.compress-threshold:4096}") int compressThreshold) {
+        this.contentCodec = new ContentCodec(compressThreshold);
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(streamingFetchSize);
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
         this.simpleJdbcInsert = new SimpleJdbcInsert(dataSource)
                 .withTableName("Notes")
+                // only the written columns, so version (and any later column) takes its default
+                .usingColumns("title", "content", "content_length", "preview")
                 .usingGeneratedKeyColumns("id");
     }
 
@@ -45,6 +70,72 @@ public class NoteRepositoryJdbcTemplate implements INotesDAO {
         return notes;
     }
 
+    @Override
+    public List<LinkPair> findAllSummaries() {
+        String SELECT_SUMMARIES = "select id, title from Notes order by id";
+        return this.jdbcTemplate.query(SELECT_SUMMARIES,
+                (rs, rowNum) -> new LinkPair(rs.getLong("id"), rs.getString("title")));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        String EXISTS_NOTE = "select exists(select 1 from Notes where id = :id)";
+        SqlParameterSource namedParameters = new MapSqlParameterSource("id", id);
+
+        return Boolean.TRUE.equals(this.namedParameterJdbcTemplate
+                .queryForObject(EXISTS_NOTE, namedParameters, Boolean.class));
+    }
+
+    @Override
+    public Optional<Long> findVersion(Long id) {
+        String SELECT_VERSION = "select version from Notes where id = :id";
+        SqlParameterSource namedParameters = new MapSqlParameterSource("id", id);
+
+        return this.namedParameterJdbcTemplate.queryForList(SELECT_VERSION, namedParameters, Long.class)
+                .stream().findFirst();
+    }
+
+    @Override
+    public List<Note> findPage(Optional<String> titleFilter, long offset, int limit) {
+        Optional<String> pattern = TitleFilter.containsPattern(titleFilter);
+        String SELECT_PAGE = "select * from Notes "
+                + (pattern.isPresent() ? "where " + TitleFilter.LIKE_CLAUSE + " " : "")
+                + "order by id limit :limit offset :offset";
+        MapSqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        pattern.ifPresent(p -> namedParameters.addValue("title", p));
+
+        return this.namedParameterJdbcTemplate.query(SELECT_PAGE, namedParameters, noteRowMapper);
+    }
+
+    @Override
+    public List<Note> findPageAfter(Optional<String> titleFilter, Long afterId, int limit) {
+        Optional<String> pattern = TitleFilter.containsPattern(titleFilter);
+        String SELECT_PAGE_AFTER = "select * from Notes where id > :after "
+                + (pattern.isPresent() ? "and " + TitleFilter.LIKE_CLAUSE + " " : "")
+                + "order by id limit :limit";
+        MapSqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("after", afterId)
+                .addValue("limit", limit);
+        pattern.ifPresent(p -> namedParameters.addValue("title", p));
+
+        return this.namedParameterJdbcTemplate.query(SELECT_PAGE_AFTER, namedParameters, noteRowMapper);
+    }
+
+    @Override
+    public List<NotePreview> findPreviewsAfter(Long afterId, int limit) {
+        // content only for rows that have no preview yet
+        String SELECT_PREVIEWS_AFTER = "select id, title, content_length, preview, "
+                + "case when preview is null then content end as content "
+                + "from Notes where id > :after order by id limit :limit";
+        SqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("after", afterId)
+                .addValue("limit", limit);
+
+        return this.namedParameterJdbcTemplate.query(SELECT_PREVIEWS_AFTER, namedParameters, previewRowMapper);
+    }
+
     @Override
     public Optional<Note> findById(Number id) {
         String SELECT_NOTE_WITH_ID = "select * from Notes where id = :id";
@@ -54,7 +145,7 @@ public class NoteRepositoryJdbcTemplate implements INotesDAO {
 
         try{
             note = this.namedParameterJdbcTemplate
-                    .queryForObject(SELECT_NOTE_WITH_ID, namedParameters, new BeanPropertyRowMapper<>(Note.class));
+                    .queryForObject(SELECT_NOTE_WITH_ID, namedParameters, beanContentRowMapper);
         } catch(EmptyResultDataAccessException e){
             System.out.println("No notes found");
         }
@@ -63,19 +154,19 @@ public class NoteRepositoryJdbcTemplate implements INotesDAO {
     }
 
     @Override
-    public Optional<Note> findByShareKey(String shareKey) {
-        String SELECT_NOTE_WITH_SHARE_KEY = "select * from `Notes` where share_key = :shareKey";
-        SqlParameterSource namedParameters = new MapSqlParameterSource("shareKey", shareKey);
-        Note note = null;
+    public List<Note> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
 
-        try{
-            note = this.namedParameterJdbcTemplate
-                    .queryForObject(SELECT_NOTE_WITH_SHARE_KEY, namedParameters, new BeanPropertyRowMapper<>(Note.class));
-        } catch(EmptyResultDataAccessException e){
-            System.out.println("No notes found");
-        }
+        String SELECT_NOTES_WITH_IDS = "select * from Notes where id in (:ids)";
+        SqlParameterSource namedParameters = new MapSqlParameterSource("ids", ids);
 
-        return Optional.ofNullable(note);
+        return this.namedParameterJdbcTemplate.query(SELECT_NOTES_WITH_IDS, namedParameters, noteRowMapper);
+    }
+
+    @Override
+    public Stream<Note> streamAll() {
+        String SELECT_ALL_NOTES = "select * from Notes order by id";
+        return this.streamingJdbcTemplate.queryForStream(SELECT_ALL_NOTES, noteRowMapper);
     }
 
     @Override
@@ -83,37 +174,132 @@ public class NoteRepositoryJdbcTemplate implements INotesDAO {
         Map<String, Object> parameters = new HashMap<>();
 
         parameters.put("title", note.getTitle());
-        parameters.put("content", note.getContent());
-        parameters.put("share_key", note.getShareKey());
+        parameters.put("content", contentCodec.encode(note.getContent()));
+        parameters.put("content_length", NotePreview.lengthOf(note.getContent()));
+        parameters.put("preview", NotePreview.previewOf(note.getContent()));
 
         return this.simpleJdbcInsert.executeAndReturnKey(parameters).longValue();
     }
 
     @Override
-    public Note update(Note note) {
-        String UPDATE_NOTE = "update Notes set title = :title, content = :content where id = :id";
+    public void restoreAll(List<Note> notes) {
+        if (notes.isEmpty()) return;
+
+        String RESTORE_NOTE = "insert into Notes (id, title, content, content_length, preview) "
+                + "values (:id, :title, :content, :contentLength, :preview)";
+        this.namedParameterJdbcTemplate.batchUpdate(RESTORE_NOTE, notesBatch(notes));
+    }
+
+    @Override
+    public List<Long> createAll(List<Note> notes) {
+        if (notes.isEmpty()) return List.of();
+
+        String CREATE_NOTE = "insert into Notes (title, content, content_length, preview) "
+                + "values (:title, :content, :contentLength, :preview)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.namedParameterJdbcTemplate.batchUpdate(CREATE_NOTE, notesBatch(notes), keyHolder, new String[]{"id"});
+
+        // drivers name the key column differently (GENERATED_KEY in MySQL, ID in H2)
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    @Override
+    public int[] updateAll(List<Note> notes) {
+        if (notes.isEmpty()) return new int[0];
+
+        String UPDATE_NOTE = "update Notes set title = :title, content = :content, content_length = :contentLength, "
+                + "preview = :preview, version = version + 1 where id = :id and version = coalesce(:version, version)";
+        return this.namedParameterJdbcTemplate.batchUpdate(UPDATE_NOTE, notesBatch(notes));
+    }
+
+    @Override
+    public int[] deleteAll(List<Long> ids) {
+        if (ids.isEmpty()) return new int[0];
+
+        String DELETE_NOTE = "delete from Notes where id = :id";
+        SqlParameterSource[] batch = ids.stream()
+                .map(id -> new MapSqlParameterSource("id", id))
+                .toArray(SqlParameterSource[]::new);
+        return this.namedParameterJdbcTemplate.batchUpdate(DELETE_NOTE, batch);
+    }
+
+    private SqlParameterSource[] notesBatch(List<Note> notes) {
+        return notes.stream()
+                .map(note -> new MapSqlParameterSource()
+                        .addValue("id", note.getId())
+                        .addValue("title", note.getTitle())
+                        .addValue("content", contentCodec.encode(note.getContent()))
+                        .addValue("contentLength", NotePreview.lengthOf(note.getContent()))
+                        .addValue("preview", NotePreview.previewOf(note.getContent()))
+                        .addValue("version", note.getVersion()))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    @Override
+    public int update(Note note) {
+        String UPDATE_NOTE = "update Notes set title = :title, content = :content, content_length = :contentLength, "
+                + "preview = :preview, version = version + 1 where id = :id"
+                + (note.getVersion() != null ? " and version = :version" : "");
         SqlParameterSource namedParameters = new MapSqlParameterSource()
                 .addValue("title", note.getTitle())
-                .addValue("content", note.getContent())
-                .addValue("id", note.getId());
+                .addValue("content", contentCodec.encode(note.getContent()))
+                .addValue("contentLength", NotePreview.lengthOf(note.getContent()))
+                .addValue("preview", NotePreview.previewOf(note.getContent()))
+                .addValue("id", note.getId())
+                .addValue("version", note.getVersion());
 
-        try{
-            this.namedParameterJdbcTemplate.update(UPDATE_NOTE, namedParameters);
-        } catch(EmptyResultDataAccessException e){
-            System.out.println("No notes found");
-        }
-        return this.findById(note.getId()).orElse(null);
+        return this.namedParameterJdbcTemplate.update(UPDATE_NOTE, namedParameters);
     }
 
     @Override
-    public void delete(Long id) {
-        String DELETE_NOTE = "delete from Notes where id = :id";
-        SqlParameterSource namedParameters = new MapSqlParameterSource("id", id);
+    public int updateContent(Long id, String content, Long expectedVersion) {
+        String UPDATE_CONTENT = "update Notes set content = :content, content_length = :contentLength, "
+                + "preview = :preview, version = version + 1 where id = :id"
+                + (expectedVersion != null ? " and version = :version" : "");
+        SqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("content", contentCodec.encode(content))
+                .addValue("contentLength", NotePreview.lengthOf(content))
+                .addValue("preview", NotePreview.previewOf(content))
+                .addValue("id", id)
+                .addValue("version", expectedVersion);
 
-        try{
-            this.namedParameterJdbcTemplate.update(DELETE_NOTE, namedParameters);
-        } catch(EmptyResultDataAccessException e){
-            System.out.println("No notes found");
-        }
+        return this.namedParameterJdbcTemplate.update(UPDATE_CONTENT, namedParameters);
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        String DELETE_NOTE = "delete from Notes where id = :id"
+                + (expectedVersion != null ? " and version = :version" : "");
+        SqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("version", expectedVersion);
+
+        return this.namedParameterJdbcTemplate.update(DELETE_NOTE, namedParameters);
+    }
+
+    @Override
+    public List<Note> findUncompressed(Long afterId, int minLength, int limit) {
+        String SELECT_UNCOMPRESSED = "select * from Notes where id > :after "
+                + "and char_length(content) >= :minLength and content not like :deflated "
+                + "order by id limit :limit";
+        SqlParameterSource namedParameters = new MapSqlParameterSource()
+                .addValue("after", afterId)
+                .addValue("minLength", minLength)
+                .addValue("deflated", ContentCodec.DEFLATED + "%")
+                .addValue("limit", limit);
+
+        return this.namedParameterJdbcTemplate.query(SELECT_UNCOMPRESSED, namedParameters, noteRowMapper);
+    }
+
+    @Override
+    public int[] rewriteContent(List<Note> notes) {
+        if (notes.isEmpty()) return new int[0];
+
+        // rows from before the preview column get theirs on the way
+        String REWRITE_CONTENT = "update Notes set content = :content, content_length = :contentLength, "
+                + "preview = :preview where id = :id and version = :version";
+        return this.namedParameterJdbcTemplate.batchUpdate(REWRITE_CONTENT, notesBatch(notes));
     }
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.example.springwebnotebook.repository;
+
+import com.example.springwebnotebook.logstore.LogStore;
+import com.example.springwebnotebook.logstore.StoredNote;
+import com.example.springwebnotebook.model.Note;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// INotesDAO on the embedded log store (logstore profile)
+@Repository
+@Profile("logstore")
+public class NoteRepositoryLogStore implements INotesDAO {
+
+    private static final int STREAM_PAGE = 256;
+
+    private final LogStore store;
+    private final ContentCodec contentCodec;
+
+    @Autowired
+    public NoteRepositoryLogStore(LogStore store,
+                                  @Value("${notes.content.compress-threshold:4096}") int compressThreshold) {
+        this.store = store;
+        this.contentCodec = new ContentCodec(compressThreshold);
+    }
+
+    @Override
+    public List<Note> findAll() {
+        return store.scan(0, 0, Integer.MAX_VALUE, null, true).stream().map(this::toNote).toList();
+    }
+
+    @Override
+    public List<LinkPair> findAllSummaries() {
+        return store.scan(0, 0, Integer.MAX_VALUE, null, false).stream()
+                .map(note -> new LinkPair(note.getId(), note.getTitle()))
+                .toList();
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && store.exists(id);
+    }
+
+    @Override
+    public Optional<Long> findVersion(Long id) {
+        long version = id == null ? -1 : store.version(id);
+        return version < 0 ? Optional.empty() : Optional.of(version);
+    }
+
+    @Override
+    public List<Note> findPage(Optional<String> titleFilter, long offset, int limit) {
+        return store.scan(0, offset, limit, titleMatcher(titleFilter), true).stream().map(this::toNote).toList();
+    }
+
+    @Override
+    public List<Note> findPageAfter(Optional<String> titleFilter, Long afterId, int limit) {
+        return store.scan(afterId, 0, limit, titleMatcher(titleFilter), true).stream().map(this::toNote).toList();
+    }
+
+    // the log store keeps no preview, it is cut from the content
+    @Override
+    public List<NotePreview> findPreviewsAfter(Long afterId, int limit) {
+        return store.scan(afterId, 0, limit, null, true).stream()
+                .map(this::toNote)
+                .map(note -> new NotePreview(note.getId(), note.getTitle(),
+                        NotePreview.previewOf(note.getContent()), NotePreview.lengthOf(note.getContent())))
+                .toList();
+    }
+
+    @Override
+    public Optional<Note> findById(Number id) {
+        return Optional.ofNullable(store.get(id.longValue())).map(this::toNote);
+    }
+
+    @Override
+    public List<Note> findAllByIds(Collection<Long> ids) {
+        return ids.stream().map(store::get).filter(Objects::nonNull).map(this::toNote).toList();
+    }
+
+    // pages of STREAM_PAGE notes, read as the stream is consumed
+    @Override
+    public Stream<Note> streamAll() {
+        return Stream.iterate(
+                        store.scan(0, 0, STREAM_PAGE, null, true),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < STREAM_PAGE ? List.of()
+                                : store.scan(page.get(page.size() - 1).getId(), 0, STREAM_PAGE, null, true))
+                .flatMap(List::stream)
+                .map(this::toNote);
+    }
+
+    @Override
+    public Number create(Note note) {
+        return store.insert(null, note.getTitle(), contentCodec.encode(note.getContent()));
+    }
+
+    @Override
+    public void restoreAll(List<Note> notes) {
+        for (Note note : notes) {
+            store.insert(note.getId(), note.getTitle(), contentCodec.encode(note.getContent()));
+        }
+    }
+
+    @Override
+    public List<Long> createAll(List<Note> notes) {
+        return notes.stream().map(note -> create(note).longValue()).toList();
+    }
+
+    @Override
+    public int[] updateAll(List<Note> notes) {
+        return notes.stream().mapToInt(this::update).toArray();
+    }
+
+    @Override
+    public int[] deleteAll(List<Long> ids) {
+        return ids.stream().mapToInt(id -> store.delete(id, null)).toArray();
+    }
+
+    @Override
+    public int update(Note note) {
+        return store.update(note.getId(), note.getTitle(), contentCodec.encode(note.getContent()), note.getVersion());
+    }
+
+    @Override
+    public int updateContent(Long id, String content, Long expectedVersion) {
+        return store.update(id, null, contentCodec.encode(content), expectedVersion);
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        return store.delete(id, expectedVersion);
+    }
+
+    // every write goes through the codec, there are no rows from before compression
+    @Override
+    public List<Note> findUncompressed(Long afterId, int minLength, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public int[] rewriteContent(List<Note> notes) {
+        return new int[notes.size()];
+    }
+
+    private Note toNote(StoredNote stored) {
+        Note note = new Note();
+        note.setId(stored.getId());
+        note.setTitle(stored.getTitle());
+        note.setVersion(stored.getVersion());
+        ContentCodec.setContent(note, stored.getContent());
+        return note;
+    }
+
+    // case-insensitive "contains", like TitleFilter's LIKE pattern
+    private static Predicate<String> titleMatcher(Optional<String> titleFilter) {
+        return titleFilter
+                .filter(title -> !title.isBlank())
+                .map(title -> title.toLowerCase(Locale.ROOT))
+                .<Predicate<String>>map(needle -> title -> title.toLowerCase(Locale.ROOT).contains(needle))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.springwebnotebook.repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+// One row of note_revisions. body is the full content for snapshots and an encoded delta against
+// the previous revision otherwise; storedSize is its length, listings leave the body itself out.
+public class NoteRevision {
+    private long noteId;
+    private long version;
+    private boolean snapshot;
+    private String title;
+    private String body;
+    private int storedSize;
+    private Instant createdAt;
+
+    public long getNoteId() { return noteId; }
+    public void setNoteId(long noteId) { this.noteId = noteId; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isSnapshot() { return snapshot; }
+    public void setSnapshot(boolean snapshot) { this.snapshot = snapshot; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    @JsonIgnore
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public int getStoredSize() { return storedSize; }
+    public void setStoredSize(int storedSize) { this.storedSize = storedSize; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,115 @@
+package com.example.springwebnotebook.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Repository
+@Profile("!logstore")
+public class NoteRevisionsRepository implements INoteRevisionsDAO {
+
+    private final JdbcClient jdbcClient;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    public NoteRevisionsRepository(DataSource dataSource) {
+        this.jdbcClient = JdbcClient.create(dataSource);
+        // JdbcClient has no batch API
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<NoteRevision> findAll(Long noteId) {
+        String SELECT_REVISIONS = """
+                SELECT note_id, version, snapshot, title, NULL AS body, CHAR_LENGTH(body) AS stored_size, created_at
+                FROM note_revisions WHERE note_id = :noteId ORDER BY version DESC
+                """;
+
+        return jdbcClient.sql(SELECT_REVISIONS)
+                .param("noteId", noteId)
+                .query(revisionRowMapper())
+                .list();
+    }
+
+    @Override
+    public List<NoteRevision> findChain(Long noteId, long version) {
+        String SELECT_CHAIN = """
+                SELECT note_id, version, snapshot, title, body, CHAR_LENGTH(body) AS stored_size, created_at
+                FROM note_revisions
+                WHERE note_id = :noteId AND version <= :version
+                  AND version >= (SELECT MAX(version) FROM note_revisions
+                                  WHERE note_id = :noteId AND version <= :version AND snapshot)
+                ORDER BY version
+                """;
+
+        return jdbcClient.sql(SELECT_CHAIN)
+                .param("noteId", noteId)
+                .param("version", version)
+                .query(revisionRowMapper())
+                .list();
+    }
+
+    @Override
+    public Map<Long, List<NoteRevision>> findLatestChains(Collection<Long> noteIds) {
+        if (noteIds.isEmpty()) return Map.of();
+
+        String SELECT_CHAINS = """
+                SELECT r.note_id, r.version, r.snapshot, r.title, r.body, CHAR_LENGTH(r.body) AS stored_size, r.created_at
+                FROM note_revisions r
+                WHERE r.note_id IN (:noteIds)
+                  AND r.version >= (SELECT MAX(s.version) FROM note_revisions s
+                                    WHERE s.note_id = r.note_id AND s.snapshot)
+                ORDER BY r.note_id, r.version
+                """;
+
+        return jdbcClient.sql(SELECT_CHAINS)
+                .param("noteIds", noteIds)
+                .query(revisionRowMapper())
+                .list()
+                .stream()
+                .collect(Collectors.groupingBy(NoteRevision::getNoteId, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    @Override
+    public int[] addAll(List<NoteRevision> revisions) {
+        if (revisions.isEmpty()) return new int[0];
+
+        String INSERT_REVISION = """
+                INSERT INTO note_revisions (note_id, version, snapshot, title, body)
+                SELECT id, version, :snapshot, :title, :body FROM notes WHERE id = :noteId
+                """;
+        SqlParameterSource[] batch = revisions.stream()
+                .map(revision -> new MapSqlParameterSource()
+                        .addValue("noteId", revision.getNoteId())
+                        .addValue("snapshot", revision.isSnapshot())
+                        .addValue("title", revision.getTitle())
+                        .addValue("body", revision.getBody()))
+                .toArray(SqlParameterSource[]::new);
+        return namedParameterJdbcTemplate.batchUpdate(INSERT_REVISION, batch);
+    }
+
+    private static RowMapper<NoteRevision> revisionRowMapper() {
+        return (rs, rowNum) -> {
+            NoteRevision revision = new NoteRevision();
+            revision.setNoteId(rs.getLong("note_id"));
+            revision.setVersion(rs.getLong("version"));
+            revision.setSnapshot(rs.getBoolean("snapshot"));
+            revision.setTitle(rs.getString("title"));
+            revision.setBody(rs.getString("body"));
+            revision.setStoredSize(rs.getInt("stored_size"));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            revision.setCreatedAt(createdAt != null ? createdAt.toInstant() : null);
+            return revision;
+        };
+    }
+}
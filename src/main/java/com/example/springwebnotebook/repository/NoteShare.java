@@ -0,0 +1,44 @@
+package com.example.springwebnotebook.repository;
+
+import com.example.springwebnotebook.model.Note;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+// One row of note_shares: a share link of a note. expiresAt null never expires; a revoked link
+// keeps its row (and access count) with revokedAt set. note is only filled by findActive.
+public class NoteShare {
+    private String shareKey;
+    private long noteId;
+    private Instant createdAt;
+    private Instant expiresAt;
+    private Instant revokedAt;
+    private long accessCount;
+    private Note note;
+
+    public String getShareKey() { return shareKey; }
+    public void setShareKey(String shareKey) { this.shareKey = shareKey; }
+
+    public long getNoteId() { return noteId; }
+    public void setNoteId(long noteId) { this.noteId = noteId; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public Instant getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
+
+    public long getAccessCount() { return accessCount; }
+    public void setAccessCount(long accessCount) { this.accessCount = accessCount; }
+
+    @JsonIgnore
+    public Note getNote() { return note; }
+    public void setNote(Note note) { this.note = note; }
+
+    public boolean isActiveAt(Instant now) {
+        return revokedAt == null && (expiresAt == null || expiresAt.isAfter(now));
+    }
+}
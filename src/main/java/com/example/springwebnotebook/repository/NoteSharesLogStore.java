@@ -0,0 +1,135 @@
+package com.example.springwebnotebook.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+// INoteSharesDAO for the logstore profile. Share links change rarely, so they are held in memory
+// and every change rewrites shares.json next to the log (write to a temporary file, then rename).
+// Links of deleted notes are dropped with the next rewrite.
+@Repository
+@Profile("logstore")
+public class NoteSharesLogStore implements INoteSharesDAO {
+
+    private final INotesDAO noteRepository;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Map<String, NoteShare> shares = new HashMap<>();
+
+    @Autowired
+    public NoteSharesLogStore(INotesDAO noteRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${notes.logstore.dir:data/logstore}") Path directory) throws IOException {
+        this.noteRepository = noteRepository;
+        this.objectMapper = objectMapper;
+        this.file = directory.resolve("shares.json");
+        if (Files.exists(file)) {
+            List<NoteShare> stored = objectMapper.readValue(file.toFile(), new TypeReference<>() {});
+            for (NoteShare share : stored) shares.put(share.getShareKey(), share);
+        }
+    }
+
+    @Override
+    public synchronized void create(NoteShare share) {
+        restoreAll(List.of(share));
+    }
+
+    @Override
+    public synchronized void restoreAll(Collection<NoteShare> added) {
+        for (NoteShare share : added) {
+            if (!noteRepository.existsById(share.getNoteId())) {
+                throw new DataIntegrityViolationException("Note " + share.getNoteId() + " does not exist");
+            }
+            if (shares.containsKey(share.getShareKey())) throw new DuplicateKeyException("Share key is already in use");
+        }
+        for (NoteShare share : added) shares.put(share.getShareKey(), copy(share));
+        save();
+    }
+
+    @Override
+    public synchronized Optional<NoteShare> findActive(String shareKey, Instant now) {
+        NoteShare share = shares.get(shareKey);
+        if (share == null || !share.isActiveAt(now)) return Optional.empty();
+        return noteRepository.findById(share.getNoteId()).map(note -> {
+            NoteShare found = copy(share);
+            found.setNote(note);
+            return found;
+        });
+    }
+
+    @Override
+    public synchronized List<NoteShare> findByNote(Long noteId) {
+        return shares.values().stream()
+                .filter(share -> share.getNoteId() == noteId)
+                .sorted(Comparator.comparing(NoteShare::getCreatedAt).reversed().thenComparing(NoteShare::getShareKey))
+                .map(NoteSharesLogStore::copy)
+                .toList();
+    }
+
+    @Override
+    public synchronized int revoke(Long noteId, String shareKey, Instant at) {
+        NoteShare share = shares.get(shareKey);
+        if (share == null || share.getNoteId() != noteId || share.getRevokedAt() != null) return 0;
+        share.setRevokedAt(at);
+        save();
+        return 1;
+    }
+
+    @Override
+    public synchronized void addAccessCounts(Map<String, Long> counts) {
+        boolean changed = false;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            NoteShare share = shares.get(entry.getKey());
+            if (share == null) continue;
+            share.setAccessCount(share.getAccessCount() + entry.getValue());
+            changed = true;
+        }
+        if (changed) save();
+    }
+
+    @Override
+    public synchronized Stream<NoteShare> streamActive(Instant now) {
+        return shares.values().stream()
+                .filter(share -> share.isActiveAt(now))
+                .sorted(Comparator.comparingLong(NoteShare::getNoteId))
+                .map(NoteSharesLogStore::copy)
+                .toList()
+                .stream();
+    }
+
+    private void save() {
+        shares.values().removeIf(share -> !noteRepository.existsById(share.getNoteId()));
+        try {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            objectMapper.writeValue(temporary.toFile(), new ArrayList<>(shares.values()));
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not write " + file, e);
+        }
+    }
+
+    private static NoteShare copy(NoteShare share) {
+        NoteShare copy = new NoteShare();
+        copy.setShareKey(share.getShareKey());
+        copy.setNoteId(share.getNoteId());
+        copy.setCreatedAt(share.getCreatedAt());
+        copy.setExpiresAt(share.getExpiresAt());
+        copy.setRevokedAt(share.getRevokedAt());
+        copy.setAccessCount(share.getAccessCount());
+        return copy;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.springwebnotebook.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("!logstore")
+public class NoteSharesRepository implements INoteSharesDAO {
+
+    private final JdbcClient jdbcClient;
+    // JdbcClient has no batch API
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final NotesRowMapper noteRowMapper = new NotesRowMapper();
+
+    @Autowired
+    public NoteSharesRepository(DataSource dataSource) {
+        this.jdbcClient = JdbcClient.create(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void create(NoteShare share) {
+        restoreAll(List.of(share));
+    }
+
+    @Override
+    public void restoreAll(Collection<NoteShare> shares) {
+        if (shares.isEmpty()) return;
+
+        String INSERT_SHARE = """
+                INSERT INTO note_shares (share_key, note_id, created_at, expires_at, revoked_at, access_count)
+                VALUES (:shareKey, :noteId, :createdAt, :expiresAt, :revokedAt, :accessCount)
+                """;
+        SqlParameterSource[] batch = shares.stream()
+                .map(share -> new MapSqlParameterSource()
+                        .addValue("shareKey", share.getShareKey())
+                        .addValue("noteId", share.getNoteId())
+                        .addValue("createdAt", timestamp(share.getCreatedAt()))
+                        .addValue("expiresAt", timestamp(share.getExpiresAt()))
+                        .addValue("revokedAt", timestamp(share.getRevokedAt()))
+                        .addValue("accessCount", share.getAccessCount()))
+                .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(INSERT_SHARE, batch);
+    }
+
+    // primary key lookup joined with the note row, so serving a link costs one query
+    @Override
+    public Optional<NoteShare> findActive(String shareKey, Instant now) {
+        String SELECT_ACTIVE_SHARE = """
+                SELECT s.share_key, s.note_id, s.created_at, s.expires_at, s.revoked_at, s.access_count,
+                       n.id, n.title, n.content, n.version
+                FROM note_shares s JOIN notes n ON n.id = s.note_id
+                WHERE s.share_key = :shareKey AND s.revoked_at IS NULL
+                  AND (s.expires_at IS NULL OR s.expires_at > :now)
+                """;
+
+        return jdbcClient.sql(SELECT_ACTIVE_SHARE)
+                .param("shareKey", shareKey)
+                .param("now", timestamp(now))
+                .query((rs, rowNum) -> {
+                    NoteShare share = mapShare(rs);
+                    share.setNote(noteRowMapper.mapRow(rs, rowNum));
+                    return share;
+                })
+                .optional();
+    }
+
+    @Override
+    public List<NoteShare> findByNote(Long noteId) {
+        String SELECT_SHARES = """
+                SELECT share_key, note_id, created_at, expires_at, revoked_at, access_count
+                FROM note_shares WHERE note_id = :noteId ORDER BY created_at DESC, share_key
+                """;
+
+        return jdbcClient.sql(SELECT_SHARES)
+                .param("noteId", noteId)
+                .query(shareRowMapper())
+                .list();
+    }
+
+    @Override
+    public int revoke(Long noteId, String shareKey, Instant at) {
+        String REVOKE_SHARE = """
+                UPDATE note_shares SET revoked_at = :at
+                WHERE share_key = :shareKey AND note_id = :noteId AND revoked_at IS NULL
+                """;
+
+        return jdbcClient.sql(REVOKE_SHARE)
+                .param("at", timestamp(at))
+                .param("shareKey", shareKey)
+                .param("noteId", noteId)
+                .update();
+    }
+
+    @Override
+    public void addAccessCounts(Map<String, Long> counts) {
+        if (counts.isEmpty()) return;
+
+        String ADD_ACCESS_COUNT = "UPDATE note_shares SET access_count = access_count + :count WHERE share_key = :shareKey";
+        SqlParameterSource[] batch = counts.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("shareKey", entry.getKey())
+                        .addValue("count", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(ADD_ACCESS_COUNT, batch);
+    }
+
+    @Override
+    public Stream<NoteShare> streamActive(Instant now) {
+        String SELECT_ACTIVE_SHARES = """
+                SELECT share_key, note_id, created_at, expires_at, revoked_at, access_count
+                FROM note_shares
+                WHERE revoked_at IS NULL AND (expires_at IS NULL OR expires_at > :now)
+                ORDER BY note_id
+                """;
+
+        return jdbcClient.sql(SELECT_ACTIVE_SHARES)
+                .param("now", timestamp(now))
+                .query(shareRowMapper())
+                .stream();
+    }
+
+    private static RowMapper<NoteShare> shareRowMapper() {
+        return (rs, rowNum) -> mapShare(rs);
+    }
+
+    private static NoteShare mapShare(ResultSet rs) throws SQLException {
+        NoteShare share = new NoteShare();
+        share.setShareKey(rs.getString("share_key"));
+        share.setNoteId(rs.getLong("note_id"));
+        share.setCreatedAt(instant(rs.getTimestamp("created_at")));
+        share.setExpiresAt(instant(rs.getTimestamp("expires_at")));
+        share.setRevokedAt(instant(rs.getTimestamp("revoked_at")));
+        share.setAccessCount(rs.getLong("access_count"));
+        return share;
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return instant != null ? Timestamp.from(instant) : null;
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
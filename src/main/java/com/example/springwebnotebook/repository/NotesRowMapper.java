@@ -13,8 +13,8 @@ public class NotesRowMapper implements RowMapper<Note> {
 
         note.setId(rs.getLong("id"));
         note.setTitle(rs.getString("title"));
-        note.setContent(rs.getString("content"));
-        note.setShareKey(rs.getString("share_key"));
+        ContentCodec.setContent(note, rs.getString("content"));
+        note.setVersion(rs.getLong("version"));
 
         return note;
     }
@@ -0,0 +1,21 @@
+package com.example.springwebnotebook.repository;
+
+import java.util.Optional;
+
+final class TitleFilter {
+
+    static final String LIKE_CLAUSE = "LOWER(title) LIKE :title ESCAPE '!'";
+
+    private TitleFilter() {}
+
+    // case-insensitive "contains" pattern; LIKE wildcards in the user input are matched literally
+    static Optional<String> containsPattern(Optional<String> title) {
+        return title
+                .filter(t -> !t.isBlank())
+                .map(t -> t.toLowerCase()
+                        .replace("!", "!!")
+                        .replace("%", "!%")
+                        .replace("_", "!_"))
+                .map(t -> "%" + t + "%");
+    }
+}
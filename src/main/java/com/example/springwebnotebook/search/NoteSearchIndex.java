@@ -0,0 +1,267 @@
+package com.example.springwebnotebook.search;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.NotePreview;
+import com.example.springwebnotebook.service.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over note titles and content with BM25 ranking.
+ * Built from the database once the application is ready and kept in sync from
+ * {@link NoteChangedEvent}s, so a search never touches the database: each document
+ * keeps its title and the preview of its content, which hits are highlighted from.
+ * Title terms are weighted higher than content terms (a simplified BM25F).
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_BOOST = 3;
+    private static final int SNIPPET_RADIUS = 80;
+
+    // the frequencies themselves are in the postings, a doc only knows where to remove them
+    // and what a hit shows: snippets come from the first NotePreview.LENGTH characters only
+    private static final class Doc {
+        final int length;
+        final String[] terms;
+        final String title;
+        final String preview;
+        final int contentLength;
+
+        Doc(int length, String[] terms, String title, String preview, int contentLength) {
+            this.length = length;
+            this.terms = terms;
+            this.title = title;
+            this.preview = preview;
+            this.contentLength = contentLength;
+        }
+    }
+
+    private final INotesDAO noteRepository;
+
+    // term -> (note id -> weighted term frequency)
+    private Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private Map<Long, Doc> docs = new HashMap<>();
+    private long totalLength;
+    // while a rebuild reads the notes: id -> latest indexed state (empty: removed), replayed onto the new index
+    private Map<Long, Optional<Note>> changedDuringRebuild;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public NoteSearchIndex(INotesDAO noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    // Builds the new index beside the one that keeps serving queries and swaps it in. Changes
+    // committed while the notes are read may be missing from what was read, so they are replayed.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<String, Map<Long, Integer>> newPostings = new HashMap<>();
+        Map<Long, Doc> newDocs = new HashMap<>();
+        long newLength = 0;
+        boolean complete = false;
+        try (Stream<Note> notes = noteRepository.streamAll()) {
+            for (Note note : (Iterable<Note>) notes::iterator) {
+                newLength += addDocument(newPostings, newDocs, note.getId(), note.getTitle(), note.getContent());
+            }
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                Map<Long, Optional<Note>> changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+                // a failed read keeps the old index
+                if (complete) {
+                    postings = newPostings;
+                    docs = newDocs;
+                    totalLength = newLength;
+                    changed.forEach((id, note) -> {
+                        removeDocument(id);
+                        note.ifPresent(n -> totalLength += addDocument(postings, docs, id, n.getTitle(), n.getContent()));
+                    });
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getType() == NoteChangedEvent.Type.DELETED) {
+            remove(event.getNoteId());
+        } else if (event.getNote() != null) {
+            index(event.getNoteId(), event.getNote().getTitle(), event.getNote().getContent());
+        }
+    }
+
+    public void index(Long id, String title, String content) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            totalLength += addDocument(postings, docs, id, title, content);
+            if (changedDuringRebuild != null) {
+                Note note = new Note();
+                note.setTitle(title);
+                note.setContent(content);
+                changedDuringRebuild.put(id, Optional.of(note));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            if (changedDuringRebuild != null) changedDuringRebuild.put(id, Optional.empty());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(Tokenizer.tokens(query));
+        if (queryTerms.isEmpty() || limit <= 0) return List.of();
+
+        List<Map.Entry<Long, Double>> top;
+        Map<Long, Doc> hitDocs = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) return List.of();
+
+            double avgLength = (double) totalLength / docs.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                if (termPostings == null) continue;
+
+                double df = termPostings.size();
+                double idf = Math.log(1 + (docs.size() - df + 0.5) / (df + 0.5));
+                for (Map.Entry<Long, Integer> posting : termPostings.entrySet()) {
+                    double tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * docs.get(posting.getKey()).length / avgLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                heap.offer(score);
+                if (heap.size() > limit) heap.poll();
+            }
+            top = new ArrayList<>(heap);
+            for (Map.Entry<Long, Double> entry : top) hitDocs.put(entry.getKey(), docs.get(entry.getKey()));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // docs are immutable: highlighting runs outside the lock
+        top.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+        List<SearchHit> hits = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Double> entry : top) {
+            Doc doc = hitDocs.get(entry.getKey());
+            String title = doc.title;
+            hits.add(new SearchHit(entry.getKey(), title, entry.getValue(),
+                    highlight(title, 0, title == null ? 0 : title.length(), queryTerms),
+                    snippet(doc.preview, doc.contentLength, queryTerms)));
+        }
+        return hits;
+    }
+
+    // --- index maintenance (caller holds the write lock, or owns the maps) ---
+
+    // returns the document's length, for the caller's total
+    private static int addDocument(Map<String, Map<Long, Integer>> postings, Map<Long, Doc> docs,
+                                   Long id, String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        Tokenizer.forEachToken(title, (token, start, end) -> frequencies.merge(token, TITLE_BOOST, Integer::sum));
+        Tokenizer.forEachToken(content, (token, start, end) -> frequencies.merge(token, 1, Integer::sum));
+
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(id, entry.getValue());
+            length += entry.getValue();
+        }
+        docs.put(id, new Doc(length, frequencies.keySet().toArray(String[]::new),
+                title, NotePreview.previewOf(content), NotePreview.lengthOf(content)));
+        return length;
+    }
+
+    private void removeDocument(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) return;
+
+        for (String term : doc.terms) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings == null) continue;
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) postings.remove(term);
+        }
+        totalLength -= doc.length;
+    }
+
+    // --- highlighting ---
+
+    // a window around the first match in the preview, or its start when the matches come later in the content
+    private static String snippet(String content, int contentLength, Set<String> queryTerms) {
+        if (content == null || content.isEmpty()) return "";
+
+        int[] firstMatch = {-1};
+        Tokenizer.forEachToken(content, (token, start, end) -> {
+            if (firstMatch[0] < 0 && queryTerms.contains(token)) firstMatch[0] = start;
+        });
+
+        int from = firstMatch[0] < 0 ? 0 : Math.max(0, firstMatch[0] - SNIPPET_RADIUS);
+        int to = Math.min(content.length(), (firstMatch[0] < 0 ? 0 : firstMatch[0]) + SNIPPET_RADIUS * 2);
+        return (from > 0 ? "…" : "") + highlight(content, from, to, queryTerms) + (to < contentLength ? "…" : "");
+    }
+
+    // HTML-escapes text[from, to) and wraps matched query terms in <mark>
+    private static String highlight(String text, int from, int to, Set<String> queryTerms) {
+        if (text == null) return null;
+
+        String window = text.substring(from, to);
+        StringBuilder out = new StringBuilder(window.length() + 32);
+        int[] last = {0};
+        Tokenizer.forEachToken(window, (token, start, end) -> {
+            if (!queryTerms.contains(token)) return;
+            out.append(HtmlUtils.htmlEscape(window.substring(last[0], start)))
+                    .append("<mark>")
+                    .append(HtmlUtils.htmlEscape(window.substring(start, end)))
+                    .append("</mark>");
+            last[0] = end;
+        });
+        out.append(HtmlUtils.htmlEscape(window.substring(last[0])));
+        return out.toString();
+    }
+}
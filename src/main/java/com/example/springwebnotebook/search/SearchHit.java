@@ -0,0 +1,27 @@
+package com.example.springwebnotebook.search;
+
+public class SearchHit {
+    private final Long id;
+    private final String title;
+    private final double score;
+    private final String highlightedTitle;
+    private final String snippet;
+
+    public SearchHit(Long id, String title, double score, String highlightedTitle, String snippet) {
+        this.id = id;
+        this.title = title;
+        this.score = score;
+        this.highlightedTitle = highlightedTitle;
+        this.snippet = snippet;
+    }
+
+    public Long getId() { return id; }
+
+    public String getTitle() { return title; }
+
+    public double getScore() { return score; }
+
+    public String getHighlightedTitle() { return highlightedTitle; }
+
+    public String getSnippet() { return snippet; }
+}
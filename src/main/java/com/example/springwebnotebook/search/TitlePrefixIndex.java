@@ -0,0 +1,104 @@
+package com.example.springwebnotebook.search;
+
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Titles in sorted order for typeahead: the notes whose title starts with a prefix are one
+ * contiguous range, found in O(log n) and read up to the limit. Keys are the lower-cased title
+ * followed by the id, so equal titles stay distinct. Kept in sync from {@link NoteChangedEvent}s.
+ */
+@Component
+public class TitlePrefixIndex {
+
+    private static final char ID_SEPARATOR = '\u0000';
+
+    private final INotesDAO noteRepository;
+
+    // replaced as a whole by rebuild, so readers never see a half-filled index
+    private volatile Titles titles = new Titles();
+
+    @Autowired
+    public TitlePrefixIndex(INotesDAO noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        // put and remove wait for the lock, so no change is lost between the read and the swap
+        Titles rebuilt = new Titles();
+        for (LinkPair summary : noteRepository.findAllSummaries()) rebuilt.put(summary.getId(), summary.getTitle());
+        titles = rebuilt;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getType() == NoteChangedEvent.Type.DELETED) {
+            remove(event.getNoteId());
+        } else if (event.getNote() != null && event.getNote().getTitle() != null) {
+            put(event.getNoteId(), event.getNote().getTitle());
+        }
+    }
+
+    // notes whose title starts with prefix (case-insensitive), alphabetically
+    public List<LinkPair> suggest(String prefix, int limit) {
+        String from = normalize(prefix);
+        // every key with this prefix sorts before prefix + U+FFFF
+        NavigableMap<String, LinkPair> range = titles.byTitle.subMap(from, true, from + Character.MAX_VALUE, false);
+
+        List<LinkPair> suggestions = new ArrayList<>(Math.min(limit, 16));
+        for (LinkPair note : range.values()) {
+            if (suggestions.size() == limit) break;
+            suggestions.add(note);
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return titles.keys.size();
+    }
+
+    private synchronized void put(Long id, String title) {
+        titles.put(id, title);
+    }
+
+    private synchronized void remove(Long id) {
+        titles.remove(id);
+    }
+
+    private static String normalize(String title) {
+        return title.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Titles {
+        private final ConcurrentSkipListMap<String, LinkPair> byTitle = new ConcurrentSkipListMap<>();
+        // note id -> its key in byTitle, to find the old entry when a title changes
+        private final Map<Long, String> keys = new ConcurrentHashMap<>();
+
+        void put(Long id, String title) {
+            String key = normalize(title) + ID_SEPARATOR + id;
+            String previous = keys.put(id, key);
+            if (previous != null && !previous.equals(key)) byTitle.remove(previous);
+            byTitle.put(key, new LinkPair(id, title));
+        }
+
+        void remove(Long id) {
+            String key = keys.remove(id);
+            if (key != null) byTitle.remove(key);
+        }
+    }
+}
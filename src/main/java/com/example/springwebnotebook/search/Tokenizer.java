@@ -0,0 +1,38 @@
+package com.example.springwebnotebook.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Splits text into lowercase runs of letters/digits (works for Latin and Cyrillic alike)
+final class Tokenizer {
+
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    interface TokenConsumer {
+        void accept(String token, int start, int end);
+    }
+
+    private Tokenizer() {}
+
+    static void forEachToken(String text, TokenConsumer consumer) {
+        if (text == null) return;
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start && i - start <= MAX_TOKEN_LENGTH) {
+                consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), start, i);
+            }
+        }
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        forEachToken(text, (token, start, end) -> tokens.add(token));
+        return tokens;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for editor autosaves. Edits of the same note coalesce into one pending
+ * entry, are journaled before they are acknowledged and reach the database as one batch per
+ * flush (on an interval, or early once max-pending notes are waiting).
+ * Every flushed edit is conditional on the version it was based on: an explicit write in
+ * between wins, and the autosaved edit is dropped. Explicit writes also discard pending edits.
+ */
+@Service
+public class AutosaveBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(AutosaveBuffer.class);
+
+    private final INotesDAO noteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AutosaveJournal journal;
+    private final int maxPending;
+
+    private final Map<Long, PendingEdit> pending = new ConcurrentHashMap<>();
+    // accepting an edit holds the read lock, so a flush (write lock) never rotates the journal
+    // between an edit being journaled and it becoming visible in pending
+    private final ReentrantReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // journal segments whose edits are not confirmed in the database yet, guarded by flushLock
+    private final List<Path> closedSegments = new ArrayList<>();
+
+    // note id -> version the running flush wrote, so that its own events do not discard edits
+    private final Map<Long, Long> flushedVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedEdits = new AtomicLong();
+    private final AtomicLong droppedEdits = new AtomicLong();
+
+    @Autowired
+    public AutosaveBuffer(INotesDAO noteRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          ObjectMapper objectMapper,
+                          @Value("${notes.autosave.max-pending:500}") int maxPending,
+                          @Value("${notes.autosave.journal-dir:data/autosave-journal}") Path journalDir,
+                          @Value("${notes.autosave.journal-fsync:false}") boolean fsync) {
+        this.noteRepository = noteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.maxPending = maxPending;
+        this.journal = new AutosaveJournal(journalDir, fsync, objectMapper);
+        try {
+            closedSegments.addAll(journal.open());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open autosave journal in " + journalDir, e);
+        }
+    }
+
+    // edits journaled before a crash or shutdown are written now
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        flushLock.lock();
+        try {
+            Map<Long, PendingEdit> replayed = new LinkedHashMap<>();
+            for (PendingEdit edit : journal.read(closedSegments)) replayed.put(edit.getNoteId(), edit);
+            // edits accepted since startup are newer than anything in the old segments
+            replayed.values().forEach(edit -> pending.putIfAbsent(edit.getNoteId(), edit));
+            if (!replayed.isEmpty()) log.info("Recovered {} autosaved notes from the journal", replayed.size());
+        } finally {
+            flushLock.unlock();
+        }
+        flush();
+    }
+
+    // base is the stored note, used for the fields an edit leaves out when nothing is pending yet
+    public void accept(Note base, Optional<String> title, Optional<String> content) {
+        journalLock.readLock().lock();
+        try {
+            pending.compute(base.getId(), (id, previous) -> {
+                PendingEdit edit = new PendingEdit(id,
+                        title.orElse(previous != null ? previous.getTitle() : base.getTitle()),
+                        content.orElse(previous != null ? previous.getContent() : base.getContent()),
+                        previous != null ? previous.getBaseVersion() : base.getVersion());
+                journal.append(edit);
+                return edit;
+            });
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        if (pending.size() >= maxPending && !flushLock.isLocked()) Thread.ofVirtual().start(this::flush);
+    }
+
+    // read-your-writes: applies a pending edit to a note loaded from the database or cache
+    public Note overlay(Note note) {
+        PendingEdit edit = pending.get(note.getId());
+        if (edit != null) {
+            note.setTitle(edit.getTitle());
+            note.setContent(edit.getContent());
+        }
+        return note;
+    }
+
+    public boolean hasPending(Long noteId) {
+        return pending.containsKey(noteId);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.autosave.flush-interval:2s}")
+    public void flush() {
+        if (!flushLock.tryLock()) return;
+        try {
+            List<PendingEdit> batch;
+            journalLock.writeLock().lock();
+            try {
+                if (pending.isEmpty() && closedSegments.isEmpty()) return;
+                closedSegments.add(journal.rotate());
+                batch = new ArrayList<>(pending.values());
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+
+            if (!batch.isEmpty()) write(batch);
+            journal.delete(closedSegments);
+            closedSegments.clear();
+        } catch (IOException | RuntimeException e) {
+            // pending edits and their journal segments stay, the next flush retries
+            log.warn("Autosave flush failed", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<PendingEdit> batch) {
+        List<Note> notes = batch.stream().map(edit -> {
+            Note note = new Note();
+            note.setId(edit.getNoteId());
+            note.setTitle(edit.getTitle());
+            note.setContent(edit.getContent());
+            note.setVersion(edit.getBaseVersion());
+            return note;
+        }).toList();
+        try {
+            // events inside the transaction: synchronous listeners (revisions, change feed) write with it
+            int[] counts = transactionTemplate.execute(status -> {
+                int[] updated = noteRepository.updateAll(notes);
+                for (int k = 0; k < notes.size(); k++) {
+                    if (!isSuccessCount(updated[k])) continue;
+                    Note note = notes.get(k);
+                    note.setVersion(batch.get(k).getBaseVersion() + 1);
+                    flushedVersions.put(note.getId(), note.getVersion());
+                    eventPublisher.publishEvent(NoteChangedEvent.updated(note.getId(), note));
+                }
+                return updated;
+            });
+            flushCount.incrementAndGet();
+            afterWrite(batch, notes, counts);
+        } finally {
+            flushedVersions.clear();
+        }
+    }
+
+    private void afterWrite(List<PendingEdit> batch, List<Note> notes, int[] counts) {
+        for (int k = 0; k < batch.size(); k++) {
+            PendingEdit written = batch.get(k);
+            Note note = notes.get(k);
+            if (isSuccessCount(counts[k])) {
+                long newVersion = written.getBaseVersion() + 1;
+                // an edit that arrived during the write now applies on top of the version just written
+                pending.computeIfPresent(written.getNoteId(), (id, current) -> {
+                    if (current == written) return null;
+                    PendingEdit rebased = new PendingEdit(id, current.getTitle(), current.getContent(), newVersion);
+                    journal.append(rebased);
+                    return rebased;
+                });
+                flushedEdits.incrementAndGet();
+            } else {
+                // deleted or explicitly updated since the edit was based on it
+                pending.computeIfPresent(written.getNoteId(),
+                        (id, current) -> current.getBaseVersion() == written.getBaseVersion() ? null : current);
+                droppedEdits.incrementAndGet();
+                log.info("Dropped autosave of note {}: not at version {} anymore", note.getId(), written.getBaseVersion());
+            }
+        }
+    }
+
+    // explicit writes win over buffered autosaves; our own flushes keep the entry, rebased after commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getType() == NoteChangedEvent.Type.CREATED || event.getType() == NoteChangedEvent.Type.LINKS_ADDED) return;
+        Long version = event.getNote() != null ? event.getNote().getVersion() : null;
+        boolean ownFlush = version != null && version.equals(flushedVersions.get(event.getNoteId()));
+        pending.computeIfPresent(event.getNoteId(),
+                (id, edit) -> ownFlush || (version != null && version == edit.getBaseVersion()) ? edit : null);
+    }
+
+    private static boolean isSuccessCount(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    public int getPendingCount() { return pending.size(); }
+
+    public long getFlushCount() { return flushCount.get(); }
+
+    public long getFlushedEdits() { return flushedEdits.get(); }
+
+    public long getDroppedEdits() { return droppedEdits.get(); }
+}
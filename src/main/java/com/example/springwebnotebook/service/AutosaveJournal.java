@@ -0,0 +1,131 @@
+package com.example.springwebnotebook.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only NDJSON log of accepted autosave edits, split into numbered segments.
+ * A flush rotates to a new segment first; the older segments are deleted once the edits
+ * they hold are in the database. On startup every remaining segment is replayed in order.
+ */
+final class AutosaveJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(AutosaveJournal.class);
+    private static final String PREFIX = "autosave-";
+    private static final String SUFFIX = ".ndjson";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+
+    private FileChannel current;
+    private long currentSegment;
+
+    AutosaveJournal(Path directory, boolean fsync, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    // existing segments, oldest first; they stay on disk until deleted after a successful flush
+    synchronized List<Path> open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        currentSegment = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1));
+        openNext();
+        return segments;
+    }
+
+    synchronized void append(PendingEdit edit) {
+        ObjectNode record = objectMapper.createObjectNode()
+                .put("id", edit.getNoteId())
+                .put("title", edit.getTitle())
+                .put("content", edit.getContent())
+                .put("baseVersion", edit.getBaseVersion());
+        try {
+            ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) current.write(line);
+            if (fsync) current.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal autosave of note " + edit.getNoteId(), e);
+        }
+    }
+
+    // closes the segment being written and starts a new one; returns the closed segment
+    synchronized Path rotate() throws IOException {
+        Path closed = segmentPath(currentSegment);
+        current.close();
+        openNext();
+        return closed;
+    }
+
+    void delete(List<Path> segments) throws IOException {
+        for (Path segment : segments) Files.deleteIfExists(segment);
+    }
+
+    // edits of the given segments in write order; a torn last line from a crash is skipped
+    List<PendingEdit> read(List<Path> segments) throws IOException {
+        List<PendingEdit> edits = new ArrayList<>();
+        for (Path segment : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        JsonNode record = objectMapper.readTree(line);
+                        edits.add(new PendingEdit(record.get("id").asLong(), record.get("title").asText(),
+                                record.get("content").isNull() ? null : record.get("content").asText(),
+                                record.get("baseVersion").asLong()));
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Skipping unreadable autosave journal line in {}", segment);
+                    }
+                }
+            }
+        }
+        return edits;
+    }
+
+    synchronized void close() throws IOException {
+        if (current != null) current.close();
+    }
+
+    private void openNext() throws IOException {
+        currentSegment++;
+        current = FileChannel.open(segmentPath(currentSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                            && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%012d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
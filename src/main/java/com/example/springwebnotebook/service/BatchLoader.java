@@ -0,0 +1,113 @@
+package com.example.springwebnotebook.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Merges concurrent single-key loads into one batch load (DataLoader style). The first caller of a
+// batch waits up to window for others to join, or until maxBatch keys are waiting, then runs the
+// batch on its own thread and hands every caller its value (null when the batch returned none).
+// A window of zero loads every key on its own.
+public class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchLoad;
+    private final long windowNanos;
+    private final int maxBatch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // batch still accepting keys, guarded by lock
+    private Batch<K, V> open;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong keyCount = new AtomicLong();
+
+    public BatchLoader(Function<Set<K>, Map<K, V>> batchLoad, Duration window, int maxBatch) {
+        this.batchLoad = batchLoad;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+    }
+
+    public V load(K key) {
+        if (windowNanos <= 0 || maxBatch <= 1) return dispatch(Set.of(key)).get(key);
+
+        Batch<K, V> batch;
+        CompletableFuture<V> result;
+        boolean leader = false;
+        boolean full;
+        lock.lock();
+        try {
+            if (open == null) {
+                open = new Batch<>();
+                leader = true;
+            }
+            batch = open;
+            result = batch.waiting.computeIfAbsent(key, k -> new CompletableFuture<>());
+            full = batch.waiting.size() >= maxBatch;
+            if (full) open = null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (full) batch.filled.countDown();
+        if (leader) run(batch);
+        return await(result);
+    }
+
+    private void run(Batch<K, V> batch) {
+        try {
+            batch.filled.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (open == batch) open = null;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            Map<K, V> values = dispatch(batch.waiting.keySet());
+            batch.waiting.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (RuntimeException | Error e) {
+            batch.waiting.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private Map<K, V> dispatch(Set<K> keys) {
+        batchCount.incrementAndGet();
+        keyCount.addAndGet(keys.size());
+        return batchLoad.apply(keys);
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getKeyCount() {
+        return keyCount.get();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    private static final class Batch<K, V> {
+        private final Map<K, CompletableFuture<V>> waiting = new ConcurrentHashMap<>();
+        private final CountDownLatch filled = new CountDownLatch(1);
+    }
+}
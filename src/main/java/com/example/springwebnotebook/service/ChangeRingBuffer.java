@@ -0,0 +1,37 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.repository.NoteChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The most recent changes in arrival order; older ones are overwritten.
+final class ChangeRingBuffer {
+
+    private final NoteChange[] slots;
+    private long added;
+    // highest seq that was overwritten, a reader behind it has missed changes
+    private long evictedSeq;
+
+    ChangeRingBuffer(int capacity) {
+        this.slots = new NoteChange[capacity];
+    }
+
+    synchronized void add(NoteChange change) {
+        int slot = (int) (added % slots.length);
+        if (slots[slot] != null) evictedSeq = Math.max(evictedSeq, slots[slot].getSeq());
+        slots[slot] = change;
+        added++;
+    }
+
+    // changes with seq > since, or null when some of them are no longer buffered
+    synchronized List<NoteChange> since(long since) {
+        if (since < evictedSeq) return null;
+        List<NoteChange> changes = new ArrayList<>();
+        for (long i = Math.max(0, added - slots.length); i < added; i++) {
+            NoteChange change = slots[(int) (i % slots.length)];
+            if (change.getSeq() > since) changes.add(change);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.repository.NoteChange;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Publishes batches of changes in ticket order. Tickets are taken in seq order (under the sequence
+// lock); a batch released early waits until every earlier ticket is released, with or without changes.
+final class ChangeSequencer {
+
+    private final Consumer<NoteChange> publish;
+    private final Map<Long, List<NoteChange>> held = new HashMap<>();
+    private long nextTicket;
+    private long nextReleased;
+
+    ChangeSequencer(Consumer<NoteChange> publish) {
+        this.publish = publish;
+    }
+
+    synchronized long take() {
+        return nextTicket++;
+    }
+
+    // a rolled back batch releases its ticket with no changes, or every later one would wait for good
+    synchronized void release(long ticket, List<NoteChange> changes) {
+        held.put(ticket, changes);
+        List<NoteChange> next;
+        while ((next = held.remove(nextReleased)) != null) {
+            next.forEach(publish);
+            nextReleased++;
+        }
+    }
+}
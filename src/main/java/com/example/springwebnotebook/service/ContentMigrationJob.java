@@ -0,0 +1,104 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.ContentCodec;
+import com.example.springwebnotebook.repository.INotesDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compresses notes stored before content compression existed. Runs once after startup on a
+ * virtual thread, walking the table in id order, one small batch per step with a pause in
+ * between so it never competes with user traffic for long. Rows are rewritten only if they are
+ * still at the version that was read; a note edited meanwhile is compressed by that edit anyway.
+ */
+@Service
+public class ContentMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentMigrationJob.class);
+
+    private final INotesDAO noteRepository;
+    private final ContentCodec contentCodec;
+    private final int threshold;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private volatile boolean running;
+
+    @Autowired
+    public ContentMigrationJob(INotesDAO noteRepository,
+                               @Value("${notes.content.compress-threshold:4096}") int threshold,
+                               @Value("${notes.content.migration.enabled:true}") boolean enabled,
+                               @Value("${notes.content.migration.batch-size:100}") int batchSize,
+                               @Value("${notes.content.migration.pause:200ms}") Duration pause) {
+        this.noteRepository = noteRepository;
+        this.contentCodec = new ContentCodec(threshold);
+        this.threshold = threshold;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        Thread.ofVirtual().name("content-migration").start(() -> {
+            try {
+                migrate();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Content migration stopped after {} notes", scanned.get(), e);
+            } finally {
+                running = false;
+            }
+        });
+    }
+
+    void migrate() throws InterruptedException {
+        long afterId = 0;
+        List<Note> batch;
+        do {
+            batch = noteRepository.findUncompressed(afterId, threshold, batchSize);
+            if (batch.isEmpty()) break;
+            afterId = batch.get(batch.size() - 1).getId();
+            scanned.addAndGet(batch.size());
+
+            // incompressible content stays plain, rewriting it would change nothing
+            List<Note> rewrite = batch.stream()
+                    .filter(note -> ContentCodec.isDeflated(contentCodec.encode(note.getContent())))
+                    .toList();
+            int[] counts = noteRepository.rewriteContent(rewrite);
+            for (int count : counts) if (count != 0) compressed.incrementAndGet();
+
+            Thread.sleep(pause);
+        } while (batch.size() == batchSize);
+
+        if (compressed.get() > 0) log.info("Compressed content of {} existing notes", compressed.get());
+    }
+
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    public long getCompressed() {
+        return compressed.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -1,15 +1,31 @@
 package com.example.springwebnotebook.service;
 
 import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.repository.NotePreview;
+import com.example.springwebnotebook.search.SearchHit;
+
 import java.util.List;
 import java.util.Optional;
 
 public interface IService {
     List<Note> getAllNotes();
+    List<LinkPair> getAllNoteSummaries();
     Optional<Note> getNoteById(Long id);
+    boolean noteExists(Long id);
     Optional<Note> getNoteByShareKey(String shareKey);
     Number createNote(Note note);
     Optional<Note> updateNote(Note note);
-    void deleteNote(Long id);
+    Optional<Note> patchContent(Long id, TextDelta delta);
+    boolean autosave(Long id, Optional<String> title, Optional<String> content);
+    boolean hasPendingAutosave(Long id);
+    boolean deleteNote(Long id);
+    boolean deleteNote(Long id, Long expectedVersion);
     List<Note> findWithFilterAndPagination(Optional<String> title, int page, int size);
+    List<Note> findWithFilterAfter(Optional<String> title, Long afterId, int size);
+    List<NotePreview> findPreviewsAfter(Long afterId, int size);
+    List<SearchHit> search(String query, int limit);
+    List<LinkPair> suggestTitles(String prefix, int limit);
+    int countNotes();
 }
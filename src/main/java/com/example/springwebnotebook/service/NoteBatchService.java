@@ -0,0 +1,233 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.BatchOperation;
+import com.example.springwebnotebook.model.BatchResult;
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.repository.NoteLink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes mixed create/update/delete lists. Consecutive operations of the same kind
+ * run as one JDBC batch, so the original order is kept while statements are batched.
+ * Atomic mode runs everything in one transaction and rolls back on the first failed item;
+ * best-effort mode commits each run separately and isolates failing items one by one.
+ */
+@Service
+public class NoteBatchService {
+
+    private static final class RollbackSignal extends RuntimeException {
+        RollbackSignal() { super(null, null, false, false); }
+    }
+
+    private final INotesDAO noteRepository;
+    private final INoteLinksDAO noteLinksRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public NoteBatchService(INotesDAO noteRepository,
+                            INoteLinksDAO noteLinksRepository,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher) {
+        this.noteRepository = noteRepository;
+        this.noteLinksRepository = noteLinksRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<BatchResult> execute(List<BatchOperation> operations, boolean atomic) {
+        List<BatchResult> results = new ArrayList<>(operations.size());
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchResult result = validate(i, operations.get(i));
+            results.add(result);
+            if (result.getStatus() == 0) valid.add(i);
+        }
+
+        if (atomic && valid.size() < operations.size()) {
+            for (int i : valid) fail(results.get(i), 424, "Not executed: another operation in the batch is invalid");
+            return results;
+        }
+
+        List<List<Integer>> runs = runsOfSameOp(operations, valid);
+        if (atomic) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (List<Integer> run : runs) {
+                        executeRun(operations, results, run);
+                        if (run.stream().anyMatch(i -> !results.get(i).isSuccess())) throw new RollbackSignal();
+                    }
+                });
+            } catch (RuntimeException e) {
+                String reason = e instanceof RollbackSignal ? "Rolled back: another operation in the batch failed"
+                        : "Rolled back: " + e.getMessage();
+                for (int i : valid) {
+                    BatchResult result = results.get(i);
+                    if (result.getStatus() == 0 || result.isSuccess()) fail(result, 424, reason);
+                }
+            }
+            return results;
+        }
+
+        for (List<Integer> run : runs) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> executeRun(operations, results, run));
+            } catch (RuntimeException e) {
+                // the whole run was rolled back: retry item by item to find the failing ones
+                for (int i : run) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> executeRun(operations, results, List.of(i)));
+                    } catch (RuntimeException itemError) {
+                        fail(results.get(i), 500, itemError.getMessage());
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private void executeRun(List<BatchOperation> operations, List<BatchResult> results, List<Integer> run) {
+        switch (operations.get(run.get(0)).getOp()) {
+            case "create" -> createRun(operations, results, run);
+            case "update" -> updateRun(operations, results, run);
+            default -> deleteRun(operations, results, run);
+        }
+    }
+
+    private void createRun(List<BatchOperation> operations, List<BatchResult> results, List<Integer> run) {
+        // copies: a rolled back run is retried item by item from the untouched operations
+        List<Note> notes = run.stream().map(i -> new Note(operations.get(i).getNote())).toList();
+        List<Long> ids = noteRepository.createAll(notes);
+
+        List<NoteLink> links = new ArrayList<>();
+        for (int k = 0; k < run.size(); k++) {
+            Note note = notes.get(k);
+            note.setId(ids.get(k));
+            collectLinks(note, links);
+
+            BatchResult result = results.get(run.get(k));
+            result.setStatus(201);
+            result.setId(note.getId());
+            eventPublisher.publishEvent(NoteChangedEvent.created(note.getId(), note));
+        }
+        noteLinksRepository.addAll(links);
+    }
+
+    private void updateRun(List<BatchOperation> operations, List<BatchResult> results, List<Integer> run) {
+        List<Note> notes = run.stream().map(i -> {
+            Note note = new Note(operations.get(i).getNote());
+            note.setId(operations.get(i).getId());
+            return note;
+        }).toList();
+        int[] counts = noteRepository.updateAll(notes);
+
+        // links are replaced wholesale: one delete for all touched notes, one insert batch
+        List<Long> relinked = new ArrayList<>();
+        List<NoteLink> links = new ArrayList<>();
+        for (int k = 0; k < run.size(); k++) {
+            Note note = notes.get(k);
+            BatchResult result = results.get(run.get(k));
+            result.setId(note.getId());
+            if (!isSuccessCount(counts[k])) {
+                if (note.getVersion() != null) {
+                    fail(result, 412, "Note " + note.getId() + " not found or no longer at version " + note.getVersion());
+                } else {
+                    fail(result, 404, "Note not found with id = " + note.getId());
+                }
+                continue;
+            }
+
+            result.setStatus(200);
+            if (note.getVersion() != null) note.setVersion(note.getVersion() + 1);
+            if (note.getLinks() != null) {
+                relinked.add(note.getId());
+                collectLinks(note, links);
+            }
+            eventPublisher.publishEvent(NoteChangedEvent.updated(note.getId(), note));
+        }
+        noteLinksRepository.deleteAllFrom(relinked);
+        noteLinksRepository.addAll(links);
+    }
+
+    private void deleteRun(List<BatchOperation> operations, List<BatchResult> results, List<Integer> run) {
+        List<Long> ids = run.stream().map(i -> operations.get(i).getId()).toList();
+        int[] counts = noteRepository.deleteAll(ids);
+
+        for (int k = 0; k < run.size(); k++) {
+            BatchResult result = results.get(run.get(k));
+            result.setId(ids.get(k));
+            if (!isSuccessCount(counts[k])) {
+                fail(result, 404, "Note not found with id = " + ids.get(k));
+                continue;
+            }
+            result.setStatus(204);
+            eventPublisher.publishEvent(NoteChangedEvent.deleted(ids.get(k)));
+        }
+    }
+
+    // --- helpers ---
+
+    private static BatchResult validate(int index, BatchOperation operation) {
+        String op = operation == null ? null : operation.getOp();
+        BatchResult result = new BatchResult(index, op);
+        if (op == null || !List.of("create", "update", "delete").contains(op)) {
+            return fail(result, 400, "op must be one of create, update, delete");
+        }
+
+        result.setId(operation.getId());
+        if (!op.equals("create") && operation.getId() == null) return fail(result, 400, "id is required");
+        if (!op.equals("delete")) {
+            Note note = operation.getNote();
+            if (note == null || note.getTitle() == null || note.getTitle().isBlank()) {
+                return fail(result, 400, "Title is required");
+            }
+        }
+        return result;
+    }
+
+    private static List<List<Integer>> runsOfSameOp(List<BatchOperation> operations, List<Integer> indexes) {
+        List<List<Integer>> runs = new ArrayList<>();
+        List<Integer> current = null;
+        String currentOp = null;
+        for (int i : indexes) {
+            String op = operations.get(i).getOp();
+            if (!op.equals(currentOp)) {
+                current = new ArrayList<>();
+                runs.add(current);
+                currentOp = op;
+            }
+            current.add(i);
+        }
+        return runs;
+    }
+
+    private static void collectLinks(Note note, List<NoteLink> links) {
+        if (note.getLinks() == null) return;
+        note.getLinks().stream()
+                .map(LinkPair::getId)
+                .filter(id -> id != null)
+                .distinct()
+                .forEach(linkedId -> links.add(new NoteLink(note.getId(), linkedId)));
+    }
+
+    private static BatchResult fail(BatchResult result, int status, String error) {
+        result.setStatus(status);
+        result.setError(error);
+        return result;
+    }
+
+    private static boolean isSuccessCount(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+}
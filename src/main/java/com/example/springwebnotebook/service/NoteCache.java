@@ -0,0 +1,138 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of assembled notes (row + links), bounded by weight and TTL.
+ * Entries are invalidated after commit of every write to the note, and also when a
+ * note they link to changes, because the cached {@link LinkPair} carries its title.
+ * Callers always receive a copy, so mutating a returned note never corrupts the cache.
+ * A miss is loaded on the calling thread outside Caffeine's map lock (an in-flight future is
+ * cached instead), so the loader may wait for other threads, as NoteLoader does to batch misses,
+ * without pinning a carrier thread. Concurrent misses of one id still share one load, and an
+ * invalidation during the load discards its result.
+ */
+@Component
+public class NoteCache {
+
+    private final AsyncCache<Long, Note> cache;
+    private final Cache<Long, Note> synchronousCache;
+
+    // linked note id -> ids of cached notes whose links point at it
+    private final Map<Long, Set<Long>> linkers = new ConcurrentHashMap<>();
+
+    public NoteCache(@Value("${notes.cache.max-weight:67108864}") long maxWeight,
+                     @Value("${notes.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(NoteCache::weigh)
+                .expireAfterWrite(ttl)
+                .evictionListener((Long id, Note note, RemovalCause cause) -> unregisterLinks(id, note))
+                .recordStats()
+                .buildAsync();
+        this.synchronousCache = cache.synchronous();
+    }
+
+    public Optional<Note> get(Long id, Function<Long, Optional<Note>> loader) {
+        CompletableFuture<Note> created = new CompletableFuture<>();
+        CompletableFuture<Note> future = cache.get(id, (key, executor) -> created);
+        if (future == created) {
+            try {
+                Note loaded = loader.apply(id).orElse(null);
+                if (loaded != null) registerLinks(id, loaded);
+                // a null value removes the entry
+                created.complete(loaded);
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return Optional.ofNullable(join(future)).map(Note::new);
+    }
+
+    // cached copy only, a miss does not load (nor count as a miss)
+    public Optional<Note> getIfPresent(Long id) {
+        return Optional.ofNullable(synchronousCache.policy().getIfPresentQuietly(id)).map(Note::new);
+    }
+
+    public void invalidate(Long id) {
+        synchronousCache.invalidate(id);
+
+        Set<Long> dependents = linkers.remove(id);
+        if (dependents != null) synchronousCache.invalidateAll(dependents);
+    }
+
+    public void invalidateAll() {
+        synchronousCache.invalidateAll();
+        linkers.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        invalidate(event.getNoteId());
+    }
+
+    public CacheStats stats() {
+        return synchronousCache.stats();
+    }
+
+    public long estimatedSize() {
+        return synchronousCache.estimatedSize();
+    }
+
+    private static Note join(CompletableFuture<Note> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    private void registerLinks(Long id, Note note) {
+        if (note.getLinks() == null) return;
+        for (LinkPair link : note.getLinks()) {
+            linkers.computeIfAbsent(link.getId(), k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void unregisterLinks(Long id, Note note) {
+        if (id == null || note == null || note.getLinks() == null) return;
+        for (LinkPair link : note.getLinks()) {
+            linkers.computeIfPresent(link.getId(), (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // rough size in bytes: object overhead + UTF-16 strings + link pairs
+    private static int weigh(Long id, Note note) {
+        long weight = 64;
+        if (note.getTitle() != null) weight += 2L * note.getTitle().length();
+        weight += 2L * note.storedContentLength();
+        if (note.getLinks() != null) {
+            for (LinkPair link : note.getLinks()) {
+                weight += 48 + (link.getTitle() == null ? 0 : 2L * link.getTitle().length());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+}
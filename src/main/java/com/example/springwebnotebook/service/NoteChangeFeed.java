@@ -0,0 +1,240 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.SyncChange;
+import com.example.springwebnotebook.repository.INoteChangesDAO;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.repository.NoteChange;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Change tracking for incremental sync. The changes of a transaction are appended to note_changes
+ * as one batch right before it commits (deletes as tombstones), under a lock that makes the
+ * sequence follow commit order; the lock is held only from that batch to the commit.
+ * Readers page through the log with a cursor and get the current state of each changed note once.
+ * Committed changes also go into an in-memory ring buffer and are pushed to SSE subscribers, in seq
+ * order: each batch takes a ticket under the lock and is held back until every earlier ticket has
+ * committed or rolled back. A subscriber that reconnects with a cursor the buffer no longer covers
+ * is told to resync via the log.
+ */
+@Service
+@Profile("!logstore")
+public class NoteChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteChangeFeed.class);
+
+    private final INoteChangesDAO changesRepository;
+    private final INotesDAO noteRepository;
+    private final INoteLinksDAO noteLinksRepository;
+    private final ChangeRingBuffer recent;
+    private final Duration streamTimeout;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    // one thread sends to subscribers: writers never wait for slow clients and events stay in order
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("note-change-fanout").factory());
+    private final ChangeSequencer sequencer = new ChangeSequencer(this::publish);
+    private final Object recording = new Object();
+
+    @Autowired
+    public NoteChangeFeed(INoteChangesDAO changesRepository,
+                          INotesDAO noteRepository,
+                          INoteLinksDAO noteLinksRepository,
+                          @Value("${notes.changes.buffer-size:4096}") int bufferSize,
+                          @Value("${notes.changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.changesRepository = changesRepository;
+        this.noteRepository = noteRepository;
+        this.noteLinksRepository = noteLinksRepository;
+        this.recent = new ChangeRingBuffer(bufferSize);
+        this.streamTimeout = streamTimeout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        int seeded = changesRepository.seedFromNotes();
+        if (seeded > 0) log.info("Change log started with {} existing notes", seeded);
+    }
+
+    // synchronous: the change rows commit or roll back with the writes they describe
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        String type = event.getType() == NoteChangedEvent.Type.DELETED ? NoteChange.DELETE : NoteChange.UPSERT;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Recorded recorded = record(Map.of(event.getNoteId(), type));
+            sequencer.release(recorded.ticket(), recorded.changes());
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(event.getNoteId(), type);
+    }
+
+    private record Recorded(long ticket, List<NoteChange> changes) {
+    }
+
+    private Recorded record(Map<Long, String> changes) {
+        changesRepository.lockSequence();
+        // tickets must follow seq order: the row lock orders transactions, this also orders writes outside of one
+        synchronized (recording) {
+            long ticket = sequencer.take();
+            try {
+                return new Recorded(ticket, changesRepository.addAll(changes));
+            } catch (RuntimeException e) {
+                sequencer.release(ticket, List.of());
+                throw e;
+            }
+        }
+    }
+
+    // Changes of the current transaction, one per note: readers only get the newest per note anyway
+    private final class PendingChanges implements TransactionSynchronization {
+        private final Map<Long, String> changes = new LinkedHashMap<>();
+        private final List<Recorded> written = new ArrayList<>();
+        private boolean committing;
+
+        void add(long noteId, String type) {
+            // from another synchronization's beforeCommit, after the batch went out
+            if (committing) {
+                written.add(record(Map.of(noteId, type)));
+                return;
+            }
+            changes.remove(noteId);
+            changes.put(noteId, type);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            committing = true;
+            if (!changes.isEmpty()) written.add(record(changes));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(NoteChangeFeed.this);
+            // a ticket is released even on rollback, or every later one would be held back for good
+            boolean committed = status == STATUS_COMMITTED;
+            for (Recorded recorded : written) {
+                sequencer.release(recorded.ticket(), committed ? recorded.changes() : List.of());
+            }
+        }
+    }
+
+    // Changes after the cursor, at most limit log entries: the newest entry per note wins, upserts
+    // carry the note as it is now. Three queries whatever the page holds.
+    public List<SyncChange> changesSince(long since, int limit) {
+        Map<Long, NoteChange> latest = new LinkedHashMap<>();
+        for (NoteChange change : changesRepository.findSince(since, limit)) {
+            // re-inserting moves the note behind the changes it superseded
+            latest.remove(change.getNoteId());
+            latest.put(change.getNoteId(), change);
+        }
+
+        Set<Long> upserted = latest.values().stream()
+                .filter(change -> change.getType().equals(NoteChange.UPSERT))
+                .map(NoteChange::getNoteId)
+                .collect(Collectors.toSet());
+        Map<Long, Note> notes = noteRepository.findAllByIds(upserted).stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+        Map<Long, List<LinkPair>> links = noteLinksRepository.findLinkedFromNotes(notes.keySet());
+
+        List<SyncChange> changes = new ArrayList<>(latest.size());
+        for (NoteChange change : latest.values()) {
+            Note note = notes.get(change.getNoteId());
+            if (note == null) {
+                // deleted by a change further along the log
+                changes.add(new SyncChange(change.getSeq(), NoteChange.DELETE, change.getNoteId(), null));
+                continue;
+            }
+            note.setLinks(links.getOrDefault(note.getId(), List.of()));
+            changes.add(new SyncChange(change.getSeq(), NoteChange.UPSERT, change.getNoteId(), note));
+        }
+        return changes;
+    }
+
+    public long lastSeq() {
+        return changesRepository.lastSeq();
+    }
+
+    // pushes changes after since (null: only new ones) as "change" events with the seq as event id
+    public SseEmitter subscribe(Long since) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(emitter));
+
+        // on the fan-out thread, so no change is sent twice or skipped between replay and registration
+        fanOut.execute(() -> {
+            List<NoteChange> missed = since == null ? List.of() : recent.since(since);
+            try {
+                if (missed == null) {
+                    emitter.send(SseEmitter.event().name("resync").data(Map.of("since", since), MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                    return;
+                }
+                for (NoteChange change : missed) send(emitter, change);
+                subscribers.add(emitter);
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private void publish(NoteChange change) {
+        fanOut.execute(() -> {
+            recent.add(change);
+            for (SseEmitter emitter : subscribers) {
+                try {
+                    send(emitter, change);
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(emitter);
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+    }
+
+    private static void send(SseEmitter emitter, NoteChange change) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(Long.toString(change.getSeq()))
+                .name("change")
+                .data(change, MediaType.APPLICATION_JSON));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        fanOut.shutdown();
+        subscribers.forEach(SseEmitter::complete);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+
+import java.util.List;
+
+// Published by the service layer after every note write; in-memory structures listen to it
+// and are updated once the surrounding transaction commits.
+public class NoteChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED, LINKS_ADDED }
+
+    private final Type type;
+    private final Long noteId;
+    private final Note note;
+    private final List<Long> linkedIds;
+
+    private NoteChangedEvent(Type type, Long noteId, Note note, List<Long> linkedIds) {
+        this.type = type;
+        this.noteId = noteId;
+        this.note = note;
+        this.linkedIds = linkedIds;
+    }
+
+    public static NoteChangedEvent created(Long noteId, Note note) {
+        return new NoteChangedEvent(Type.CREATED, noteId, note, null);
+    }
+
+    public static NoteChangedEvent updated(Long noteId, Note note) {
+        return new NoteChangedEvent(Type.UPDATED, noteId, note, null);
+    }
+
+    public static NoteChangedEvent deleted(Long noteId) {
+        return new NoteChangedEvent(Type.DELETED, noteId, null, null);
+    }
+
+    // links written without their note (bulk import); the note itself is unchanged
+    public static NoteChangedEvent linksAdded(Long linkerId, List<Long> linkedIds) {
+        return new NoteChangedEvent(Type.LINKS_ADDED, linkerId, null, linkedIds);
+    }
+
+    public Type getType() { return type; }
+
+    public Long getNoteId() { return noteId; }
+
+    // state after the write, null for deletes
+    public Note getNote() { return note; }
+
+    // only set for LINKS_ADDED
+    public List<Long> getLinkedIds() { return linkedIds; }
+}
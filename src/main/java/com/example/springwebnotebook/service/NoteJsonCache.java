@@ -0,0 +1,131 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * UTF-8 JSON of notes as the REST API serves them, so a note that did not change is not
+ * serialized (nor its compressed content decoded) again. An entry is used only for the version
+ * and links it was written with: a note with links (GET by id) and one without (list pages) are
+ * cached apart, and a linked note's new title, which does not bump the version, misses.
+ * Entries are dropped after commit of every write to the note.
+ * Notes without a version (not read from the store) are serialized every time.
+ */
+@Component
+public class NoteJsonCache {
+
+    private final ObjectWriter writer;
+    private final int gzipMinSize;
+    // key: id << 1 | has links
+    private final Cache<Long, SerializedNote> cache;
+
+    public NoteJsonCache(ObjectMapper objectMapper,
+                         @Value("${notes.json-cache.max-weight:33554432}") long maxWeight,
+                         @Value("${notes.json-cache.gzip-min-size:1024}") int gzipMinSize) {
+        this.writer = objectMapper.writerFor(Note.class);
+        this.gzipMinSize = gzipMinSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long key, SerializedNote note) -> 64 + note.getJson().length
+                        + (note.getGzip() == null ? 0 : note.getGzip().length))
+                .recordStats()
+                .build();
+    }
+
+    public SerializedNote get(Note note) {
+        if (note.getId() == null || note.getVersion() == null) return serialize(note);
+
+        long key = key(note.getId(), note.getLinks() != null);
+        SerializedNote cached = cache.getIfPresent(key);
+        if (cached != null && cached.getVersion() == note.getVersion() && cached.writtenWith(note.getLinks())) {
+            return cached;
+        }
+        SerializedNote serialized = serialize(note);
+        cache.put(key, serialized);
+        return serialized;
+    }
+
+    // the note's JSON with its gzip variant, compressed once per version; no variant below gzip-min-size
+    public SerializedNote getCompressed(Note note) {
+        SerializedNote serialized = get(note);
+        if (serialized.getGzip() != null || serialized.getJson().length < gzipMinSize) return serialized;
+
+        SerializedNote compressed = serialized.withGzip(gzip(serialized.getJson()));
+        if (note.getId() != null && note.getVersion() != null) {
+            // re-put so that the weight includes the variant
+            cache.asMap().replace(key(note.getId(), note.getLinks() != null), serialized, compressed);
+        }
+        return compressed;
+    }
+
+    // a JSON array spliced from the cached fragments
+    public void writeArray(List<Note> notes, ByteArrayOutputStream out) {
+        out.write('[');
+        for (int i = 0; i < notes.size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(get(notes.get(i)).getJson());
+        }
+        out.write(']');
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidateAll(List.of(key(id, false), key(id, true)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        invalidate(event.getNoteId());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private SerializedNote serialize(Note note) {
+        List<LinkPair> links = null;
+        if (note.getLinks() != null) {
+            links = new ArrayList<>(note.getLinks().size());
+            for (LinkPair link : note.getLinks()) links.add(new LinkPair(link.getId(), link.getTitle()));
+        }
+        try {
+            long version = note.getVersion() != null ? note.getVersion() : -1;
+            return new SerializedNote(version, links, writer.writeValueAsBytes(note), null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize note " + note.getId(), e);
+        }
+    }
+
+    private static long key(long id, boolean withLinks) {
+        return id << 1 | (withLinks ? 1 : 0);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 3 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
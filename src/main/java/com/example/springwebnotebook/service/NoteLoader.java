@@ -0,0 +1,69 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Loads assembled notes (row + links) for NoteCache misses. Concurrent misses are batched by
+ * {@link BatchLoader}: one {@code id IN (...)} query for the rows and one {@code linker_id IN (...)}
+ * query for their links per batch, instead of two queries per note. A batch of one note uses the
+ * point queries.
+ * The batch runs on the thread of its first caller, outside any transaction of the others.
+ */
+@Component
+public class NoteLoader {
+
+    private final INotesDAO noteRepository;
+    private final INoteLinksDAO noteLinksRepository;
+    private final BatchLoader<Long, Note> loader;
+
+    @Autowired
+    public NoteLoader(INotesDAO noteRepository,
+                      INoteLinksDAO noteLinksRepository,
+                      @Value("${notes.loader.window:2ms}") Duration window,
+                      @Value("${notes.loader.max-batch:100}") int maxBatch) {
+        this.noteRepository = noteRepository;
+        this.noteLinksRepository = noteLinksRepository;
+        this.loader = new BatchLoader<>(this::loadAll, window, maxBatch);
+    }
+
+    public Optional<Note> load(Long id) {
+        return Optional.ofNullable(loader.load(id));
+    }
+
+    private Map<Long, Note> loadAll(Set<Long> ids) {
+        if (ids.size() == 1) {
+            Long id = ids.iterator().next();
+            return noteRepository.findById(id)
+                    .map(note -> {
+                        note.setLinks(noteLinksRepository.findLinkedFromNote(id));
+                        return Map.of(id, note);
+                    })
+                    .orElse(Map.of());
+        }
+
+        Map<Long, Note> notes = new HashMap<>();
+        for (Note note : noteRepository.findAllByIds(ids)) notes.put(note.getId(), note);
+        if (notes.isEmpty()) return notes;
+
+        Map<Long, List<LinkPair>> links = noteLinksRepository.findLinkedFromNotes(notes.keySet());
+        notes.forEach((id, note) -> note.setLinks(links.getOrDefault(id, new ArrayList<>())));
+        return notes;
+    }
+
+    public long getBatchCount() {
+        return loader.getBatchCount();
+    }
+
+    public long getKeyCount() {
+        return loader.getKeyCount();
+    }
+}
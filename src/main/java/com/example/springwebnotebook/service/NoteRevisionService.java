@@ -0,0 +1,219 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
+import com.example.springwebnotebook.repository.ContentCodec;
+import com.example.springwebnotebook.repository.INoteRevisionsDAO;
+import com.example.springwebnotebook.repository.NoteRevision;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Revision history of notes. Every write stores the changed region against the previous revision
+ * ("at,length,text": replace length chars at offset at with text), so the history grows with the
+ * size of the edits. Every snapshot-every revisions, and whenever a delta would not be smaller,
+ * the full content is stored instead, which bounds a reconstruction to one snapshot plus fewer
+ * than snapshot-every deltas, read with one query.
+ * Revisions are written in the transaction of the note writes, as one batch right before it
+ * commits: one revision per note and transaction, under the version the note has by then. The
+ * note's row lock orders concurrent writers, so each delta is taken against its predecessor.
+ */
+@Service
+@Profile("!logstore")
+public class NoteRevisionService {
+
+    private final INoteRevisionsDAO revisionsRepository;
+    private final ContentCodec contentCodec;
+    private final int snapshotEvery;
+
+    @Autowired
+    public NoteRevisionService(INoteRevisionsDAO revisionsRepository,
+                               @Value("${notes.content.compress-threshold:4096}") int compressThreshold,
+                               @Value("${notes.revisions.snapshot-every:20}") int snapshotEvery) {
+        this.revisionsRepository = revisionsRepository;
+        this.contentCodec = new ContentCodec(compressThreshold);
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    // synchronous on purpose: a failed revision write rolls the note writes back with it
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingRevisions single = new PendingRevisions();
+            single.add(event);
+            single.write();
+            return;
+        }
+        PendingRevisions pending = (PendingRevisions) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRevisions();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(event);
+    }
+
+    // The notes written by the current transaction, as they are after its last write to each
+    private final class PendingRevisions implements TransactionSynchronization {
+        private final Map<Long, Note> notes = new LinkedHashMap<>();
+        // created in this transaction: snapshot without looking for a chain
+        private final Set<Long> created = new HashSet<>();
+        private boolean committing;
+
+        void add(NoteChangedEvent event) {
+            Long noteId = event.getNoteId();
+            if (event.getType() == NoteChangedEvent.Type.DELETED) {
+                notes.remove(noteId);
+                created.remove(noteId);
+            } else if (event.getNote() != null) {
+                if (event.getType() == NoteChangedEvent.Type.CREATED) created.add(noteId);
+                // copies: callers may reuse their notes before the transaction commits
+                notes.put(noteId, new Note(event.getNote()));
+            }
+            // from another synchronization's beforeCommit, after the batch went out
+            if (committing) write();
+        }
+
+        // one query for the chains of the updated notes, one batch insert
+        void write() {
+            if (notes.isEmpty()) return;
+            List<Long> updated = notes.keySet().stream().filter(id -> !created.contains(id)).toList();
+            Map<Long, List<NoteRevision>> chains = revisionsRepository.findLatestChains(updated);
+            List<NoteRevision> revisions = new ArrayList<>(notes.size());
+            notes.forEach((noteId, note) -> revisions.add(revision(noteId, note, chains.getOrDefault(noteId, List.of()))));
+            revisionsRepository.addAll(revisions);
+            notes.clear();
+            created.clear();
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            committing = true;
+            write();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(NoteRevisionService.this);
+        }
+    }
+
+    // a delta against the chain while it is shorter than snapshot-every and the delta is smaller
+    private NoteRevision revision(Long noteId, Note note, List<NoteRevision> chain) {
+        String content = contentOf(note);
+        NoteRevision revision = new NoteRevision();
+        revision.setNoteId(noteId);
+        revision.setTitle(note.getTitle());
+        if (!chain.isEmpty() && chain.size() < snapshotEvery) {
+            String delta = encodeDelta(reconstruct(chain), content);
+            if (delta.length() < content.length()) {
+                revision.setBody(delta);
+                return revision;
+            }
+        }
+        revision.setSnapshot(true);
+        revision.setBody(contentCodec.encode(content));
+        return revision;
+    }
+
+    @Transactional(readOnly = true)
+    public List<NoteRevision> listRevisions(Long noteId) {
+        return revisionsRepository.findAll(noteId);
+    }
+
+    // id, version, title and content of the note as written at that version
+    @Transactional(readOnly = true)
+    public Optional<Note> getRevision(Long noteId, long version) {
+        List<NoteRevision> chain = revisionsRepository.findChain(noteId, version);
+        if (chain.isEmpty() || chain.get(chain.size() - 1).getVersion() != version) return Optional.empty();
+
+        Note note = new Note();
+        note.setId(noteId);
+        note.setVersion(version);
+        note.setTitle(chain.get(chain.size() - 1).getTitle());
+        note.setContent(reconstruct(chain));
+        return Optional.of(note);
+    }
+
+    // the text delta that turns the content at version from into the content at version to
+    @Transactional(readOnly = true)
+    public Optional<TextDelta> diff(Long noteId, long from, long to) {
+        Optional<Note> source = getRevision(noteId, from);
+        Optional<Note> target = source.isEmpty() ? Optional.empty() : getRevision(noteId, to);
+        if (target.isEmpty()) return Optional.empty();
+
+        String before = source.get().getContent();
+        String after = target.get().getContent();
+        int[] change = changedRegion(before, after);
+        List<TextDelta.Op> ops = new ArrayList<>(2);
+        if (change[2] > change[0]) ops.add(op("insert", change[0], 0, after.substring(change[0], change[2])));
+        if (change[1] > change[0]) ops.add(op("delete", change[0], change[1] - change[0], null));
+
+        TextDelta delta = new TextDelta();
+        delta.setBaseVersion(from);
+        delta.setOps(ops);
+        return Optional.of(delta);
+    }
+
+    private static String reconstruct(List<NoteRevision> chain) {
+        String content = ContentCodec.decode(chain.get(0).getBody());
+        if (content == null) content = "";
+        for (int i = 1; i < chain.size(); i++) content = applyDelta(content, chain.get(i).getBody());
+        return content;
+    }
+
+    private static String encodeDelta(String before, String after) {
+        int[] change = changedRegion(before, after);
+        return change[0] + "," + (change[1] - change[0]) + "," + after.substring(change[0], change[2]);
+    }
+
+    private static String applyDelta(String content, String delta) {
+        int first = delta.indexOf(',');
+        int second = delta.indexOf(',', first + 1);
+        int at = Integer.parseInt(delta, 0, first, 10);
+        int length = Integer.parseInt(delta, first + 1, second, 10);
+        return new StringBuilder(content.length() - length + delta.length() - second - 1)
+                .append(content, 0, at)
+                .append(delta, second + 1, delta.length())
+                .append(content, at + length, content.length())
+                .toString();
+    }
+
+    // {start, end in before, end in after}: everything outside [start, end) is common prefix/suffix.
+    // Boundaries never split a surrogate pair, so the region is also a valid text delta.
+    private static int[] changedRegion(String before, String after) {
+        int max = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) prefix++;
+        if (prefix > 0 && Character.isHighSurrogate(before.charAt(prefix - 1))) prefix--;
+
+        int suffix = 0;
+        while (suffix < max - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(before.charAt(before.length() - suffix))) suffix--;
+        return new int[]{prefix, before.length() - suffix, after.length() - suffix};
+    }
+
+    private static TextDelta.Op op(String kind, int at, int length, String text) {
+        TextDelta.Op op = new TextDelta.Op();
+        op.setOp(kind);
+        op.setAt(at);
+        op.setLength(length);
+        op.setText(text);
+        return op;
+    }
+
+    private static String contentOf(Note note) {
+        return note.getContent() == null ? "" : note.getContent();
+    }
+}
@@ -1,18 +1,23 @@
 package com.example.springwebnotebook.service;
 
 import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
 import com.example.springwebnotebook.repository.INoteLinksDAO;
 import com.example.springwebnotebook.repository.INotesDAO;
 import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.repository.NotePreview;
+import com.example.springwebnotebook.search.NoteSearchIndex;
+import com.example.springwebnotebook.search.SearchHit;
+import com.example.springwebnotebook.search.TitlePrefixIndex;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @EnableTransactionManagement
@@ -20,101 +25,216 @@ public class NoteService implements IService {
 
     private final INotesDAO noteRepository;
     private final INoteLinksDAO noteLinksRepository;
+    private final NoteSearchIndex searchIndex;
+    private final TitlePrefixIndex titleIndex;
+    private final NoteCache noteCache;
+    private final NoteLoader noteLoader;
+    private final SharedNoteService sharedNoteService;
+    private final AutosaveBuffer autosaveBuffer;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public NoteService(@Qualifier("noteRepositoryJdbcClient") INotesDAO noteRepository, INoteLinksDAO noteLinksRepository) {
+    public NoteService(INotesDAO noteRepository,
+                       INoteLinksDAO noteLinksRepository,
+                       NoteSearchIndex searchIndex,
+                       TitlePrefixIndex titleIndex,
+                       NoteCache noteCache,
+                       NoteLoader noteLoader,
+                       SharedNoteService sharedNoteService,
+                       AutosaveBuffer autosaveBuffer,
+                       ApplicationEventPublisher eventPublisher) {
         this.noteRepository = noteRepository;
         this.noteLinksRepository = noteLinksRepository;
+        this.searchIndex = searchIndex;
+        this.titleIndex = titleIndex;
+        this.noteCache = noteCache;
+        this.noteLoader = noteLoader;
+        this.sharedNoteService = sharedNoteService;
+        this.autosaveBuffer = autosaveBuffer;
+        this.eventPublisher = eventPublisher;
     }
 
+    // Read-only transactions are served by a read replica when one is configured (ReadReplicaConfig).
+    // Only reads that bypass NoteCache are marked: a cache filled from a lagging replica would keep
+    // the stale note after the write's invalidation.
+
     // Returns all notes (copy)
+    @Transactional(readOnly = true)
     public List<Note> getAllNotes() {
         return noteRepository.findAll();
     }
 
+    // id/title projection, the content column stays in the database
+    @Transactional(readOnly = true)
+    public List<LinkPair> getAllNoteSummaries() {
+        return noteRepository.findAllSummaries();
+    }
+
+    // served from NoteCache, the database is only hit on a miss (concurrent misses are batched by
+    // NoteLoader); includes not yet flushed autosaves
     public Optional<Note> getNoteById(Long id) {
-        Note note = noteRepository.findById(id).orElse(null);
-        if (note == null) { return Optional.empty(); }
+        if (id == null) return Optional.empty();
+        return noteCache.get(id, noteLoader::load).map(autosaveBuffer::overlay);
+    }
 
-        List<LinkPair> linkPairs = noteLinksRepository
-                .findLinkedFromNote(note.getId())
-                .stream()
-                .map(n -> new LinkPair(n.getId(), n.getTitle()))
-                .toList();
+    // buffers the edit (absent fields stay as they are); false when the note does not exist
+    public boolean autosave(Long id, Optional<String> title, Optional<String> content) {
+        Optional<Note> stored = id == null ? Optional.empty() : noteCache.get(id, noteLoader::load);
+        stored.ifPresent(note -> autosaveBuffer.accept(note, title, content));
+        return stored.isPresent();
+    }
 
-        note.setLinks(linkPairs);
-        return Optional.of(note);
+    public boolean hasPendingAutosave(Long id) {
+        return autosaveBuffer.hasPending(id);
+    }
+
+    public boolean noteExists(Long id) {
+        return id != null && noteRepository.existsById(id);
     }
 
     public Optional<Note> getNoteByShareKey(String shareKey) {
-        return noteRepository.findByShareKey(shareKey);
+        return sharedNoteService.findByShareKey(shareKey);
     }
 
     @Transactional
     public Number createNote(Note note) {
         Long noteId = noteRepository.create(note).longValue();
+        eventPublisher.publishEvent(NoteChangedEvent.created(noteId, note));
 
         if (note.getLinks() == null) return noteId;
 
-        for (LinkPair linkPair : note.getLinks()) {
-            noteLinksRepository.addLinkToNote(noteId, linkPair.getId());
-        }
-
+        noteLinksRepository.addLinks(noteId, linkIds(note));
         return noteId;
     }
 
+    // note.getVersion() is the expected version (If-Match), null writes unconditionally.
+    // Returns the written state with its new version; after an unconditional write the version is
+    // read back in the same transaction, where the updated row is still locked against other writers.
     @Transactional
     public Optional<Note> updateNote(Note note) {
-        noteRepository.update(note);
-        if (note.getLinks() == null) return noteRepository.findById(note.getId());
+        if (noteRepository.update(note) == 0) {
+            checkVersionConflict(note.getId(), note.getVersion());
+            return Optional.empty();
+        }
+        if (note.getLinks() != null) updateLinks(note);
+
+        Note updated = new Note(note);
+        updated.setVersion(note.getVersion() != null
+                ? Long.valueOf(note.getVersion() + 1)
+                : noteRepository.findVersion(note.getId()).orElseThrow());
+        eventPublisher.publishEvent(NoteChangedEvent.updated(note.getId(), updated));
+        return Optional.of(updated);
+    }
 
-        Set<Long> existingIds = noteLinksRepository
-                .findLinkedFromNote(note.getId())
-                .stream()
-                .map(Note::getId)
-                .collect(Collectors.toSet());
+    // Applies the delta to the stored content of delta.getBaseVersion() and writes only the content column.
+    // The base must be the current version (OptimisticLockingFailureException otherwise): offsets are
+    // meaningless against any other text. Returns the written state, empty when the note does not exist.
+    @Transactional
+    public Optional<Note> patchContent(Long id, TextDelta delta) {
+        if (id == null) return Optional.empty();
+        // links are not touched, so a miss reads the note row alone (an event with null links keeps them)
+        Optional<Note> stored = noteCache.getIfPresent(id).or(() -> noteRepository.findById(id));
+        if (stored.isEmpty()) return Optional.empty();
+        Note base = stored.get();
+        base.setLinks(null);
+        if (!base.getVersion().equals(delta.getBaseVersion())) {
+            throw new OptimisticLockingFailureException("Note " + id + " is at version " + base.getVersion()
+                    + ", not " + delta.getBaseVersion());
+        }
 
-        for (LinkPair linkPair : note.getLinks()) {
-            Long newId = linkPair.getId();
+        String content = delta.applyTo(base.getContent());
+        if (noteRepository.updateContent(id, content, base.getVersion()) == 0) {
+            checkVersionConflict(id, base.getVersion());
+            return Optional.empty();
+        }
 
-            if (!existingIds.contains(newId)) noteLinksRepository.addLinkToNote(note.getId(), newId);
+        Note updated = new Note(base);
+        updated.setContent(content);
+        updated.setVersion(base.getVersion() + 1);
+        eventPublisher.publishEvent(NoteChangedEvent.updated(id, updated));
+        return Optional.of(updated);
+    }
 
-            existingIds.remove(newId);
+    // a conditional write matched no row: tell a stale version apart from a missing note
+    private void checkVersionConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null && noteRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException("Note " + id + " is no longer at version " + expectedVersion);
         }
+    }
 
-        if (existingIds.isEmpty()) return noteRepository.findById(note.getId());
+    // diff on ids only: one query for the current ids, one batch insert, one multi-row delete
+    private void updateLinks(Note note) {
+        Set<Long> desired = linkIds(note);
+        Set<Long> existing = new HashSet<>(noteLinksRepository.findLinkedIds(note.getId()));
 
-        for (Long id : existingIds) noteLinksRepository.deleteLinkFromNote(id, note.getId());
+        List<Long> toAdd = desired.stream().filter(id -> !existing.contains(id)).toList();
+        existing.removeAll(desired);
 
-        return noteRepository.findById(note.getId());
+        noteLinksRepository.addLinks(note.getId(), toAdd);
+        noteLinksRepository.deleteLinks(note.getId(), existing);
+    }
+
+    private static Set<Long> linkIds(Note note) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (LinkPair linkPair : note.getLinks()) {
+            if (linkPair != null && linkPair.getId() != null) ids.add(linkPair.getId());
+        }
+        return ids;
     }
 
     @Transactional
-    public void deleteNote(Long id) {
-        noteRepository.delete(id);
+    public boolean deleteNote(Long id) {
+        return deleteNote(id, null);
+    }
+
+    @Transactional
+    public boolean deleteNote(Long id, Long expectedVersion) {
+        if (noteRepository.delete(id, expectedVersion) == 0) {
+            checkVersionConflict(id, expectedVersion);
+            return false;
+        }
+        eventPublisher.publishEvent(NoteChangedEvent.deleted(id));
+        return true;
+    }
+
+    // full-text search over titles and content, answered from the in-memory index
+    public List<SearchHit> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    // typeahead over titles (link picker), answered from the in-memory prefix index
+    public List<LinkPair> suggestTitles(String prefix, int limit) {
+        return titleIndex.suggest(prefix, limit);
+    }
+
+    // from the prefix index as well, which holds every note: no COUNT(*) per page view
+    public int countNotes() {
+        return titleIndex.size();
     }
 
+    // explicit share from the notes page: reuses the note's permanent link or creates one
     public String getShareLink(Long id) {
-        Optional<Note> note = noteRepository.findById(id);
-        return note.map(n -> "/share/" + n.getShareKey()).orElse(null);
+        if (id == null) return null;
+        return sharedNoteService.defaultShare(id).map(share -> "/share/" + share.getShareKey()).orElse(null);
     }
 
     // --- filtering + pagination helper ---
+    // filtering, ordering and limiting happen in SQL, only the requested page is loaded
+    @Transactional(readOnly = true)
     public List<Note> findWithFilterAndPagination(Optional<String> titleFilter, int page, int size) {
-        List<Note> base = getAllNotes();
-
-        // filter by title if present
-        if (titleFilter.isPresent() && !titleFilter.get().isBlank()) {
-            String tf = titleFilter.get().toLowerCase();
-            base = base.stream()
-                    .filter(n -> n.getTitle() != null && n.getTitle().toLowerCase().contains(tf))
-                    .collect(Collectors.toList());
-        }
+        long offset = Math.max(0, (long) page * size);
+        return noteRepository.findPage(titleFilter, offset, size);
+    }
+
+    // keyset (seek) pagination: continues after the last seen id, so deep pages cost the same as the first one
+    @Transactional(readOnly = true)
+    public List<Note> findWithFilterAfter(Optional<String> titleFilter, Long afterId, int size) {
+        return noteRepository.findPageAfter(titleFilter, afterId, size);
+    }
 
-        // pagination (page: 0-based)
-        int from = Math.max(0, page * size);
-        if (from >= base.size()) return Collections.emptyList();
-        int to = Math.min(base.size(), from + size);
-        return base.subList(from, to);
+    // the same seek for note lists, without reading content
+    @Transactional(readOnly = true)
+    public List<NotePreview> findPreviewsAfter(Long afterId, int size) {
+        return noteRepository.findPreviewsAfter(afterId, size);
     }
 }
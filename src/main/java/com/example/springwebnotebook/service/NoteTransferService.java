@@ -0,0 +1,242 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.INoteSharesDAO;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.NoteLink;
+import com.example.springwebnotebook.repository.NoteShare;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * NDJSON backup format: one {@code {"type":"note",...}} line per note (ordered by id),
+ * followed by one {@code {"type":"link","linker":..,"linked":..}} line per link and one
+ * {@code {"type":"share","key":..,"note":..}} line per active share link.
+ * Links and shares come last so that an import never references a note that is not inserted yet.
+ * The {@code shareKey} of notes in older exports is imported as a share link that does not expire.
+ * Export and import both work row by row, memory use does not depend on the notebook size.
+ * An export reads notes, links and shares in one read-only REPEATABLE READ transaction, so it is a
+ * consistent snapshot: no link to a note that is not in the file, none missing for a note that is.
+ */
+@Service
+public class NoteTransferService {
+
+    private static final int FLUSH_EVERY = 256;
+
+    private final INotesDAO noteRepository;
+    private final INoteLinksDAO noteLinksRepository;
+    private final INoteSharesDAO sharesRepository;
+    private final SharedNoteService sharedNoteService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate exportTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    @Autowired
+    public NoteTransferService(INotesDAO noteRepository,
+                               INoteLinksDAO noteLinksRepository,
+                               INoteSharesDAO sharesRepository,
+                               SharedNoteService sharedNoteService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${notes.import.chunk-size:500}") int chunkSize) {
+        this.noteRepository = noteRepository;
+        this.noteLinksRepository = noteLinksRepository;
+        this.sharesRepository = sharesRepository;
+        this.sharedNoteService = sharedNoteService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exportTemplate = new TransactionTemplate(transactionManager);
+        exportTemplate.setReadOnly(true);
+        exportTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public void exportTo(OutputStream out) throws IOException {
+        try {
+            exportTemplate.executeWithoutResult(status -> {
+                try {
+                    writeExport(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeExport(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // records are separated by '\n' only, not by Jackson's default root separator
+        generator.setRootValueSeparator(null);
+        int written = 0;
+
+        try (Stream<Note> notes = noteRepository.streamAll()) {
+            for (Note note : (Iterable<Note>) notes::iterator) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "note");
+                generator.writeNumberField("id", note.getId());
+                generator.writeStringField("title", note.getTitle());
+                generator.writeStringField("content", note.getContent());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) generator.flush();
+            }
+        }
+
+        try (Stream<NoteLink> links = noteLinksRepository.streamAll()) {
+            for (NoteLink link : (Iterable<NoteLink>) links::iterator) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "link");
+                generator.writeNumberField("linker", link.getLinkerId());
+                generator.writeNumberField("linked", link.getLinkedId());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) generator.flush();
+            }
+        }
+
+        try (Stream<NoteShare> shares = sharesRepository.streamActive(Instant.now())) {
+            for (NoteShare share : (Iterable<NoteShare>) shares::iterator) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "share");
+                generator.writeStringField("key", share.getShareKey());
+                generator.writeNumberField("note", share.getNoteId());
+                generator.writeStringField("createdAt", share.getCreatedAt().toString());
+                if (share.getExpiresAt() != null) generator.writeStringField("expiresAt", share.getExpiresAt().toString());
+                generator.writeNumberField("accessCount", share.getAccessCount());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) generator.flush();
+            }
+        }
+
+        generator.flush();
+    }
+
+    /**
+     * Reads NDJSON line by line and writes it in batches, one transaction per chunk.
+     * Ids from the export are kept, so the target notebook is expected to be empty.
+     * A malformed line stops the import; chunks committed before it stay committed.
+     */
+    public Map<String, Object> importFrom(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Note> notes = new ArrayList<>(chunkSize);
+        List<NoteLink> links = new ArrayList<>(chunkSize);
+        List<NoteShare> shares = new ArrayList<>();
+        long lineNumber = 0, noteCount = 0, linkCount = 0, shareCount = 0, chunks = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+
+            JsonNode record = objectMapper.readTree(line);
+            String type = record.path("type").asText();
+            if ("note".equals(type)) {
+                notes.add(toNote(record, lineNumber));
+                if (record.hasNonNull("shareKey")) shares.add(share(record.get("shareKey").asText(), record.get("id").asLong(), null));
+            } else if ("link".equals(type)) {
+                if (!record.hasNonNull("linker") || !record.hasNonNull("linked")) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": link requires linker and linked");
+                }
+                links.add(new NoteLink(record.get("linker").asLong(), record.get("linked").asLong()));
+            } else if ("share".equals(type)) {
+                if (!record.hasNonNull("key") || !record.hasNonNull("note")) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": share requires key and note");
+                }
+                shares.add(share(record.get("key").asText(), record.get("note").asLong(), record));
+            } else {
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown record type '" + type + "'");
+            }
+
+            if (notes.size() + links.size() + shares.size() >= chunkSize) {
+                noteCount += notes.size();
+                linkCount += links.size();
+                shareCount += shares.size();
+                writeChunk(notes, links, shares);
+                chunks++;
+            }
+        }
+
+        if (!notes.isEmpty() || !links.isEmpty() || !shares.isEmpty()) {
+            noteCount += notes.size();
+            linkCount += links.size();
+            shareCount += shares.size();
+            writeChunk(notes, links, shares);
+            chunks++;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("notes", noteCount);
+        result.put("links", linkCount);
+        result.put("shares", shareCount);
+        result.put("chunks", chunks);
+        return result;
+    }
+
+    private void writeChunk(List<Note> notes, List<NoteLink> links, List<NoteShare> shares) {
+        transactionTemplate.executeWithoutResult(status -> {
+            noteRepository.restoreAll(notes);
+            noteLinksRepository.addAll(links);
+            sharesRepository.restoreAll(shares);
+            sharedNoteService.addKnownKeys(shares.stream().map(NoteShare::getShareKey).toList());
+            for (Note note : notes) eventPublisher.publishEvent(NoteChangedEvent.created(note.getId(), note));
+            links.stream()
+                    .collect(Collectors.groupingBy(NoteLink::getLinkerId, LinkedHashMap::new,
+                            Collectors.mapping(NoteLink::getLinkedId, Collectors.toList())))
+                    .forEach((linkerId, linkedIds) ->
+                            eventPublisher.publishEvent(NoteChangedEvent.linksAdded(linkerId, linkedIds)));
+        });
+        notes.clear();
+        links.clear();
+        shares.clear();
+    }
+
+    private static Note toNote(JsonNode record, long lineNumber) {
+        if (!record.hasNonNull("id") || !record.hasNonNull("title")) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": note requires id and title");
+        }
+
+        Note note = new Note();
+        note.setId(record.get("id").asLong());
+        note.setTitle(record.get("title").asText());
+        note.setContent(record.hasNonNull("content") ? record.get("content").asText() : null);
+        return note;
+    }
+
+    // record null: a share key from an older export, created now and never expiring
+    private static NoteShare share(String key, long noteId, JsonNode record) {
+        NoteShare share = new NoteShare();
+        share.setShareKey(key);
+        share.setNoteId(noteId);
+        share.setCreatedAt(record != null && record.hasNonNull("createdAt")
+                ? Instant.parse(record.get("createdAt").asText()) : Instant.now());
+        if (record != null && record.hasNonNull("expiresAt")) share.setExpiresAt(Instant.parse(record.get("expiresAt").asText()));
+        if (record != null) share.setAccessCount(record.path("accessCount").asLong(0));
+        return share;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.springwebnotebook.service;
+
+// Coalesced autosave state of one note: latest title/content on top of the version it was based on
+final class PendingEdit {
+
+    private final long noteId;
+    private final String title;
+    private final String content;
+    private final long baseVersion;
+
+    PendingEdit(long noteId, String title, String content, long baseVersion) {
+        this.noteId = noteId;
+        this.title = title;
+        this.content = content;
+        this.baseVersion = baseVersion;
+    }
+
+    long getNoteId() { return noteId; }
+
+    String getTitle() { return title; }
+
+    String getContent() { return content; }
+
+    long getBaseVersion() { return baseVersion; }
+}
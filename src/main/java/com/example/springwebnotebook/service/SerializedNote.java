@@ -0,0 +1,43 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.repository.LinkPair;
+
+import java.util.List;
+import java.util.Objects;
+
+// UTF-8 JSON of one note at one version, with its gzip variant once a client asked for it
+public class SerializedNote {
+    private final long version;
+    // links the JSON was written with (null: none); their titles change without the version
+    private final List<LinkPair> links;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    SerializedNote(long version, List<LinkPair> links, byte[] json, byte[] gzip) {
+        this.version = version;
+        this.links = links;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public long getVersion() { return version; }
+
+    public byte[] getJson() { return json; }
+
+    // null until requested, or when the JSON is too small to be worth compressing
+    public byte[] getGzip() { return gzip; }
+
+    SerializedNote withGzip(byte[] gzip) {
+        return new SerializedNote(version, links, json, gzip);
+    }
+
+    boolean writtenWith(List<LinkPair> current) {
+        if (links == null || current == null) return links == current;
+        if (links.size() != current.size()) return false;
+        for (int i = 0; i < links.size(); i++) {
+            LinkPair a = links.get(i), b = current.get(i);
+            if (!Objects.equals(a.getId(), b.getId()) || !Objects.equals(a.getTitle(), b.getTitle())) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteSharesDAO;
+import com.example.springwebnotebook.repository.NoteShare;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Share links and the serving path for {@code /share/{shareKey}}.
+ * A note has no share key until it is shared; every share creates a short random key (12 bytes,
+ * 16 URL-safe characters) that may expire and can be revoked, and a note can have several.
+ * Unknown keys are rejected by a Bloom filter without a query, concurrent lookups of the
+ * same key share one query, and rendered pages are cached until the note changes, the link is
+ * revoked or it expires. Unknown, revoked and expired keys all get one shared "not found" page
+ * that is not cached per key. Access counts are kept in memory and written in batches.
+ */
+@Service
+public class SharedNoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedNoteService.class);
+    private static final int KEY_BYTES = 12;
+
+    private final SecureRandom random = new SecureRandom();
+    private final INoteSharesDAO sharesRepository;
+    private final ShareKeyFilter knownKeys;
+    private final SingleFlight<String, Optional<NoteShare>> lookups = new SingleFlight<>();
+    private final Cache<String, SharedPage> pages;
+
+    // note id -> share keys of its cached pages, to invalidate pages by note id
+    private final Map<Long, Set<String>> pageKeys = new ConcurrentHashMap<>();
+    // share key -> views not yet added to access_count
+    private final Map<String, Long> pendingAccesses = new ConcurrentHashMap<>();
+    // bumped before every invalidation: a page rendered across one is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile SharedPage notFoundPage;
+    private volatile boolean filterLoaded;
+
+    @Autowired
+    public SharedNoteService(INoteSharesDAO sharesRepository,
+                             @Value("${notes.share.filter.expected-keys:1000000}") long expectedKeys,
+                             @Value("${notes.share.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${notes.share.page-cache.max-weight:16777216}") long pageCacheWeight,
+                             @Value("${notes.share.page-cache.ttl:30m}") Duration pageCacheTtl) {
+        this.sharesRepository = sharesRepository;
+        this.knownKeys = new ShareKeyFilter(expectedKeys, falsePositiveRate);
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(pageCacheWeight)
+                .weigher((String key, SharedPage page) -> page.getHtml().length + key.length() * 2 + 64)
+                // a page of an expiring link is not served past the expiry
+                .expireAfter(Expiry.creating((String key, SharedPage page) -> pageTtl(page, pageCacheTtl)))
+                .evictionListener((String key, SharedPage page, RemovalCause cause) -> {
+                    if (page != null && page.getNoteId() != null) removePageKey(page.getNoteId(), key);
+                })
+                .recordStats()
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKnownKeys() {
+        try (Stream<NoteShare> shares = sharesRepository.streamActive(Instant.now())) {
+            shares.forEach(share -> knownKeys.add(share.getShareKey()));
+        }
+        filterLoaded = true;
+    }
+
+    // links written without share(), e.g. by an import; the filter would turn them away otherwise
+    public void addKnownKeys(Collection<String> shareKeys) {
+        shareKeys.forEach(knownKeys::add);
+    }
+
+    // new link to the note, expiring after ttl (null: never); empty when the note does not exist
+    public Optional<NoteShare> share(Long noteId, Duration ttl) {
+        NoteShare share = new NoteShare();
+        share.setShareKey(newKey());
+        share.setNoteId(noteId);
+        share.setCreatedAt(Instant.now());
+        share.setExpiresAt(ttl != null ? share.getCreatedAt().plus(ttl) : null);
+        try {
+            sharesRepository.create(share);
+        } catch (DataIntegrityViolationException e) {
+            return Optional.empty();
+        }
+        knownKeys.add(share.getShareKey());
+        return Optional.of(share);
+    }
+
+    // the newest active link that does not expire, created when there is none
+    public Optional<NoteShare> defaultShare(Long noteId) {
+        Instant now = Instant.now();
+        return sharesRepository.findByNote(noteId).stream()
+                .filter(share -> share.getExpiresAt() == null && share.isActiveAt(now))
+                .findFirst()
+                .or(() -> share(noteId, null));
+    }
+
+    // newest first, with views that are not written yet included in the counts
+    public List<NoteShare> listShares(Long noteId) {
+        List<NoteShare> shares = sharesRepository.findByNote(noteId);
+        for (NoteShare share : shares) {
+            share.setAccessCount(share.getAccessCount() + pendingAccesses.getOrDefault(share.getShareKey(), 0L));
+        }
+        return shares;
+    }
+
+    // false when the key is not an active link of the note
+    public boolean revoke(Long noteId, String shareKey) {
+        if (sharesRepository.revoke(noteId, shareKey, Instant.now()) == 0) return false;
+        invalidations.incrementAndGet();
+        pages.invalidate(shareKey);
+        removePageKey(noteId, shareKey);
+        return true;
+    }
+
+    public Optional<Note> findByShareKey(String shareKey) {
+        return findShare(shareKey).map(NoteShare::getNote);
+    }
+
+    private Optional<NoteShare> findShare(String shareKey) {
+        if (filterLoaded && !knownKeys.mightContain(shareKey)) return Optional.empty();
+        return lookups.execute(shareKey, () -> sharesRepository.findActive(shareKey, Instant.now()));
+    }
+
+    // renderer turns the looked-up note (or empty) into HTML; it only runs on a cache miss
+    public SharedPage getPage(String shareKey, Function<Optional<Note>, String> renderer) {
+        SharedPage page = pages.getIfPresent(shareKey);
+        if (page != null) {
+            pendingAccesses.merge(shareKey, 1L, Long::sum);
+            return page;
+        }
+
+        long seen = invalidations.get();
+        Optional<NoteShare> share = findShare(shareKey);
+        if (share.isEmpty()) return notFoundPage(renderer);
+
+        page = render(share.get().getNoteId(), renderer.apply(share.map(NoteShare::getNote)), share.get().getExpiresAt());
+        pages.put(shareKey, page);
+        pageKeys.computeIfAbsent(page.getNoteId(), k -> ConcurrentHashMap.newKeySet()).add(shareKey);
+        // an invalidation since the lookup may have missed the key, and the page may be stale
+        if (invalidations.get() != seen) {
+            pages.invalidate(shareKey);
+            removePageKey(page.getNoteId(), shareKey);
+        }
+        pendingAccesses.merge(shareKey, 1L, Long::sum);
+        return page;
+    }
+
+    public void invalidateNote(Long noteId) {
+        invalidations.incrementAndGet();
+        Set<String> shareKeys = pageKeys.remove(noteId);
+        if (shareKeys != null) pages.invalidateAll(shareKeys);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        invalidateNote(event.getNoteId());
+    }
+
+    @Scheduled(fixedDelayString = "${notes.share.access-flush-interval:10s}")
+    @PreDestroy
+    public void flushAccessCounts() {
+        if (pendingAccesses.isEmpty()) return;
+        Map<String, Long> counts = new HashMap<>();
+        for (String shareKey : pendingAccesses.keySet()) {
+            Long count = pendingAccesses.remove(shareKey);
+            if (count != null) counts.put(shareKey, count);
+        }
+        try {
+            sharesRepository.addAccessCounts(counts);
+        } catch (RuntimeException e) {
+            log.warn("Could not write share access counts, keeping them for the next flush", e);
+            counts.forEach((shareKey, count) -> pendingAccesses.merge(shareKey, count, Long::sum));
+        }
+    }
+
+    // rendered once and shared by every key that leads nowhere, so probing keys fills no cache
+    private SharedPage notFoundPage(Function<Optional<Note>, String> renderer) {
+        SharedPage page = notFoundPage;
+        if (page == null) notFoundPage = page = render(null, renderer.apply(Optional.empty()), null);
+        return page;
+    }
+
+    private static SharedPage render(Long noteId, String rendered, Instant expiresAt) {
+        byte[] html = rendered.getBytes(StandardCharsets.UTF_8);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(html) + "\"";
+        long lastModified = System.currentTimeMillis() / 1000 * 1000;
+        return new SharedPage(noteId, html, etag, lastModified, expiresAt);
+    }
+
+    private void removePageKey(Long noteId, String shareKey) {
+        pageKeys.computeIfPresent(noteId, (k, keys) -> {
+            keys.remove(shareKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static Duration pageTtl(SharedPage page, Duration pageCacheTtl) {
+        if (page.getExpiresAt() == null) return pageCacheTtl;
+        Duration untilExpiry = Duration.between(Instant.now(), page.getExpiresAt());
+        return untilExpiry.isNegative() ? Duration.ZERO : Collections.min(List.of(pageCacheTtl, untilExpiry));
+    }
+
+    private String newKey() {
+        byte[] bytes = new byte[KEY_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springwebnotebook.service;
+
+import java.time.Instant;
+
+// Rendered shared-note page together with its validators
+public class SharedPage {
+    private final Long noteId;
+    private final byte[] html;
+    private final String etag;
+    private final long lastModified;
+    private final Instant expiresAt;
+
+    public SharedPage(Long noteId, byte[] html, String etag, long lastModified, Instant expiresAt) {
+        this.noteId = noteId;
+        this.html = html;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.expiresAt = expiresAt;
+    }
+
+    // null when the page says "note not found"
+    public Long getNoteId() { return noteId; }
+
+    public byte[] getHtml() { return html; }
+
+    public String getEtag() { return etag; }
+
+    public long getLastModified() { return lastModified; }
+
+    // expiry of the share link, null when it does not expire (or the page says "note not found")
+    public Instant getExpiresAt() { return expiresAt; }
+}
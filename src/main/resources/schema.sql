@@ -0,0 +1,74 @@
+-- Schema of the notebook. Spring Boot applies this file to embedded databases only
+-- (tests, benchmarks); MySQL installations run it once by hand.
+CREATE TABLE IF NOT EXISTS notes (
+    id        BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title     VARCHAR(255) NOT NULL,
+    content   MEDIUMTEXT,
+    -- optimistic lock, bumped by every update; existing databases:
+    -- ALTER TABLE notes ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
+    version   BIGINT       NOT NULL DEFAULT 1,
+    -- length and first 500 characters of the content, so that note lists never read (or decompress)
+    -- the content itself; existing databases:
+    -- ALTER TABLE notes ADD COLUMN content_length INT NOT NULL DEFAULT 0, ADD COLUMN preview VARCHAR(500);
+    -- rows left with a NULL preview are listed from their content until rewritten
+    content_length INT    NOT NULL DEFAULT 0,
+    preview   VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS notes_to_notes (
+    linker_id BIGINT NOT NULL,
+    linked_id BIGINT NOT NULL,
+    PRIMARY KEY (linker_id, linked_id),
+    -- backlinks; declared in the table because MySQL has no CREATE INDEX IF NOT EXISTS. Existing databases:
+    -- CREATE INDEX ix_notes_to_notes_linked ON notes_to_notes (linked_id);
+    INDEX ix_notes_to_notes_linked (linked_id),
+    CONSTRAINT fk_link_linker FOREIGN KEY (linker_id) REFERENCES notes (id) ON DELETE CASCADE,
+    CONSTRAINT fk_link_linked FOREIGN KEY (linked_id) REFERENCES notes (id) ON DELETE CASCADE
+);
+
+-- Share links, created on demand: several per note, each optionally expiring. Revoked links keep
+-- their row. Existing databases move the one key per note over and drop the old column:
+-- INSERT INTO note_shares (share_key, note_id) SELECT share_key, id FROM notes;
+-- ALTER TABLE notes DROP COLUMN share_key;
+-- (MySQL drops any index on share_key along with the column)
+CREATE TABLE IF NOT EXISTS note_shares (
+    share_key    VARCHAR(64) PRIMARY KEY,
+    note_id      BIGINT      NOT NULL,
+    created_at   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at   TIMESTAMP   NULL,
+    revoked_at   TIMESTAMP   NULL,
+    access_count BIGINT      NOT NULL DEFAULT 0,
+    INDEX ix_note_shares_note (note_id),
+    CONSTRAINT fk_share_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+);
+
+-- Revision history: every note write stores a delta against the previous revision,
+-- every notes.revisions.snapshot-every revisions (and the first) a full snapshot.
+CREATE TABLE IF NOT EXISTS note_revisions (
+    note_id    BIGINT       NOT NULL,
+    version    BIGINT       NOT NULL,
+    snapshot   BOOLEAN      NOT NULL,
+    title      VARCHAR(255) NOT NULL,
+    body       MEDIUMTEXT,
+    created_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (note_id, version),
+    CONSTRAINT fk_revision_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+);
+
+-- Change log for incremental sync (GET /api/notes/changes). No foreign key: delete tombstones
+-- outlive their note. A transaction locks the single note_changes_lock row right before it
+-- commits and writes its change rows in one batch, so seq order is commit order and a reader's
+-- cursor never skips a change committed later, while the lock is held only for that batch.
+CREATE TABLE IF NOT EXISTS note_changes (
+    seq        BIGINT AUTO_INCREMENT PRIMARY KEY,
+    note_id    BIGINT      NOT NULL,
+    type       VARCHAR(8)  NOT NULL,
+    version    BIGINT,
+    changed_at TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS note_changes_lock (
+    id INT PRIMARY KEY
+);
+
+INSERT INTO note_changes_lock (id) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM note_changes_lock);
@@ -0,0 +1,61 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteCache;
+import com.example.springwebnotebook.service.NoteLoader;
+import com.example.springwebnotebook.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.springwebnotebook.TestNotes.note;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cache misses of the note cache going through NoteLoader's shared batches
+@SpringBootTest
+class BatchLoaderTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteCache noteCache;
+
+    @Autowired
+    private NoteLoader noteLoader;
+
+    @Test
+    void concurrentCacheMissesShareBatches() throws Exception {
+        long linkedId = noteService.createNote(note("linked", List.of())).longValue();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) ids.add(noteService.createNote(note("batched " + i, List.of(new LinkPair(linkedId, null)))).longValue());
+        noteCache.invalidateAll();
+        long batchesBefore = noteLoader.getBatchCount();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Note>> loaded = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long id : ids) {
+                loaded.add(executor.submit(() -> {
+                    start.await();
+                    return noteService.getNoteById(id).orElseThrow();
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < ids.size(); i++) {
+                Note note = loaded.get(i).get();
+                assertEquals(ids.get(i), note.getId());
+                assertEquals(List.of(linkedId), note.getLinks().stream().map(LinkPair::getId).toList());
+            }
+        }
+        assertTrue(noteLoader.getBatchCount() - batchesBefore < ids.size());
+    }
+}
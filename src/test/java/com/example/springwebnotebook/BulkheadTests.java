@@ -0,0 +1,99 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.config.BulkheadRejectedException;
+import com.example.springwebnotebook.config.DbBulkhead;
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INotesDAO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The connection bulkhead: queueing, rejection, and the 503 a rejected request gets
+@SpringBootTest
+@AutoConfigureMockMvc
+class BulkheadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DbBulkhead bulkhead;
+
+    @Autowired
+    private INotesDAO noteRepository;
+
+    @Test
+    void aRequestThatGetsNoConnectionIsAnswered503() throws Exception {
+        long timedOut = bulkhead.getTimedOutCount();
+        int taken = 0;
+        try {
+            // every permit held by the test: the request waits notes.bulkhead.timeout and gives up
+            for (; taken < bulkhead.getMaxConcurrent(); taken++) bulkhead.acquire();
+            mockMvc.perform(get("/api/notes").param("size", "5")).andExpect(status().isServiceUnavailable());
+        } finally {
+            for (int i = 0; i < taken; i++) bulkhead.release();
+        }
+        assertTrue(bulkhead.getTimedOutCount() > timedOut);
+        mockMvc.perform(get("/api/notes").param("size", "5")).andExpect(status().isOk());
+    }
+
+    @Test
+    void streamedReadsGiveTheirPermitBack() {
+        int inUse = bulkhead.getInUse();
+        // JdbcTemplate closes a stream's connection through its statement
+        try (Stream<Note> notes = noteRepository.streamAll()) {
+            notes.forEach(note -> {});
+        }
+        try (Stream<Note> notes = noteRepository.streamAll()) {
+            assertEquals(inUse + 1, bulkhead.getInUse());
+        }
+        assertEquals(inUse, bulkhead.getInUse());
+    }
+
+    @Test
+    void callersBeyondTheQueueAreRejectedAtOnce() throws Exception {
+        DbBulkhead noQueue = new DbBulkhead(1, 0, Duration.ofSeconds(10));
+        noQueue.acquire();
+
+        long start = System.nanoTime();
+        assertThrows(BulkheadRejectedException.class, noQueue::acquire);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        assertEquals(1, noQueue.getRejectedCount());
+
+        noQueue.release();
+        noQueue.acquire();
+        assertEquals(2, noQueue.getAcquiredCount());
+    }
+
+    @Test
+    void queuedCallersGetThePermitOnceReleased() throws Exception {
+        DbBulkhead queued = new DbBulkhead(1, 1, Duration.ofSeconds(10));
+        queued.acquire();
+
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                queued.acquire();
+            } catch (BulkheadRejectedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (queued.getQueueDepth() == 0) Thread.onSpinWait();
+        // the queue is full now
+        assertThrows(BulkheadRejectedException.class, queued::acquire);
+
+        queued.release();
+        waiter.join();
+        assertEquals(2, queued.getAcquiredCount());
+        assertEquals(1, queued.getInUse());
+        assertEquals(0, queued.getTimedOutCount());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.repository.NotePreview;
+import com.example.springwebnotebook.service.ContentMigrationJob;
+import com.example.springwebnotebook.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rows stored before content compression: readable as they are, compressed by the migration job
+@SpringBootTest
+class ContentMigrationTests {
+
+    @Autowired
+    private ContentMigrationJob migration;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void legacyRowsAreReadAndThenCompressedInPlace() throws Exception {
+        String content = "written before compression existed ".repeat(200);
+        // inserted around the codec, like a row from an older release
+        jdbcTemplate.update("INSERT INTO notes (title, content) VALUES (?, ?)", "legacy", content);
+        long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM notes", Long.class);
+        Map<String, Object> before = jdbcTemplate.queryForMap("SELECT content, version FROM notes WHERE id = ?", id);
+        assertEquals(content, before.get("content"));
+        assertEquals(content, noteService.getNoteById(id).orElseThrow().getContent());
+        // no stored preview yet: the list cuts it from the content
+        NotePreview listed = noteService.findPreviewsAfter(id - 1, 1).get(0);
+        assertEquals(content.length(), listed.getContentLength());
+        assertEquals(content.substring(0, NotePreview.LENGTH - 3) + "...", listed.getExcerpt());
+
+        while (migration.isRunning()) Thread.sleep(50);
+        long compressed = migration.getCompressed();
+        migration.start();
+        do Thread.sleep(50); while (migration.isRunning());
+
+        Map<String, Object> after = jdbcTemplate.queryForMap("SELECT content, version FROM notes WHERE id = ?", id);
+        assertTrue(((String) after.get("content")).startsWith("\u0001z:"));
+        // the same logical content: the version is not bumped
+        assertEquals(before.get("version"), after.get("version"));
+        assertTrue(migration.getCompressed() > compressed);
+        assertEquals(content, noteService.getNoteById(id).orElseThrow().getContent());
+        // and the rewrite stored the preview
+        assertEquals(content.substring(0, NotePreview.LENGTH),
+                jdbcTemplate.queryForObject("SELECT preview FROM notes WHERE id = ?", String.class, id));
+        assertEquals(listed.getExcerpt(), noteService.findPreviewsAfter(id - 1, 1).get(0).getExcerpt());
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.logstore.LogStore;
+import com.example.springwebnotebook.logstore.LogStoreTransactionManager;
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INoteLinksDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteService;
+import com.example.springwebnotebook.service.SharedNoteService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.example.springwebnotebook.TestNotes.note;
+import static org.junit.jupiter.api.Assertions.*;
+
+// The application on the embedded log store (no database), and the store's recovery and compaction
+@SpringBootTest
+@ActiveProfiles("logstore")
+class LogStoreTests {
+
+    @DynamicPropertySource
+    static void storeDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("logstore-tests");
+        registry.add("notes.logstore.dir", directory::toString);
+    }
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private INoteLinksDAO noteLinksRepository;
+
+    @Autowired
+    private SharedNoteService sharedNoteService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void servesNotesWithoutADatabase() {
+        long linked = noteService.createNote(note("linked", List.of())).longValue();
+        long linker = noteService.createNote(note("linker", List.of(new LinkPair(linked, null)))).longValue();
+
+        Note stored = noteService.getNoteById(linker).orElseThrow();
+        assertEquals("linker content", stored.getContent());
+        assertEquals(List.of(linked), stored.getLinks().stream().map(LinkPair::getId).toList());
+        String shareKey = sharedNoteService.share(linker, null).orElseThrow().getShareKey();
+        assertEquals(stored.getId(), noteService.getNoteByShareKey(shareKey).orElseThrow().getId());
+        assertEquals(1, noteService.findWithFilterAndPagination(Optional.of("LINKER"), 0, 10).size());
+
+        assertTrue(noteService.deleteNote(linked));
+        assertEquals(List.of(), noteLinksRepository.findLinkedIds(linker));
+    }
+
+    @Test
+    void rollbackRestoresWhatTheTransactionChanged() {
+        long id = noteService.createNote(note("before", List.of())).longValue();
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Note changed = noteService.getNoteById(id).orElseThrow();
+            changed.setTitle("after");
+            noteService.updateNote(changed);
+            noteService.createNote(note("rolled back", List.of()));
+            throw new IllegalStateException("abort");
+        }));
+
+        assertTrue(noteService.findWithFilterAndPagination(Optional.of("rolled back"), 0, 10).isEmpty());
+        assertEquals(1, noteService.findWithFilterAndPagination(Optional.of("before"), 0, 10).size());
+    }
+
+    @Test
+    void aRollbackDoesNotUndoAConcurrentWrite() throws Exception {
+        try (LogStore store = LogStore.open(directory, false);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long id = store.insert(null, "note", "v1");
+            TransactionTemplate transaction = new TransactionTemplate(new LogStoreTransactionManager(store));
+            CountDownLatch written = new CountDownLatch(1);
+            CountDownLatch abort = new CountDownLatch(1);
+
+            Future<?> rolledBack = executor.submit(() -> transaction.executeWithoutResult(status -> {
+                store.update(id, null, "rolled back", null);
+                written.countDown();
+                try {
+                    abort.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                status.setRollbackOnly();
+            }));
+            written.await();
+            // waits for the transaction holding the note instead of being undone by its rollback
+            Future<Integer> concurrent = executor.submit(() -> store.update(id, null, "concurrent", null));
+            assertThrows(TimeoutException.class, () -> concurrent.get(200, TimeUnit.MILLISECONDS));
+
+            abort.countDown();
+            rolledBack.get();
+            assertEquals(1, concurrent.get());
+            assertEquals("concurrent", store.get(id).getContent());
+            assertEquals(2, store.get(id).getVersion());
+        }
+    }
+
+    @Test
+    void replayDropsTransactionsThatDidNotCommit() throws IOException {
+        Path crashed = directory.resolve("crashed");
+        long id;
+        try (LogStore store = LogStore.open(directory.resolve("live"), false)) {
+            TransactionTemplate transaction = new TransactionTemplate(new LogStoreTransactionManager(store));
+            id = store.insert(null, "note", "v1");
+            transaction.executeWithoutResult(status -> store.update(id, null, "committed", null));
+            transaction.executeWithoutResult(status -> {
+                store.update(id, null, "not committed", null);
+                store.insert(null, "not committed", null);
+                // a crash before the commit record
+                try {
+                    Files.createDirectories(crashed);
+                    for (String file : List.of("notes-1.log", "notes-1.idx")) {
+                        Files.copy(directory.resolve("live").resolve(file), crashed.resolve(file));
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        try (LogStore store = LogStore.open(crashed, false)) {
+            assertEquals("committed", store.get(id).getContent());
+            assertEquals(2, store.get(id).getVersion());
+            assertNull(store.get(id + 1));
+            assertEquals(id + 2, store.insert(null, "next", null));
+        }
+    }
+
+    @Test
+    void reopensFromTheIndexAfterACleanClose() throws IOException {
+        long first;
+        try (LogStore store = LogStore.open(directory, false)) {
+            first = store.insert(null, "first", "one");
+            long second = store.insert(null, "second", "two");
+            store.update(first, null, "one, edited", 1L);
+            store.addLinks(first, List.of(second));
+        }
+        try (LogStore store = LogStore.open(directory, false)) {
+            assertEquals("one, edited", store.get(first).getContent());
+            assertEquals(2, store.get(first).getVersion());
+            assertArrayEquals(new long[]{first + 1}, store.links(first));
+        }
+    }
+
+    @Test
+    void replaysTheLogAfterACrashAndDropsATornWrite() throws IOException {
+        Path crashed = directory.resolve("crashed");
+        try (LogStore store = LogStore.open(directory.resolve("live"), false)) {
+            store.insert(null, "kept", "content");
+            store.delete(store.insert(null, "deleted", "content"), null);
+            // a copy taken while the store is open has an index marked unclean, like after a crash
+            Files.createDirectories(crashed);
+            for (String file : List.of("notes-1.log", "notes-1.idx")) {
+                Files.copy(directory.resolve("live").resolve(file), crashed.resolve(file));
+            }
+        }
+        try (FileChannel log = FileChannel.open(crashed.resolve("notes-1.log"), StandardOpenOption.APPEND)) {
+            log.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 0, 0, 1, 0, 7}));
+        }
+        long sizeWithTornWrite = Files.size(crashed.resolve("notes-1.log"));
+
+        try (LogStore store = LogStore.open(crashed, false)) {
+            assertEquals("kept", store.get(1).getTitle());
+            assertNull(store.get(2));
+            assertEquals(sizeWithTornWrite - 9, store.size());
+            // ids are not reused after a delete
+            assertEquals(3, store.insert(null, "new", null));
+        }
+    }
+
+    @Test
+    void compactionKeepsOnlyCurrentRecords() throws IOException {
+        try (LogStore store = LogStore.open(directory, false)) {
+            long id = store.insert(null, "edited", "v1");
+            for (long version = 1; version < 50; version++) store.update(id, null, "v" + (version + 1), version);
+            store.delete(store.insert(null, "last", "gone"), null);
+
+            long before = store.size();
+            assertTrue(store.compact());
+            assertTrue(store.size() < before / 10);
+            assertEquals("v50", store.get(id).getContent());
+        }
+        try (LogStore store = LogStore.open(directory, false)) {
+            assertEquals("v50", store.get(1).getContent());
+            assertEquals(3, store.insert(null, "next", null));
+        }
+        assertFalse(Files.exists(directory.resolve("notes-1.log")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.BatchOperation;
+import com.example.springwebnotebook.model.BatchResult;
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteBatchService;
+import com.example.springwebnotebook.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static com.example.springwebnotebook.TestNotes.note;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Mixed batches: every item gets its own result, failed runs are retried item by item
+@SpringBootTest
+class NoteBatchTests {
+
+    private static final long MISSING_ID = 999_999_999L;
+
+    @Autowired
+    private NoteBatchService batchService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Test
+    void bestEffortCommitsWhatSucceeds() {
+        long updatedId = noteService.createNote(note("to update", List.of())).longValue();
+        long relinkedId = noteService.createNote(note("to relink", List.of())).longValue();
+        long deletedId = noteService.createNote(note("to delete", List.of())).longValue();
+        long version = noteService.getNoteById(updatedId).orElseThrow().getVersion();
+
+        Note versioned = note("updated", List.of());
+        versioned.setVersion(version);
+        List<BatchOperation> operations = List.of(
+                operation("create", null, note("created", List.of(new LinkPair(updatedId, null)))),
+                operation("create", null, note("dangling", List.of(new LinkPair(MISSING_ID, null)))),
+                // the dangling link fails the run, the retried versioned update must still match
+                operation("update", updatedId, versioned),
+                operation("update", relinkedId, note("relinked", List.of(new LinkPair(MISSING_ID, null)))),
+                operation("update", MISSING_ID, note("missing", List.of())),
+                operation("delete", deletedId, null),
+                operation("delete", MISSING_ID, null),
+                operation("rename", updatedId, null));
+
+        List<BatchResult> results = batchService.execute(operations, false);
+
+        assertEquals(List.of(201, 500, 200, 500, 404, 204, 404, 400),
+                results.stream().map(BatchResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), results.stream().map(BatchResult::getIndex).toList());
+        assertTrue(results.stream().filter(result -> !result.isSuccess()).allMatch(result -> result.getError() != null));
+
+        Note created = noteService.getNoteById(results.get(0).getId()).orElseThrow();
+        assertEquals(List.of(updatedId), created.getLinks().stream().map(LinkPair::getId).toList());
+        Note updated = noteService.getNoteById(updatedId).orElseThrow();
+        assertEquals("updated", updated.getTitle());
+        assertEquals(version + 1, updated.getVersion());
+        assertEquals("to relink", noteService.getNoteById(relinkedId).orElseThrow().getTitle());
+        assertTrue(noteService.getNoteById(deletedId).isEmpty());
+        // the operations are left as the client sent them
+        assertEquals(version, versioned.getVersion());
+        assertNull(versioned.getId());
+    }
+
+    @Test
+    void atomicRollsBackEverything() {
+        long updatedId = noteService.createNote(note("atomic", List.of())).longValue();
+
+        List<BatchResult> results = batchService.execute(List.of(
+                operation("update", updatedId, note("changed", List.of())),
+                operation("delete", MISSING_ID, null)), true);
+
+        assertEquals(List.of(424, 404), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals("atomic", noteService.getNoteById(updatedId).orElseThrow().getTitle());
+    }
+
+    private static BatchOperation operation(String op, Long id, Note note) {
+        BatchOperation operation = new BatchOperation();
+        operation.setOp(op);
+        operation.setId(id);
+        operation.setNote(note);
+        return operation;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.example.springwebnotebook.TestNotes.note;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// /api/notes: served JSON, content encoding and conditional requests
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteRestControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteService noteService;
+
+    private long linkedId;
+    private long noteId;
+
+    @BeforeEach
+    void createNotes() {
+        linkedId = noteService.createNote(note("linked", List.of())).longValue();
+        noteId = noteService.createNote(note("linker", List.of(new LinkPair(linkedId, null)))).longValue();
+    }
+
+    @Test
+    void servedJsonFollowsWrites() throws Exception {
+        mockMvc.perform(get("/api/notes/{id}", noteId)).andExpect(jsonPath("$.links[0].title").value("linked"));
+
+        Note linked = noteService.getNoteById(linkedId).orElseThrow();
+        linked.setTitle("renamed");
+        linked.setContent("x".repeat(4096));
+        noteService.updateNote(linked);
+        // the linker's version is unchanged, its link title is not
+        mockMvc.perform(get("/api/notes/{id}", noteId)).andExpect(jsonPath("$.links[0].title").value("renamed"));
+        mockMvc.perform(get("/api/notes").param("size", "1000"))
+                .andExpect(jsonPath("$.items[?(@.id == " + linkedId + ")].title").value("renamed"));
+
+        byte[] compressed = mockMvc.perform(get("/api/notes/{id}", linkedId).header("Accept-Encoding", "gzip"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(mockMvc.perform(get("/api/notes/{id}", linkedId)).andReturn().getResponse().getContentAsString(), json);
+    }
+
+    @Test
+    void gzipIsServedOnlyWhereItsQualityIsAboveZero() throws Exception {
+        Note linked = noteService.getNoteById(linkedId).orElseThrow();
+        linked.setContent("y".repeat(4096));
+        noteService.updateNote(linked);
+
+        for (String refused : List.of("gzip;q=0", "br, gzip; q=0.0", "*;q=0", "deflate", "gzip;q=x")) {
+            mockMvc.perform(get("/api/notes/{id}", linkedId).header("Accept-Encoding", refused))
+                    .andExpect(header().doesNotExist("Content-Encoding"))
+                    .andExpect(jsonPath("$.id").value(linkedId));
+        }
+        for (String accepted : List.of("GZIP", "br;q=1.0, gzip;q=0.5", "*", "gzip;q=0, x-gzip", "identity, *;q=0.1")) {
+            mockMvc.perform(get("/api/notes/{id}", linkedId).header("Accept-Encoding", accepted))
+                    .andExpect(header().string("Content-Encoding", "gzip"));
+        }
+        // an explicit refusal wins over the wildcard
+        mockMvc.perform(get("/api/notes/{id}", linkedId).header("Accept-Encoding", "*, gzip;q=0"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    void conditionalRequestsFollowTheVersion() throws Exception {
+        long version = noteService.getNoteById(noteId).orElseThrow().getVersion();
+        String etag = etagOf(noteId);
+        mockMvc.perform(get("/api/notes/{id}", noteId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // without If-Match the write is unconditional and still reports the version it wrote
+        String written = mockMvc.perform(put("/api/notes/{id}", noteId).contentType("application/json")
+                        .content("{\"title\":\"replaced\",\"content\":\"new\",\"links\":[{\"id\":" + linkedId + "}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version + 1))
+                .andExpect(jsonPath("$.links[0].title").value("linked"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertEquals(etagOf(noteId), written);
+        mockMvc.perform(get("/api/notes/{id}", noteId).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", etag)
+                        .contentType("application/json").content("{\"title\":\"stale\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/notes/{id}", noteId).contentType("application/text-delta+json")
+                        .content("{\"baseVersion\":" + version + ",\"ops\":[{\"op\":\"insert\",\"at\":0,\"text\":\"x\"}]}"))
+                .andExpect(status().isConflict());
+        assertEquals("replaced", noteService.getNoteById(noteId).orElseThrow().getTitle());
+    }
+
+    @Test
+    void aLinkedNotesNewTitleChangesTheETag() throws Exception {
+        String etag = etagOf(noteId);
+        long version = noteService.getNoteById(noteId).orElseThrow().getVersion();
+
+        Note linked = noteService.getNoteById(linkedId).orElseThrow();
+        linked.setTitle("renamed");
+        noteService.updateNote(linked);
+
+        // same version, different representation: no 304 with the old link title
+        mockMvc.perform(get("/api/notes/{id}", noteId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version))
+                .andExpect(jsonPath("$.links[0].title").value("renamed"));
+        assertNotEquals(etag, etagOf(noteId));
+        mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", etag)
+                        .contentType("application/json").content("{\"title\":\"stale links\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void ifMatchFollowsRfc9110() throws Exception {
+        String etag = etagOf(noteId);
+
+        // a list matches when one member does
+        mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", "\"1-stale\", " + etag)
+                        .contentType("application/json").content("{\"title\":\"listed\"}"))
+                .andExpect(status().isOk());
+        // * matches whatever the note currently is
+        mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", "*")
+                        .contentType("application/json").content("{\"title\":\"any\"}"))
+                .andExpect(status().isOk());
+        // strong comparison: the weak form of the current tag does not match
+        String current = etagOf(noteId);
+        mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", "W/" + current)
+                        .contentType("application/json").content("{\"title\":\"weak\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/notes/{id}", noteId).header("If-Match", "\"abc\""))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("any", noteService.getNoteById(noteId).orElseThrow().getTitle());
+
+        mockMvc.perform(delete("/api/notes/{id}", noteId).header("If-Match", "W/\"1\", " + current))
+                .andExpect(status().isNoContent());
+        // * does not match a note that is gone
+        mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", "*")
+                        .contentType("application/json").content("{\"title\":\"gone\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/notes/{id}", noteId)
+                        .contentType("application/json").content("{\"title\":\"gone\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void aMalformedIfMatchIsRejected() throws Exception {
+        long version = noteService.getNoteById(noteId).orElseThrow().getVersion();
+        for (String ifMatch : List.of(String.valueOf(version), "\"" + version, "\"1\" \"2\"", "*, \"1\"")) {
+            mockMvc.perform(put("/api/notes/{id}", noteId).header("If-Match", ifMatch)
+                            .contentType("application/json").content("{\"title\":\"replaced\"}"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(delete("/api/notes/{id}", noteId).header("If-Match", ifMatch))
+                    .andExpect(status().isBadRequest());
+        }
+        assertEquals(version, noteService.getNoteById(noteId).orElseThrow().getVersion());
+    }
+
+    private String etagOf(long id) throws Exception {
+        return mockMvc.perform(get("/api/notes/{id}", id)).andReturn().getResponse().getHeader("ETag");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
+import com.example.springwebnotebook.service.NoteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// /api/notes/{id}/revisions against H2, with a snapshot every other revision so chains start at later snapshots
+@SpringBootTest(properties = "notes.revisions.snapshot-every=2")
+@AutoConfigureMockMvc
+class NoteRevisionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void everyWriteIsKeptAsARevision() throws Exception {
+        String base = "revision history keeps every write of this note, ".repeat(3);
+        List<String> contents = List.of(base, base + "😀", "😀 " + base + "😀", "😀 " + base, base.replace("every", "each"));
+        long id = write(contents);
+
+        mockMvc.perform(get("/api/notes/{id}/revisions", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].version").value(contains(5, 4, 3, 2, 1)))
+                .andExpect(jsonPath("$[*].snapshot").value(contains(true, false, true, false, true)))
+                .andExpect(jsonPath("$[0].body").doesNotExist())
+                // version 4 drops the trailing emoji: "<at>,2,"
+                .andExpect(jsonPath("$[1].storedSize").value((contents.get(3).length() + ",2,").length()));
+
+        for (int version = 1; version <= contents.size(); version++) {
+            mockMvc.perform(get("/api/notes/{id}/revisions/{version}", id, version))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(version))
+                    .andExpect(jsonPath("$.title").value("history " + version))
+                    .andExpect(jsonPath("$.content").value(contents.get(version - 1)));
+        }
+        mockMvc.perform(get("/api/notes/{id}/revisions/{version}", id, 6))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Note " + id + " has no revision 6"));
+    }
+
+    @Test
+    void aDiffIsATextDeltaAgainstTheFromRevision() throws Exception {
+        String base = "one two three four five six seven eight nine ten";
+        List<String> contents = List.of(base, base.replace("two", "2"), base.replace("two", "2😀") + " eleven");
+        long id = write(contents);
+
+        for (int[] pair : new int[][]{{1, 3}, {3, 1}, {2, 3}}) {
+            String json = mockMvc.perform(get("/api/notes/{id}/revisions/{from}/diff/{to}", id, pair[0], pair[1]))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            TextDelta delta = objectMapper.readValue(json, TextDelta.class);
+            assertEquals(pair[0], delta.getBaseVersion());
+            assertEquals(contents.get(pair[1] - 1), delta.applyTo(contents.get(pair[0] - 1)));
+        }
+        mockMvc.perform(get("/api/notes/{id}/revisions/{from}/diff/{to}", id, 1, 4))
+                .andExpect(status().isNotFound());
+    }
+
+    // creates the note with the first content and updates it with each of the others
+    private long write(List<String> contents) {
+        Note note = new Note();
+        note.setTitle("history 1");
+        note.setContent(contents.get(0));
+        note.setLinks(new ArrayList<>());
+        long id = noteService.createNote(note).longValue();
+        for (int i = 1; i < contents.size(); i++) {
+            Note current = noteService.getNoteById(id).orElseThrow();
+            current.setTitle("history " + (i + 1));
+            current.setContent(contents.get(i));
+            noteService.updateNote(current);
+        }
+        return id;
+    }
+}
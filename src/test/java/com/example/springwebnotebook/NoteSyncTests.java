@@ -0,0 +1,132 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.service.NoteChangeFeed;
+import com.example.springwebnotebook.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// /api/notes/changes paging and the SSE stream, with a ring buffer of four changes so replays run out quickly
+@SpringBootTest(properties = "notes.changes.buffer-size=4")
+@AutoConfigureMockMvc
+class NoteSyncTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteChangeFeed changeFeed;
+
+    @Test
+    void pagesFollowTheCursorWithTombstonesForDeletes() throws Exception {
+        long start = changeFeed.lastSeq();
+        long a = create("a");
+        long b = create("b");
+        long c = create("c");
+        Note renamed = noteService.getNoteById(a).orElseThrow();
+        renamed.setTitle("a renamed");
+        noteService.updateNote(renamed);
+        noteService.deleteNote(b);
+
+        // b's upsert is read after b was deleted: a tombstone with the seq of the upsert
+        mockMvc.perform(get("/api/notes/changes").param("since", Long.toString(start)).param("limit", "2"))
+                .andExpect(jsonPath("$.changes[*].id").value(contains((int) a, (int) b)))
+                .andExpect(jsonPath("$.changes[0].note.title").value("a renamed"))
+                .andExpect(jsonPath("$.changes[1].type").value("delete"))
+                .andExpect(jsonPath("$.changes[1].note").doesNotExist())
+                .andExpect(jsonPath("$.cursor").value(start + 2))
+                .andExpect(jsonPath("$.hasMore").value(true));
+        mockMvc.perform(get("/api/notes/changes").param("since", Long.toString(start + 2)).param("limit", "2"))
+                .andExpect(jsonPath("$.changes[*].id").value(contains((int) c, (int) a)))
+                .andExpect(jsonPath("$.changes[*].seq").value(contains((int) start + 3, (int) start + 4)))
+                .andExpect(jsonPath("$.cursor").value(start + 4))
+                .andExpect(jsonPath("$.hasMore").value(true));
+        mockMvc.perform(get("/api/notes/changes").param("since", Long.toString(start + 4)).param("limit", "2"))
+                .andExpect(jsonPath("$.changes[*].type").value(contains("delete")))
+                .andExpect(jsonPath("$.cursor").value(start + 5))
+                .andExpect(jsonPath("$.hasMore").value(false));
+        mockMvc.perform(get("/api/notes/changes").param("since", Long.toString(start + 5)))
+                .andExpect(jsonPath("$.changes").isEmpty())
+                .andExpect(jsonPath("$.cursor").value(start + 5))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        // in one page each note appears once, at its newest change
+        mockMvc.perform(get("/api/notes/changes").param("since", Long.toString(start)))
+                .andExpect(jsonPath("$.changes[*].id").value(contains((int) c, (int) a, (int) b)))
+                .andExpect(jsonPath("$.changes[*].seq").value(contains((int) start + 3, (int) start + 4, (int) start + 5)));
+
+        mockMvc.perform(get("/api/notes/changes").param("since", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes/changes").param("limit", "0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void aStreamReplaysFromLastEventIdThenPushesNewChanges() throws Exception {
+        long start = changeFeed.lastSeq();
+        long a = create("streamed a");
+        create("streamed b");
+
+        MvcResult result = mockMvc.perform(get("/api/notes/changes/stream").header("Last-Event-ID", start + 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = await(result, "id:" + (start + 2) + "\n");
+        assertFalse(replayed.contains("id:" + (start + 1) + "\n"));
+        assertTrue(replayed.contains("event:change"));
+
+        Note updated = noteService.getNoteById(a).orElseThrow();
+        updated.setContent("pushed");
+        noteService.updateNote(updated);
+        String pushed = await(result, "id:" + (start + 3) + "\n");
+        assertTrue(pushed.indexOf("id:" + (start + 2) + "\n") < pushed.indexOf("id:" + (start + 3) + "\n"));
+    }
+
+    @Test
+    void aStreamBehindTheRingBufferIsToldToResync() throws Exception {
+        long start = changeFeed.lastSeq();
+        for (int i = 0; i < 6; i++) create("overflow " + i);
+
+        MvcResult result = mockMvc.perform(get("/api/notes/changes/stream").param("since", Long.toString(start)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String resync = await(result, "event:resync");
+        assertTrue(resync.contains("{\"since\":" + start + "}"));
+        assertFalse(resync.contains("event:change"));
+
+        // the newest changes are still buffered
+        MvcResult recent = mockMvc.perform(get("/api/notes/changes/stream").param("since", Long.toString(start + 4)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = await(recent, "id:" + (start + 6) + "\n");
+        assertTrue(replayed.contains("id:" + (start + 5) + "\n"));
+        assertFalse(replayed.contains("event:resync"));
+    }
+
+    // the stream is written by the fan-out thread: waits for the expected text to arrive
+    private static String await(MvcResult result, String expected) throws Exception {
+        for (int i = 0; i < 250 && !result.getResponse().getContentAsString().contains(expected); i++) Thread.sleep(20);
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private long create(String title) {
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(title + " content");
+        note.setLinks(new ArrayList<>());
+        return noteService.createNote(note).longValue();
+    }
+}
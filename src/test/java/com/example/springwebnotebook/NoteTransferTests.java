@@ -0,0 +1,122 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteService;
+import com.example.springwebnotebook.service.NoteTransferService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// NDJSON import and export: an imported backup exports to the same records
+@SpringBootTest
+class NoteTransferTests {
+
+    // far above the ids the other tests create, so the notebook does not have to be empty
+    private static final long FIRST_ID = 900_001;
+
+    @Autowired
+    private NoteTransferService transferService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void importedNotesExportUnchanged() throws Exception {
+        String big = "compressed on import ".repeat(400);
+        List<String> backup = List.of(
+                "{\"type\":\"note\",\"id\":" + FIRST_ID + ",\"title\":\"first\",\"content\":\"plain \\u0001 text\"}",
+                "{\"type\":\"note\",\"id\":" + (FIRST_ID + 1) + ",\"title\":\"second\",\"content\":\"" + big + "\"}",
+                "{\"type\":\"note\",\"id\":" + (FIRST_ID + 2) + ",\"title\":\"third\",\"content\":null}",
+                "{\"type\":\"link\",\"linker\":" + FIRST_ID + ",\"linked\":" + (FIRST_ID + 1) + "}",
+                "{\"type\":\"link\",\"linker\":" + (FIRST_ID + 2) + ",\"linked\":" + FIRST_ID + "}",
+                "{\"type\":\"share\",\"key\":\"transfer-key\",\"note\":" + (FIRST_ID + 1)
+                        + ",\"createdAt\":\"2024-05-01T10:00:00Z\",\"accessCount\":7}");
+
+        Map<String, Object> result = transferService.importFrom(
+                new ByteArrayInputStream(String.join("\n", backup).getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3L, result.get("notes"));
+        assertEquals(2L, result.get("links"));
+        assertEquals(1L, result.get("shares"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transferService.exportTo(out);
+        List<JsonNode> exported = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode record = objectMapper.readTree(line);
+            if (Set.of("note", "link", "share").contains(record.path("type").asText()) && imported(record)) {
+                exported.add(record);
+            }
+        }
+        List<JsonNode> expected = new ArrayList<>();
+        for (String line : backup) expected.add(objectMapper.readTree(line));
+        assertEquals(expected, exported);
+
+        // imported notes are indexed and linked like created ones
+        Note first = noteService.getNoteById(FIRST_ID).orElseThrow();
+        assertEquals(List.of(FIRST_ID + 1), first.getLinks().stream().map(LinkPair::getId).toList());
+        assertEquals(big, noteService.getNoteById(FIRST_ID + 1).orElseThrow().getContent());
+        assertTrue(noteService.getNoteByShareKey("transfer-key").isPresent());
+    }
+
+    @Test
+    void anExportIsWrittenFromOneReadOnlyRepeatableReadTransaction() throws Exception {
+        Note note = new Note();
+        note.setTitle("snapshot");
+        note.setContent("exported");
+        note.setLinks(new ArrayList<>());
+        noteService.createNote(note);
+
+        List<String> transactions = new ArrayList<>();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                transactions.add(TransactionSynchronizationManager.isActualTransactionActive()
+                        + " " + TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                        + " " + TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+            }
+        };
+        transferService.exportTo(out);
+
+        assertFalse(transactions.isEmpty());
+        assertEquals(Set.of("true true " + Connection.TRANSACTION_REPEATABLE_READ), Set.copyOf(transactions));
+        assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+    }
+
+    @Test
+    void aMalformedLineStopsTheImport() {
+        String backup = "{\"type\":\"note\",\"title\":\"no id\"}";
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> transferService.importFrom(new ByteArrayInputStream(backup.getBytes(StandardCharsets.UTF_8))));
+        assertTrue(error.getMessage().startsWith("Line 1"));
+    }
+
+    private static boolean imported(JsonNode record) {
+        long id = record.has("id") ? record.get("id").asLong()
+                : record.has("linker") ? record.get("linker").asLong() : record.path("note").asLong();
+        return id >= FIRST_ID && id < FIRST_ID + 100;
+    }
+}
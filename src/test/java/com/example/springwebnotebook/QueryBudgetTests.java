@@ -0,0 +1,90 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.example.springwebnotebook.TestNotes.note;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// notes.query-budget.mode=fail in the test configuration: a page over its budget throws from perform()
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueryBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private long linkedId;
+    private long noteId;
+
+    @BeforeEach
+    void createNotes() {
+        linkedId = noteService.createNote(note("linked", List.of())).longValue();
+        noteId = noteService.createNote(note("linker", List.of(new LinkPair(linkedId, null)))).longValue();
+    }
+
+    @Test
+    void pagesStayWithinTheirQueryBudget() throws Exception {
+        mockMvc.perform(get("/")).andExpect(status().isOk());
+        mockMvc.perform(get("/new")).andExpect(status().isOk());
+        mockMvc.perform(get("/edit/{id}", noteId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes/{id}", noteId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes/{id}/backlinks", linkedId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes/{id}/graph", noteId).param("depth", "2")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes/suggest").param("prefix", "link")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes/search").param("q", "linker")).andExpect(status().isOk());
+    }
+
+    @Test
+    void writesStayWithinTheirQueryBudget() throws Exception {
+        String created = mockMvc.perform(post("/api/notes").contentType("application/json")
+                        .content("{\"title\":\"budget\",\"content\":\"text\",\"links\":[{\"id\":" + linkedId + "}]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        // {"success":"id of created note <id>"}
+        long id = Long.parseLong(created.replaceAll("\\D", ""));
+
+        mockMvc.perform(put("/api/notes/{id}", id).contentType("application/json")
+                        .content("{\"title\":\"budget\",\"content\":\"replaced\",\"links\":[]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/notes/{id}", id).contentType("application/merge-patch+json")
+                        .content("{\"content\":\"merged\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/notes/{id}", id).contentType("application/json-patch+json")
+                        .content("[{\"op\":\"replace\",\"path\":\"/content\",\"value\":\"patched\"}]"))
+                .andExpect(status().isOk());
+        long version = noteService.getNoteById(id).orElseThrow().getVersion();
+        mockMvc.perform(patch("/api/notes/{id}", id).contentType("application/text-delta+json")
+                        .content("{\"baseVersion\":" + version + ",\"ops\":[{\"op\":\"insert\",\"at\":0,\"text\":\"x\"}]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/notes/{id}/shares", id)).andExpect(status().isCreated());
+        mockMvc.perform(delete("/api/notes/{id}", id)).andExpect(status().isNoContent());
+    }
+
+    @Test
+    void recordsDaoAndRequestMetrics() throws Exception {
+        mockMvc.perform(get("/api/notes/{id}", linkedId)).andExpect(status().isOk());
+
+        assertNotNull(registry.find("notes.http.queries").tag("uri", "/api/notes/{id}").summary());
+        assertNotNull(registry.find("notes.dao.calls").tag("method", "findById").timer());
+        assertNotNull(registry.find("notes.dao.statements").tag("method", "findLinkedFromNote").summary());
+    }
+}
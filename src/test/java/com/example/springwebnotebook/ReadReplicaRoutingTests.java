@@ -0,0 +1,75 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.service.NoteService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A second in-memory H2 stands in for the replica. Nothing replicates into it, so whichever
+// database answers a read shows where it was routed.
+@SpringBootTest(properties = {
+        "notes.datasource.replicas[0].url=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "notes.datasource.replicas[0].username=sa"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:notes_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteService noteService;
+
+    @BeforeAll
+    static void createReplica() throws Exception {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            statement.executeUpdate("INSERT INTO notes (title, content) VALUES ('only on the replica', '')");
+        }
+    }
+
+    @Test
+    void readOnlyServiceMethodsReadFromTheReplica() {
+        assertEquals(1, noteService.findWithFilterAndPagination(Optional.of("only on the replica"), 0, 5).size());
+    }
+
+    @Test
+    void clientThatWroteReadsFromThePrimary() throws Exception {
+        Cookie pinned = mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"written to the primary\",\"content\":\"text\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getCookie("notes-primary-until");
+        assertNotNull(pinned);
+
+        mockMvc.perform(get("/api/notes").param("title", "written to the primary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0));
+        mockMvc.perform(get("/api/notes").param("title", "written to the primary").cookie(pinned))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+    }
+}
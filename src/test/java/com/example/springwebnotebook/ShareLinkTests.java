@@ -0,0 +1,65 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.service.NoteService;
+import com.example.springwebnotebook.service.SharedNoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Share links through /api/notes/{id}/shares and the /share/{shareKey} page
+@SpringBootTest
+@AutoConfigureMockMvc
+class ShareLinkTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private SharedNoteService sharedNoteService;
+
+    @Test
+    void shareLinksServeUntilRevokedOrExpired() throws Exception {
+        Note note = new Note();
+        note.setTitle("shared");
+        note.setContent("shared content");
+        long noteId = noteService.createNote(note).longValue();
+
+        String location = mockMvc.perform(post("/api/notes/{id}/shares", noteId))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        mockMvc.perform(get(location)).andExpect(content().string(containsString("shared content")));
+        mockMvc.perform(get(location)).andExpect(content().string(containsString("shared content")));
+
+        String shareKey = location.substring("/share/".length());
+        assertEquals(16, shareKey.length());
+        mockMvc.perform(delete("/api/notes/{id}/shares/{shareKey}", noteId, shareKey)).andExpect(status().isNoContent());
+        mockMvc.perform(get(location)).andExpect(content().string(not(containsString("shared content"))));
+        mockMvc.perform(delete("/api/notes/{id}/shares/{shareKey}", noteId, shareKey)).andExpect(status().isNotFound());
+
+        sharedNoteService.flushAccessCounts();
+        assertEquals(2, sharedNoteService.listShares(noteId).get(0).getAccessCount());
+
+        String expiring = sharedNoteService.share(noteId, Duration.ofMillis(50)).orElseThrow().getShareKey();
+        assertTrue(noteService.getNoteByShareKey(expiring).isPresent());
+        Thread.sleep(100);
+        assertTrue(noteService.getNoteByShareKey(expiring).isEmpty());
+        mockMvc.perform(post("/api/notes/{id}/shares", noteId).param("expiresIn", "-1d")).andExpect(status().isBadRequest());
+    }
+}
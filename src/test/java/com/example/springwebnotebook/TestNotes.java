@@ -0,0 +1,21 @@
+package com.example.springwebnotebook;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+
+import java.util.List;
+
+// Notes the Spring tests create: the content is derived from the title, links as given
+final class TestNotes {
+
+    private TestNotes() {
+    }
+
+    static Note note(String title, List<LinkPair> links) {
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(title + " content");
+        note.setLinks(links);
+        return note;
+    }
+}
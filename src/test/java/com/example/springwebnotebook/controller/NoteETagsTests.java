@@ -0,0 +1,58 @@
+package com.example.springwebnotebook.controller;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.LinkPair;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ETags of served notes and the If-Match rules of RFC 9110: *, lists and strong comparison
+class NoteETagsTests {
+
+    @Test
+    void theTagCoversVersionAndLinkTitles() {
+        Note note = note(3L, List.of());
+        assertEquals("\"3\"", NoteETags.of(note));
+
+        String linked = NoteETags.of(note(3L, List.of(new LinkPair(7L, "seven"))));
+        assertTrue(linked.startsWith("\"3-"));
+        assertEquals(linked, NoteETags.of(note(3L, List.of(new LinkPair(7L, "seven")))));
+        assertNotEquals(linked, NoteETags.of(note(3L, List.of(new LinkPair(7L, "renamed")))));
+        assertNotEquals(linked, NoteETags.of(note(3L, List.of(new LinkPair(8L, "seven")))));
+        assertNotEquals(linked, NoteETags.of(note(4L, List.of(new LinkPair(7L, "seven")))));
+    }
+
+    @Test
+    void ifMatchValuesAreParsedAsListsOfTags() {
+        assertSame(NoteETags.ANY, NoteETags.parse(" * "));
+        assertEquals(List.of("\"1\""), NoteETags.parse("\"1\""));
+        assertEquals(List.of("W/\"1\"", "\"2-ab\"", "\"a,b\""), NoteETags.parse("W/\"1\" ,\"2-ab\",\t\"a,b\""));
+
+        for (String malformed : List.of("1", "\"1", "\"1\" \"2\"", "*, \"1\"", "w/\"1\"", ",", "\"1\"x")) {
+            assertNull(NoteETags.parse(malformed), malformed);
+        }
+    }
+
+    @Test
+    void onlyAStrongTagOfTheCurrentNoteMatches() {
+        Note current = note(5L, List.of(new LinkPair(1L, "one")));
+        String etag = NoteETags.of(current);
+
+        assertTrue(NoteETags.matches(NoteETags.parse(etag), current));
+        assertTrue(NoteETags.matches(NoteETags.parse("\"4\", " + etag), current));
+        assertTrue(NoteETags.matches(NoteETags.ANY, current));
+        assertFalse(NoteETags.matches(NoteETags.parse("W/" + etag), current));
+        assertFalse(NoteETags.matches(NoteETags.parse("\"5\""), current));
+        assertFalse(NoteETags.matches(NoteETags.ANY, null));
+        assertFalse(NoteETags.matches(NoteETags.parse(etag), null));
+    }
+
+    private static Note note(Long version, List<LinkPair> links) {
+        Note note = new Note();
+        note.setVersion(version);
+        note.setLinks(links);
+        return note;
+    }
+}
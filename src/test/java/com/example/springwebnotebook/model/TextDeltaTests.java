@@ -0,0 +1,82 @@
+package com.example.springwebnotebook.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Applying text deltas to base content, and the ops a delta rejects
+class TextDeltaTests {
+
+    @Test
+    void opsApplyAtOffsetsOfTheBaseContent() {
+        assertEquals("Hello, brave new world!",
+                delta(insert(7, "brave "), delete(7, 5), insert(12, "new world")).applyTo("Hello, there!"));
+        assertEquals("[b]", delta(insert(0, "["), insert(1, "]")).applyTo("b"));
+    }
+
+    @Test
+    void anInsertAndADeleteAtTheSameOffsetReplaceText() {
+        assertEquals("one 2 three", delta(insert(4, "2"), delete(4, 3)).applyTo("one two three"));
+        // the delete first: the insert would start before the end of the deleted range
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(4, 3), insert(4, "2")).applyTo("one two three"));
+        assertEquals("one three!", delta(delete(3, 4), insert(13, "!")).applyTo("one two three"));
+    }
+
+    @Test
+    void unorderedOrOverlappingOpsAreRejected() {
+        String base = "0123456789";
+        IllegalArgumentException unordered = assertThrows(IllegalArgumentException.class,
+                () -> delta(insert(5, "x"), insert(2, "y")).applyTo(base));
+        assertTrue(unordered.getMessage().startsWith("ops[1]"));
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(2, 4), delete(5, 1)).applyTo(base));
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(2, 4), insert(3, "x")).applyTo(base));
+        // adjacent ranges do not overlap
+        assertEquals("0189", delta(delete(2, 3), delete(5, 3)).applyTo(base));
+    }
+
+    @Test
+    void offsetsOutsideTheContentAreRejected() {
+        assertEquals("abc!", delta(insert(3, "!")).applyTo("abc"));
+        assertThrows(IllegalArgumentException.class, () -> delta(insert(4, "!")).applyTo("abc"));
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(2, 2)).applyTo("abc"));
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(1, 0)).applyTo("abc"));
+        assertThrows(IllegalArgumentException.class, () -> delta().applyTo("abc"));
+        assertEquals("new", delta(insert(0, "new")).applyTo(null));
+    }
+
+    @Test
+    void offsetsInsideASurrogatePairAreRejected() {
+        // U+1F600 is two UTF-16 units, at offsets 1 and 2
+        String base = "a😀b";
+        assertThrows(IllegalArgumentException.class, () -> delta(insert(2, "x")).applyTo(base));
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(0, 2)).applyTo(base));
+        assertThrows(IllegalArgumentException.class, () -> delta(delete(2, 2)).applyTo(base));
+        assertEquals("a😀xb", delta(insert(3, "x")).applyTo(base));
+        assertEquals("ab", delta(delete(1, 2)).applyTo(base));
+    }
+
+    private static TextDelta delta(TextDelta.Op... ops) {
+        TextDelta delta = new TextDelta();
+        delta.setBaseVersion(1L);
+        delta.setOps(List.of(ops));
+        return delta;
+    }
+
+    private static TextDelta.Op insert(int at, String text) {
+        TextDelta.Op op = new TextDelta.Op();
+        op.setOp("insert");
+        op.setAt(at);
+        op.setText(text);
+        return op;
+    }
+
+    private static TextDelta.Op delete(int at, int length) {
+        TextDelta.Op op = new TextDelta.Op();
+        op.setOp("delete");
+        op.setAt(at);
+        op.setLength(length);
+        return op;
+    }
+}
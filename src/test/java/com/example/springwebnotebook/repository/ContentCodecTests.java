@@ -0,0 +1,81 @@
+package com.example.springwebnotebook.repository;
+
+import com.example.springwebnotebook.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The stored form of note content: what is compressed, what stays plain, and reading both back
+class ContentCodecTests {
+
+    private final ContentCodec codec = new ContentCodec(64);
+
+    @Test
+    void compressibleContentAboveTheThresholdIsDeflated() {
+        String content = "Привіт, notes! ".repeat(50);
+
+        String stored = codec.encode(content);
+
+        assertTrue(ContentCodec.isDeflated(stored));
+        assertTrue(stored.length() < content.length());
+        assertEquals(content, ContentCodec.decode(stored));
+    }
+
+    @Test
+    void shortOrIncompressibleContentStaysPlain() {
+        assertEquals("short", codec.encode("short"));
+        assertEquals("", codec.encode(""));
+        assertNull(codec.encode(null));
+
+        StringBuilder noise = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) noise.append((char) ('!' + random.nextInt(90)));
+        assertEquals(noise.toString(), codec.encode(noise.toString()));
+    }
+
+    @Test
+    void plainContentStartingWithTheMarkerIsEscaped() {
+        String content = ContentCodec.DEFLATED + "not base64";
+
+        String stored = codec.encode(content);
+
+        assertNotEquals(content, stored);
+        assertFalse(ContentCodec.isDeflated(stored));
+        assertEquals(content, ContentCodec.decode(stored));
+    }
+
+    @Test
+    void rowsFromBeforeCompressionReadUnchanged() {
+        // written without the codec: no marker, whatever the length
+        String legacy = "legacy row ".repeat(100);
+        assertEquals(legacy, ContentCodec.decode(legacy));
+        assertNull(ContentCodec.decode(null));
+
+        Note note = new Note();
+        ContentCodec.setContent(note, legacy);
+        assertEquals(legacy, note.getContent());
+    }
+
+    @Test
+    void deflatedRowsAreDecodedOnFirstRead() {
+        String content = "lazy ".repeat(100);
+        Note note = new Note();
+
+        ContentCodec.setContent(note, codec.encode(content));
+
+        assertEquals(content, note.getContent());
+    }
+
+    @Test
+    void corruptDeflatedContentFails() {
+        String stored = codec.encode("corrupt ".repeat(100));
+        String truncated = stored.substring(0, stored.length() / 2);
+        // cut at a multiple of four, so that the Base64 itself stays valid
+        String cut = truncated.substring(0, ContentCodec.DEFLATED.length()
+                + (truncated.length() - ContentCodec.DEFLATED.length()) / 4 * 4);
+
+        assertThrows(IllegalStateException.class, () -> ContentCodec.decode(cut));
+    }
+}
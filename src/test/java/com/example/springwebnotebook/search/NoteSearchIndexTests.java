@@ -0,0 +1,146 @@
+package com.example.springwebnotebook.search;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INotesDAO;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Tokenizing, BM25 ranking and rebuilding of the search index against a mocked repository
+class NoteSearchIndexTests {
+
+    private final INotesDAO noteRepository = mock(INotesDAO.class);
+    // what the mocked repository streams on rebuild
+    private final Map<Long, Note> stored = new LinkedHashMap<>();
+    private final NoteSearchIndex index = new NoteSearchIndex(noteRepository);
+
+    @Test
+    void tokensAreLowercaseRunsOfLettersAndDigits() {
+        assertEquals(List.of("hello", "wörld", "42", "привіт", "світе"),
+                Tokenizer.tokens("Hello, WÖRLD! 42 -- Привіт, світе"));
+        assertEquals(List.of("kept"), Tokenizer.tokens("x".repeat(Tokenizer.MAX_TOKEN_LENGTH + 1) + " kept"));
+        assertEquals(List.of(), Tokenizer.tokens(null));
+
+        List<String> spans = new ArrayList<>();
+        Tokenizer.forEachToken("  ab-cd ", (token, start, end) -> spans.add(token + "@" + start + ".." + end));
+        assertEquals(List.of("ab@2..4", "cd@5..7"), spans);
+    }
+
+    @Test
+    void titleMatchesOutrankContentMatches() {
+        add(1, "Groceries", "buy milk and bread");
+        add(2, "Milk", "the dairy note");
+        add(3, "Unrelated", "nothing to see here");
+
+        List<SearchHit> hits = index.search("milk", 10);
+
+        assertEquals(List.of(2L, 1L), hits.stream().map(SearchHit::getId).toList());
+        assertEquals("<mark>Milk</mark>", hits.get(0).getHighlightedTitle());
+        assertEquals("buy <mark>milk</mark> and bread", hits.get(1).getSnippet());
+    }
+
+    @Test
+    void snippetsComeFromTheIndexedPreview() {
+        String filler = "lorem ipsum ".repeat(20);
+        add(1, "Early <b>", filler + "needle & thread " + filler);
+        add(2, "Late", "x ".repeat(300) + "needle");
+
+        List<SearchHit> hits = index.search("needle", 10);
+
+        SearchHit early = hits.stream().filter(hit -> hit.getId() == 1).findFirst().orElseThrow();
+        assertEquals("Early &lt;b&gt;", early.getHighlightedTitle());
+        assertTrue(early.getSnippet().startsWith("…"));
+        assertTrue(early.getSnippet().contains("<mark>needle</mark> &amp; thread"));
+        assertTrue(early.getSnippet().endsWith("…"));
+        // the match is past the preview: the snippet is its start, and the content goes on
+        SearchHit late = hits.stream().filter(hit -> hit.getId() == 2).findFirst().orElseThrow();
+        assertEquals("x ".repeat(80) + "…", late.getSnippet());
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void rareTermsAndShortDocumentsScoreHigher() {
+        add(1, "a", "common rare");
+        add(2, "b", "common");
+        add(3, "c", "common");
+        add(4, "d", "common filler filler filler filler filler filler filler");
+
+        List<SearchHit> hits = index.search("common rare", 10);
+        assertEquals(1L, hits.get(0).getId());
+        // the same single match, diluted by a longer document
+        assertTrue(score(hits, 2) > score(hits, 4));
+        assertEquals(score(hits, 2), score(hits, 3), 1e-9);
+
+        assertEquals(1, index.search("common", 1).size());
+        assertEquals(List.of(), index.search("missing", 10));
+        assertEquals(List.of(), index.search("  ,, ", 10));
+    }
+
+    @Test
+    void removedAndReindexedNotesFollowTheirLatestState() {
+        add(1, "first", "alpha");
+        add(2, "second", "alpha beta");
+        index.remove(1L);
+        stored.remove(1L);
+        add(2, "second", "gamma");
+
+        assertEquals(List.of(), index.search("alpha", 10));
+        assertEquals(List.of(2L), index.search("gamma", 10).stream().map(SearchHit::getId).toList());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void changesDuringARebuildAreNotLost() {
+        put(1, "one", "before");
+        put(2, "two", "before");
+        when(noteRepository.streamAll()).thenAnswer(invocation -> stored.values().stream().map(Note::new).toList().stream()
+                .peek(note -> {
+                    // committed after the rows were read: a new note and a deleted one
+                    if (note.getId() != 2) return;
+                    add(3, "three", "during");
+                    index.remove(1L);
+                    stored.remove(1L);
+                }));
+
+        index.rebuild();
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(3L), index.search("during", 10).stream().map(SearchHit::getId).toList());
+        assertEquals(List.of(2L), index.search("before", 10).stream().map(SearchHit::getId).toList());
+    }
+
+    @Test
+    void aFailedRebuildKeepsTheIndex() {
+        add(1, "one", "kept");
+        when(noteRepository.streamAll()).thenReturn(Stream.of(1).map(row -> {
+            throw new IllegalStateException("connection lost");
+        }));
+
+        assertThrows(IllegalStateException.class, index::rebuild);
+
+        assertEquals(List.of(1L), index.search("kept", 10).stream().map(SearchHit::getId).toList());
+    }
+
+    private void add(long id, String title, String content) {
+        put(id, title, content);
+        index.index(id, title, content);
+    }
+
+    private void put(long id, String title, String content) {
+        Note note = new Note();
+        note.setId(id);
+        note.setTitle(title);
+        note.setContent(content);
+        stored.put(id, note);
+    }
+
+    private static double score(List<SearchHit> hits, long id) {
+        return hits.stream().filter(hit -> hit.getId() == id).findFirst().orElseThrow().getScore();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springwebnotebook.search;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.example.springwebnotebook.repository.LinkPair;
+import com.example.springwebnotebook.service.NoteChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Typeahead suggestions against a mocked repository: prefixes, renames, deletes and rebuilds
+class TitlePrefixIndexTests {
+
+    private final INotesDAO noteRepository = mock(INotesDAO.class);
+    private final TitlePrefixIndex index = new TitlePrefixIndex(noteRepository);
+
+    @Test
+    void suggestionsStartWithThePrefixInAnyCase() {
+        when(noteRepository.findAllSummaries()).thenReturn(List.of(
+                new LinkPair(1L, "Shopping list"), new LinkPair(2L, "shop hours"),
+                new LinkPair(3L, "Shopping list"), new LinkPair(4L, "Workshop")));
+        index.rebuild();
+
+        assertEquals(List.of(2L, 1L, 3L), ids(index.suggest("SHOP", 10)));
+        assertEquals(List.of(2L, 1L), ids(index.suggest(" shop", 2)));
+        assertEquals(List.of(), ids(index.suggest("hop", 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void aRenamedNoteIsSuggestedUnderItsNewTitleOnly() {
+        when(noteRepository.findAllSummaries()).thenReturn(List.of(new LinkPair(1L, "Draft")));
+        index.rebuild();
+
+        index.onNoteChanged(NoteChangedEvent.updated(1L, note(1L, "Final")));
+
+        assertEquals(List.of(), index.suggest("dra", 10));
+        List<LinkPair> suggestions = index.suggest("fin", 10);
+        assertEquals(List.of(1L), ids(suggestions));
+        assertEquals("Final", suggestions.get(0).getTitle());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void aDeletedNoteIsNoLongerSuggested() {
+        when(noteRepository.findAllSummaries()).thenReturn(List.of(
+                new LinkPair(1L, "Recipes"), new LinkPair(2L, "Reading")));
+        index.rebuild();
+
+        index.onNoteChanged(NoteChangedEvent.deleted(1L));
+
+        assertEquals(List.of(2L), ids(index.suggest("re", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void aRebuildReplacesWhatWasIndexed() {
+        index.onNoteChanged(NoteChangedEvent.created(1L, note(1L, "Gone since")));
+        when(noteRepository.findAllSummaries()).thenReturn(List.of(new LinkPair(2L, "Kept")));
+
+        index.rebuild();
+
+        assertEquals(List.of(), index.suggest("gone", 10));
+        assertEquals(List.of(2L), ids(index.suggest("k", 10)));
+        assertEquals(1, index.size());
+    }
+
+    private static List<Long> ids(List<LinkPair> suggestions) {
+        return suggestions.stream().map(LinkPair::getId).toList();
+    }
+
+    private static Note note(Long id, String title) {
+        Note note = new Note();
+        note.setId(id);
+        note.setTitle(title);
+        return note;
+    }
+}
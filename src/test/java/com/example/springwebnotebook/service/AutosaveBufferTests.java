@@ -0,0 +1,159 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.repository.INotesDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The write-behind buffer against a mocked repository, and its journal on a temporary directory
+class AutosaveBufferTests {
+
+    @TempDir
+    Path directory;
+
+    private final INotesDAO noteRepository = mock(INotesDAO.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // the notes of every updateAll call, copied before the buffer bumps their versions
+    private final List<List<Note>> written = new ArrayList<>();
+    private AutosaveBuffer buffer;
+
+    @BeforeEach
+    void createBuffer() {
+        buffer = new AutosaveBuffer(noteRepository, mock(PlatformTransactionManager.class),
+                mock(ApplicationEventPublisher.class), objectMapper, 500, directory, false);
+    }
+
+    @AfterEach
+    void closeBuffer() throws IOException {
+        buffer.shutdown();
+    }
+
+    @Test
+    void editsOfOneNoteCoalesceIntoOneWrite() {
+        acceptAll();
+        buffer.accept(stored(1, 3), Optional.of("new title"), Optional.empty());
+        buffer.accept(stored(1, 3), Optional.empty(), Optional.of("new content"));
+        buffer.accept(stored(2, 1), Optional.empty(), Optional.of("other"));
+        assertEquals(2, buffer.getPendingCount());
+
+        buffer.flush();
+
+        assertEquals(1, written.size());
+        Note first = written.get(0).stream().filter(note -> note.getId() == 1).findFirst().orElseThrow();
+        assertEquals("new title", first.getTitle());
+        assertEquals("new content", first.getContent());
+        // conditional on the version the first edit was based on
+        assertEquals(3, first.getVersion());
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(2, buffer.getFlushedEdits());
+    }
+
+    @Test
+    void anEditArrivingDuringAFlushIsRebasedOnTheWrittenVersion() {
+        when(noteRepository.updateAll(anyList())).thenAnswer(invocation -> {
+            List<Note> notes = invocation.getArgument(0);
+            written.add(copies(notes));
+            if (written.size() == 1) buffer.accept(stored(1, 3), Optional.empty(), Optional.of("typed during flush"));
+            return new int[]{1};
+        });
+        buffer.accept(stored(1, 3), Optional.empty(), Optional.of("before flush"));
+
+        buffer.flush();
+        assertTrue(buffer.hasPending(1L));
+        assertEquals("typed during flush", buffer.overlay(stored(1, 4)).getContent());
+
+        buffer.flush();
+        assertEquals(2, written.size());
+        assertEquals("typed during flush", written.get(1).get(0).getContent());
+        assertEquals(4, written.get(1).get(0).getVersion());
+        assertFalse(buffer.hasPending(1L));
+    }
+
+    @Test
+    void anEditOfAVersionThatChangedMeanwhileIsDropped() {
+        when(noteRepository.updateAll(anyList())).thenAnswer(invocation -> {
+            written.add(copies(invocation.getArgument(0)));
+            return new int[]{0};
+        });
+        buffer.accept(stored(1, 3), Optional.of("stale"), Optional.empty());
+
+        buffer.flush();
+
+        assertFalse(buffer.hasPending(1L));
+        assertEquals(1, buffer.getDroppedEdits());
+        assertEquals(0, buffer.getFlushedEdits());
+    }
+
+    @Test
+    void anExplicitWriteDiscardsThePendingEdit() {
+        buffer.accept(stored(1, 3), Optional.of("autosaved"), Optional.empty());
+
+        buffer.onNoteChanged(NoteChangedEvent.updated(1L, stored(1, 4)));
+
+        assertFalse(buffer.hasPending(1L));
+    }
+
+    @Test
+    void journalReplaySkipsATornLastLine() throws IOException {
+        Path journalDir = directory.resolve("journal");
+        AutosaveJournal journal = new AutosaveJournal(journalDir, false, objectMapper);
+        assertEquals(List.of(), journal.open());
+        journal.append(new PendingEdit(1, "first", "one", 3));
+        journal.append(new PendingEdit(2, "second", null, 5));
+        Path segment = journal.rotate();
+        journal.close();
+        Files.writeString(segment, "{\"id\":3,\"title\":\"to", StandardOpenOption.APPEND);
+
+        AutosaveJournal reopened = new AutosaveJournal(journalDir, false, objectMapper);
+        List<Path> segments = reopened.open();
+        List<PendingEdit> edits = reopened.read(segments);
+        reopened.close();
+
+        assertEquals(List.of(1L, 2L), edits.stream().map(PendingEdit::getNoteId).toList());
+        assertEquals("one", edits.get(0).getContent());
+        assertNull(edits.get(1).getContent());
+        assertEquals(5, edits.get(1).getBaseVersion());
+    }
+
+    private void acceptAll() {
+        when(noteRepository.updateAll(anyList())).thenAnswer(invocation -> {
+            List<Note> notes = invocation.getArgument(0);
+            written.add(copies(notes));
+            int[] counts = new int[notes.size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+    }
+
+    private static List<Note> copies(List<Note> notes) {
+        return notes.stream().map(Note::new).toList();
+    }
+
+    private static Note stored(long id, long version) {
+        Note note = new Note();
+        note.setId(id);
+        note.setTitle("title " + id);
+        note.setContent("content " + id);
+        note.setVersion(version);
+        return note;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.repository.NoteChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Replay from the ring buffer, and resync once a cursor is behind an overwritten change
+class ChangeRingBufferTests {
+
+    private final ChangeRingBuffer buffer = new ChangeRingBuffer(3);
+
+    @Test
+    void changesAfterTheCursorAreReplayedInOrder() {
+        for (long seq = 1; seq <= 3; seq++) buffer.add(change(seq));
+
+        assertEquals(List.of(1L, 2L, 3L), seqs(buffer.since(0)));
+        assertEquals(List.of(3L), seqs(buffer.since(2)));
+        assertEquals(List.of(), seqs(buffer.since(3)));
+    }
+
+    @Test
+    void aCursorBehindAnOverwrittenChangeMustResync() {
+        // seq 3 rolled back, so the log has a gap
+        for (long seq : new long[]{1, 2, 4, 5}) buffer.add(change(seq));
+
+        // seq 1 was overwritten: a reader at 0 missed it
+        assertNull(buffer.since(0));
+        assertEquals(List.of(2L, 4L, 5L), seqs(buffer.since(1)));
+        assertEquals(List.of(5L), seqs(buffer.since(4)));
+
+        buffer.add(change(6));
+        assertNull(buffer.since(1));
+        assertEquals(List.of(4L, 5L, 6L), seqs(buffer.since(2)));
+    }
+
+    private static List<Long> seqs(List<NoteChange> changes) {
+        return changes.stream().map(NoteChange::getSeq).toList();
+    }
+
+    private static NoteChange change(long seq) {
+        return new NoteChange(seq, seq, NoteChange.UPSERT, 1L, null);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.repository.NoteChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Batches released out of ticket order are published in ticket (and so seq) order
+class ChangeSequencerTests {
+
+    private final List<Long> published = new ArrayList<>();
+    private final ChangeSequencer sequencer = new ChangeSequencer(change -> published.add(change.getSeq()));
+
+    @Test
+    void aBatchWaitsForEveryEarlierTicket() {
+        long first = sequencer.take();
+        long second = sequencer.take();
+        long third = sequencer.take();
+
+        sequencer.release(third, List.of(change(5)));
+        sequencer.release(second, List.of(change(3), change(4)));
+        assertEquals(List.of(), published);
+
+        sequencer.release(first, List.of(change(1), change(2)));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), published);
+    }
+
+    @Test
+    void aRolledBackTicketReleasesTheOnesAfterIt() {
+        long rolledBack = sequencer.take();
+        long committed = sequencer.take();
+
+        sequencer.release(committed, List.of(change(2)));
+        assertEquals(List.of(), published);
+        sequencer.release(rolledBack, List.of());
+        assertEquals(List.of(2L), published);
+
+        sequencer.release(sequencer.take(), List.of(change(3)));
+        assertEquals(List.of(2L, 3L), published);
+    }
+
+    private static NoteChange change(long seq) {
+        return new NoteChange(seq, seq, NoteChange.UPSERT, 1L, null);
+    }
+}
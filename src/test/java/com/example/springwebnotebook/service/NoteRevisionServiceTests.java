@@ -0,0 +1,207 @@
+package com.example.springwebnotebook.service;
+
+import com.example.springwebnotebook.model.Note;
+import com.example.springwebnotebook.model.TextDelta;
+import com.example.springwebnotebook.repository.INoteRevisionsDAO;
+import com.example.springwebnotebook.repository.NoteRevision;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Delta + snapshot chains against an in-memory revisions table: rebuilding, snapshots, diffs, batching
+class NoteRevisionServiceTests {
+
+    private static final int SNAPSHOT_EVERY = 3;
+
+    private final InMemoryRevisions revisions = new InMemoryRevisions();
+    private final NoteRevisionService service = new NoteRevisionService(revisions, Integer.MAX_VALUE, SNAPSHOT_EVERY);
+
+    @Test
+    void everyVersionIsRebuiltFromItsChain() {
+        String base = "The quick brown fox jumps over the lazy dog. ".repeat(4);
+        List<String> contents = List.of(
+                base,
+                base + "Appended.",
+                "Prepended. " + base + "Appended.",
+                "Prepended. " + base.replace("lazy", "sleepy") + "Appended.",
+                "",
+                base,
+                base.substring(10),
+                base.substring(10) + "😀 with an emoji",
+                "completely different");
+        for (int i = 0; i < contents.size(); i++) write(1L, i + 1, "title " + (i + 1), contents.get(i), i == 0);
+
+        for (int i = 0; i < contents.size(); i++) {
+            Note revision = service.getRevision(1L, i + 1).orElseThrow();
+            assertEquals(contents.get(i), revision.getContent(), "version " + (i + 1));
+            assertEquals("title " + (i + 1), revision.getTitle());
+            assertEquals(i + 1, revision.getVersion());
+        }
+        assertTrue(service.getRevision(1L, contents.size() + 1).isEmpty());
+        assertTrue(service.getRevision(2L, 1).isEmpty());
+        // a note without content is stored as an empty one
+        write(2L, 1, "empty", null, true);
+        assertEquals("", service.getRevision(2L, 1).orElseThrow().getContent());
+    }
+
+    @Test
+    void aSnapshotLandsEverySnapshotEveryRevisions() {
+        String content = "a long enough line to make small edits worth a delta\n".repeat(5);
+        write(1L, 1, "t", content, true);
+        for (int version = 2; version <= 8; version++) {
+            content = content + version;
+            write(1L, version, "t", content, false);
+        }
+
+        assertEquals(List.of(true, false, false, true, false, false, true, false),
+                revisions.rows(1L).stream().map(NoteRevision::isSnapshot).toList());
+        // each delta stores the edit only
+        assertEquals(content.length() - 1 + ",0,8", revisions.rows(1L).get(7).getBody());
+        assertEquals(List.of(8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L),
+                service.listRevisions(1L).stream().map(NoteRevision::getVersion).toList());
+    }
+
+    @Test
+    void anEditThatIsNotSmallerThanTheContentIsASnapshot() {
+        write(1L, 1, "t", "ab", true);
+        write(1L, 2, "t", "xy", false);
+
+        NoteRevision second = revisions.rows(1L).get(1);
+        assertTrue(second.isSnapshot());
+        assertEquals("xy", second.getBody());
+    }
+
+    @Test
+    void deltasNeverSplitASurrogatePair() {
+        String prefix = "x".repeat(50);
+        write(1L, 1, "t", prefix + "a😀b", true);
+        // same high surrogate: the common prefix stops before it
+        write(1L, 2, "t", prefix + "a😃b", false);
+        // same low surrogate: the common suffix stops after it
+        write(1L, 3, "t", prefix + "a🈃b", false);
+
+        List<NoteRevision> rows = revisions.rows(1L);
+        assertEquals("51,2,😃", rows.get(1).getBody());
+        assertEquals("51,2,🈃", rows.get(2).getBody());
+        assertEquals(prefix + "a😃b", service.getRevision(1L, 2).orElseThrow().getContent());
+        assertEquals(prefix + "a🈃b", service.getRevision(1L, 3).orElseThrow().getContent());
+    }
+
+    @Test
+    void aDiffTurnsOneRevisionIntoTheOther() {
+        String base = "one two three four five six seven eight nine ten";
+        List<String> contents = List.of(base, base.replace("three", "3"), base.replace("three", "3") + " eleven",
+                "zero " + base.replace("three", "3😀"), base);
+        for (int i = 0; i < contents.size(); i++) write(1L, i + 1, "t", contents.get(i), i == 0);
+
+        for (int from = 1; from <= contents.size(); from++) {
+            for (int to = 1; to <= contents.size(); to++) {
+                TextDelta delta = service.diff(1L, from, to).orElseThrow();
+                assertEquals(from, delta.getBaseVersion());
+                // equal contents (the same version, or 1 and 5) diff to no ops at all
+                if (delta.getOps().isEmpty()) assertEquals(contents.get(from - 1), contents.get(to - 1));
+                else assertEquals(contents.get(to - 1), delta.applyTo(contents.get(from - 1)), from + " -> " + to);
+            }
+        }
+        assertTrue(service.diff(1L, 5, 5).orElseThrow().getOps().isEmpty());
+        assertTrue(service.diff(1L, 1, 9).isEmpty());
+        assertTrue(service.diff(1L, 9, 1).isEmpty());
+    }
+
+    @Test
+    void revisionsOfOneTransactionAreWrittenAsOneBatchBeforeCommit() {
+        write(3L, 1, "existing", "stored before the transaction, long enough for a delta", true);
+        int batches = revisions.batches;
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            write(1L, 1, "first", "created", true);
+            write(1L, 2, "first", "created, then updated", false);
+            write(2L, 1, "gone", "created and deleted", true);
+            service.onNoteChanged(NoteChangedEvent.deleted(2L));
+            write(3L, 2, "existing", "stored before the transaction, long enough for a delta!", false);
+            assertEquals(batches, revisions.batches);
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.beforeCommit(false);
+            }
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(batches + 1, revisions.batches);
+        // one revision per note, with its state after the last write and the version it has by then
+        NoteRevision first = revisions.rows(1L).get(0);
+        assertEquals(1, revisions.rows(1L).size());
+        assertEquals(2, first.getVersion());
+        assertTrue(first.isSnapshot());
+        assertEquals("created, then updated", first.getBody());
+        assertTrue(revisions.rows(2L).isEmpty());
+        assertFalse(revisions.rows(3L).get(1).isSnapshot());
+        assertFalse(TransactionSynchronizationManager.hasResource(service));
+    }
+
+    // stands in for the notes table (current versions) as well as for note_revisions
+    private void write(Long id, long version, String title, String content, boolean created) {
+        revisions.versions.put(id, version);
+        Note note = new Note();
+        note.setId(id);
+        note.setVersion(version);
+        note.setTitle(title);
+        note.setContent(content);
+        service.onNoteChanged(created ? NoteChangedEvent.created(id, note) : NoteChangedEvent.updated(id, note));
+    }
+
+    private static final class InMemoryRevisions implements INoteRevisionsDAO {
+        private final Map<Long, Long> versions = new HashMap<>();
+        private final List<NoteRevision> rows = new ArrayList<>();
+        private int batches;
+
+        List<NoteRevision> rows(Long noteId) {
+            return rows.stream().filter(row -> row.getNoteId() == noteId)
+                    .sorted(Comparator.comparingLong(NoteRevision::getVersion)).toList();
+        }
+
+        @Override
+        public List<NoteRevision> findAll(Long noteId) {
+            return rows(noteId).reversed();
+        }
+
+        @Override
+        public List<NoteRevision> findChain(Long noteId, long version) {
+            List<NoteRevision> upTo = rows(noteId).stream().filter(row -> row.getVersion() <= version).toList();
+            int snapshot = upTo.size() - 1;
+            while (snapshot >= 0 && !upTo.get(snapshot).isSnapshot()) snapshot--;
+            return snapshot < 0 ? List.of() : upTo.subList(snapshot, upTo.size());
+        }
+
+        @Override
+        public Map<Long, List<NoteRevision>> findLatestChains(Collection<Long> noteIds) {
+            Map<Long, List<NoteRevision>> chains = new LinkedHashMap<>();
+            for (Long noteId : noteIds) {
+                List<NoteRevision> chain = findChain(noteId, Long.MAX_VALUE);
+                if (!chain.isEmpty()) chains.put(noteId, chain);
+            }
+            return chains;
+        }
+
+        @Override
+        public int[] addAll(List<NoteRevision> added) {
+            batches++;
+            for (NoteRevision revision : added) {
+                revision.setVersion(versions.get(revision.getNoteId()));
+                rows.add(revision);
+            }
+            int[] counts = new int[added.size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        }
+    }
+}